@@ -0,0 +1,60 @@
+/*
+ * Shredzone Commons - pdb
+ *
+ * Copyright (C) 2009 Richard "Shred" Körber
+ *   http://commons.shredzone.org
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Library General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Library General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.shredzone.commons.pdb.benchmark;
+
+import java.io.IOException;
+
+import org.shredzone.commons.pdb.benchmark.corpus.CorpusGenerator;
+import org.shredzone.commons.pdb.benchmark.corpus.Format;
+
+/**
+ * Generates the databases for the benchmarks. The content is random, but always the
+ * same for the same seed.
+ */
+public final class BenchmarkData {
+
+    /**
+     * Seed that is used by all benchmarks.
+     */
+    public static final long SEED = 0x5EED_0DB;
+
+    private BenchmarkData() {
+        // utility class without constructor
+    }
+
+    /**
+     * Creates a PDB file with the default {@link CorpusGenerator} settings.
+     *
+     * @param format
+     *            {@link Format} of the database
+     * @param records
+     *            Number of records
+     * @param seed
+     *            Random seed
+     * @return Content of the PDB file
+     */
+    public static byte[] create(Format format, int records, long seed) throws IOException {
+        CorpusGenerator generator = new CorpusGenerator();
+        generator.setSeed(seed);
+        generator.setRecords(records);
+        return generator.generate(format);
+    }
+
+}
@@ -0,0 +1,106 @@
+/*
+ * Shredzone Commons - pdb
+ *
+ * Copyright (C) 2009 Richard "Shred" Körber
+ *   http://commons.shredzone.org
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Library General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Library General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.shredzone.commons.pdb.benchmark;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.shredzone.commons.pdb.PdbDatabase;
+import org.shredzone.commons.pdb.PdbDatabaseReader;
+import org.shredzone.commons.pdb.PdbFile;
+import org.shredzone.commons.pdb.appinfo.AppInfo;
+import org.shredzone.commons.pdb.benchmark.corpus.Format;
+import org.shredzone.commons.pdb.converter.Converter;
+import org.shredzone.commons.pdb.record.Record;
+import org.shredzone.commons.pdb.source.ByteBufferSource;
+
+/**
+ * Benchmarks the built-in converters, by reading entire databases and single records.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ConverterBenchmark {
+
+    @Param({"MEMO", "TODO", "ADDRESS", "DATEBOOK", "NOTEPAD"})
+    public Format format;
+
+    @Param({"100", "1000", "10000"})
+    public int records;
+
+    private byte[] data;
+    private PdbFile file;
+    private PdbDatabaseReader<?, ?> reader;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        data = BenchmarkData.create(format, records, BenchmarkData.SEED);
+        file = new PdbFile(new ByteBufferSource(data));
+        reader = file.openDatabase(format.createConverter());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        file.close();
+    }
+
+    /**
+     * Reads the entire database, including opening the file.
+     */
+    @Benchmark
+    public PdbDatabase<?, ?> readDatabase() throws IOException {
+        try (PdbFile pdb = new PdbFile(new ByteBufferSource(data))) {
+            return read(pdb, format.createConverter());
+        }
+    }
+
+    /**
+     * Reads a single record of an opened database.
+     */
+    @Benchmark
+    public Record readRecord() throws IOException {
+        Record result = reader.getRecord(next);
+        next = (next + 1) % reader.size();
+        return result;
+    }
+
+    private static <T extends Record, U extends AppInfo> PdbDatabase<T, U> read(PdbFile pdb,
+                    Converter<T, U> converter) throws IOException {
+        return pdb.readDatabase(converter);
+    }
+
+}
@@ -0,0 +1,106 @@
+/*
+ * Shredzone Commons - pdb
+ *
+ * Copyright (C) 2009 Richard "Shred" Körber
+ *   http://commons.shredzone.org
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Library General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Library General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.shredzone.commons.pdb.benchmark;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.shredzone.commons.pdb.PdbFile;
+import org.shredzone.commons.pdb.benchmark.corpus.Format;
+import org.shredzone.commons.pdb.converter.NotepadConverter;
+import org.shredzone.commons.pdb.image.PalmBitmap;
+import org.shredzone.commons.pdb.image.PalmRle;
+import org.shredzone.commons.pdb.image.Thumbnail;
+import org.shredzone.commons.pdb.record.NotepadRecord;
+import org.shredzone.commons.pdb.source.ByteBufferSource;
+
+/**
+ * Benchmarks the Notepad image path, from the Run Length Encoded bitmap to PNG files and
+ * thumbnails.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class NotepadImageBenchmark {
+
+    private static final int RECORDS = 100;
+    private static final int THUMBNAIL_SIZE = 40;
+
+    private List<NotepadRecord> notes;
+    private int next;
+
+    @Setup
+    public void setup() throws IOException {
+        byte[] data = BenchmarkData.create(Format.NOTEPAD, RECORDS, BenchmarkData.SEED);
+        NotepadConverter converter = new NotepadConverter();
+        converter.setPngConversion(false);
+        try (PdbFile pdb = new PdbFile(new ByteBufferSource(data))) {
+            notes = pdb.readDatabase(converter).getRecords();
+        }
+    }
+
+    @Benchmark
+    public byte[] decodeRle() {
+        return PalmRle.decode(nextNote().getImageData());
+    }
+
+    @Benchmark
+    public byte[] getBitmap() {
+        return nextNote().getBitmap();
+    }
+
+    @Benchmark
+    public byte[] pngImageIO() throws IOException {
+        NotepadRecord note = nextNote();
+        return PalmBitmap.encodePng(note.getImageWidth(), note.getImageHeight(), note.getBitmap());
+    }
+
+    @Benchmark
+    public byte[] pngDirect() {
+        NotepadRecord note = nextNote();
+        return PalmBitmap.toPng(note.getImageWidth(), note.getImageHeight(), note.getBitmap());
+    }
+
+    @Benchmark
+    public Thumbnail thumbnail() {
+        return nextNote().createThumbnail(THUMBNAIL_SIZE, THUMBNAIL_SIZE);
+    }
+
+    private NotepadRecord nextNote() {
+        NotepadRecord note = notes.get(next);
+        next = (next + 1) % notes.size();
+        return note;
+    }
+
+}
@@ -0,0 +1,190 @@
+/*
+ * Shredzone Commons - pdb
+ *
+ * Copyright (C) 2009 Richard "Shred" Körber
+ *   http://commons.shredzone.org
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Library General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Library General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.shredzone.commons.pdb.benchmark;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.shredzone.commons.pdb.PalmDate;
+import org.shredzone.commons.pdb.PdbDataOutput;
+import org.shredzone.commons.pdb.PdbFile;
+import org.shredzone.commons.pdb.benchmark.corpus.CorpusGenerator;
+import org.shredzone.commons.pdb.source.ByteBufferSource;
+
+/**
+ * Benchmarks the {@link PdbFile} primitives that are used by all converters.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PdbFileBenchmark {
+
+    private static final int COUNT = 1000;
+
+    private PdbFile strings;
+    private PdbFile dates;
+    private PdbFile packedDates;
+    private PdbFile dateTimeWords;
+    private String[] latinStrings;
+
+    @Setup
+    public void setup() throws IOException {
+        Random rnd = new Random(BenchmarkData.SEED);
+
+        PdbDataOutput out = new PdbDataOutput();
+        latinStrings = new String[COUNT];
+        for (int ix = 0; ix < COUNT; ix++) {
+            String text = CorpusGenerator.randomText(rnd, 1 + rnd.nextInt(200));
+            out.writeTerminatedString(text);
+            latinStrings[ix] = toLatin1(text);
+        }
+        strings = open(out);
+
+        out = new PdbDataOutput();
+        for (int ix = 0; ix < COUNT; ix++) {
+            out.writeInt((int) (3000000000L + rnd.nextInt(100000000)));
+        }
+        dates = open(out);
+
+        out = new PdbDataOutput();
+        for (int ix = 0; ix < COUNT; ix++) {
+            out.writeRawPackedDate(PalmDate.pack(1998 + rnd.nextInt(10), 1 + rnd.nextInt(12), 1 + rnd.nextInt(28)));
+        }
+        packedDates = open(out);
+
+        out = new PdbDataOutput();
+        for (int ix = 0; ix < COUNT; ix++) {
+            out.writeShort(rnd.nextInt(60));
+            out.writeShort(rnd.nextInt(60));
+            out.writeShort(rnd.nextInt(24));
+            out.writeShort(1 + rnd.nextInt(28));
+            out.writeShort(1 + rnd.nextInt(12));
+            out.writeShort(1998 + rnd.nextInt(10));
+            out.writeShort(0);
+        }
+        dateTimeWords = open(out);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public void readTerminatedString(Blackhole bh) throws IOException {
+        strings.seek(0);
+        for (int ix = 0; ix < COUNT; ix++) {
+            bh.consume(strings.readTerminatedString());
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public void skipTerminatedString() throws IOException {
+        strings.seek(0);
+        for (int ix = 0; ix < COUNT; ix++) {
+            strings.skipTerminatedString();
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public void convertSpecialChars(Blackhole bh) {
+        for (int ix = 0; ix < COUNT; ix++) {
+            bh.consume(PdbFile.convertSpecialChars(latinStrings[ix]));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public void readDate(Blackhole bh) throws IOException {
+        dates.seek(0);
+        for (int ix = 0; ix < COUNT; ix++) {
+            bh.consume(dates.readDate());
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public void readRawDate(Blackhole bh) throws IOException {
+        dates.seek(0);
+        for (int ix = 0; ix < COUNT; ix++) {
+            bh.consume(dates.readRawDate());
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public void readPackedDate(Blackhole bh) throws IOException {
+        packedDates.seek(0);
+        for (int ix = 0; ix < COUNT; ix++) {
+            bh.consume(packedDates.readPackedDate());
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public void readDateTimeWords(Blackhole bh) throws IOException {
+        dateTimeWords.seek(0);
+        for (int ix = 0; ix < COUNT; ix++) {
+            bh.consume(dateTimeWords.readDateTimeWords());
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public void readRawDateTimeWords(Blackhole bh) throws IOException {
+        dateTimeWords.seek(0);
+        for (int ix = 0; ix < COUNT; ix++) {
+            bh.consume(dateTimeWords.readRawDateTimeWords());
+        }
+    }
+
+    private static PdbFile open(PdbDataOutput out) {
+        byte[] data = new byte[out.size()];
+        out.toByteBuffer().get(data);
+        return new PdbFile(new ByteBufferSource(data));
+    }
+
+    /**
+     * Encodes the string like PalmOS, and decodes it as ISO-8859-1, which is the input
+     * of {@link PdbFile#convertSpecialChars(String)}.
+     */
+    private static String toLatin1(String str) throws IOException {
+        PdbDataOutput out = new PdbDataOutput();
+        out.writeFixedString(str, str.length());
+        byte[] data = new byte[out.size()];
+        out.toByteBuffer().get(data);
+        return new String(data, "ISO-8859-1");
+    }
+
+}
@@ -0,0 +1,698 @@
+/*
+ * Shredzone Commons - pdb
+ *
+ * Copyright (C) 2009 Richard "Shred" Körber
+ *   http://commons.shredzone.org
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Library General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Library General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.shredzone.commons.pdb.benchmark.corpus;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.util.Locale;
+import java.util.Random;
+
+import org.shredzone.commons.pdb.PalmDate;
+import org.shredzone.commons.pdb.PdbDataOutput;
+import org.shredzone.commons.pdb.PdbDatabase;
+import org.shredzone.commons.pdb.PdbWriter;
+import org.shredzone.commons.pdb.appinfo.AddressAppInfo;
+import org.shredzone.commons.pdb.appinfo.AppInfo;
+import org.shredzone.commons.pdb.appinfo.CategoryAppInfo;
+import org.shredzone.commons.pdb.appinfo.CategoryAppInfo.Category;
+import org.shredzone.commons.pdb.appinfo.RawAppInfo;
+import org.shredzone.commons.pdb.converter.AddressEncoder;
+import org.shredzone.commons.pdb.converter.Encoder;
+import org.shredzone.commons.pdb.converter.MemoEncoder;
+import org.shredzone.commons.pdb.converter.RawEncoder;
+import org.shredzone.commons.pdb.converter.ScheduleEncoder;
+import org.shredzone.commons.pdb.converter.TodoEncoder;
+import org.shredzone.commons.pdb.image.PalmBitmap;
+import org.shredzone.commons.pdb.image.PalmRle;
+import org.shredzone.commons.pdb.record.AbstractRecord;
+import org.shredzone.commons.pdb.record.AddressRecord;
+import org.shredzone.commons.pdb.record.MemoRecord;
+import org.shredzone.commons.pdb.record.NotepadRecord;
+import org.shredzone.commons.pdb.record.RawRecord;
+import org.shredzone.commons.pdb.record.Record;
+import org.shredzone.commons.pdb.record.ScheduleRecord;
+import org.shredzone.commons.pdb.record.TodoRecord;
+
+/**
+ * Generates synthetic PDB files of the built-in formats. The content is random, but is
+ * always the same for the same seed and settings, so the files can be used for
+ * reproducible scale and load tests.
+ * <p>
+ * A share of the records can be pathological, to stress the parsing paths: huge texts,
+ * texts without terminator, empty texts, the maximum number of schedule exceptions, and
+ * notepad bitmaps that cannot be compressed. Huge texts and exceptions fill the record up
+ * to the PalmOS record size limit, unless oversized records are enabled.
+ * <p>
+ * The generator can also be started from the command line, see {@link #main(String[])}.
+ */
+public class CorpusGenerator {
+
+    /**
+     * Maximum number of records of a PDB file.
+     */
+    public static final int MAX_RECORDS = 0xFFFF;
+
+    /**
+     * Notepad image type for a random mix of bitmap, RLE and PNG images.
+     */
+    public static final int IMAGE_MIXED = -1;
+
+    private static final int MAX_RECORD_SIZE = 65505;
+    private static final int MAX_EXCEPTIONS = 0xFFFF;
+    private static final int HUGE_TEXT_LENGTH = 65000;
+    private static final int SHORT_TEXT_LENGTH = 30;
+    private static final int NOTEPAD_FLAG_TITLE = 0x0002;
+    private static final long FORMAT_SEED_SCRAMBLE = 0x9E3779B97F4A7C15L;
+
+    private static final String[] WORDS = ("Lorem ipsum dolor sit amet consectetur adipiscing "
+                    + "elit sed do eiusmod tempor incididunt ut labore et dolore magna "
+                    + "aliqua café naïve € … ‘quoted’ “double” ™ Grüße").split(" ");
+
+    private static final String[] CATEGORY_NAMES = { "Unfiled", "Business", "Personal", "QuickList" };
+
+    private long seed;
+    private int records = 1000;
+    private int minTextLength = 0;
+    private int maxTextLength = 1000;
+    private Distribution textDistribution = Distribution.SKEWED;
+    private int categories = CATEGORY_NAMES.length;
+    private double secretRatio = 0.1;
+    private double repeatRatio = 0.25;
+    private double exceptionRatio = 0.5;
+    private int maxExceptions = 5;
+    private int imageType = NotepadRecord.IMAGE_RLE;
+    private int imageWidth = 160;
+    private int imageHeight = 160;
+    private double pathologicalRatio;
+    private boolean oversizedRecords;
+
+    /**
+     * The random seed. Default is 0.
+     */
+    public long getSeed()                       { return seed; }
+    public void setSeed(long seed)              { this.seed = seed; }
+
+    /**
+     * Number of records of each database, up to {@link #MAX_RECORDS}. Default is 1000.
+     */
+    public int getRecords()                     { return records; }
+    public void setRecords(int records) {
+        if (records < 0 || records > MAX_RECORDS) {
+            throw new IllegalArgumentException("records must be between 0 and " + MAX_RECORDS);
+        }
+        this.records = records;
+    }
+
+    /**
+     * Range of the text lengths, in characters. It applies to memos, notes and
+     * descriptions. Names and other short fields are limited to 30 characters. Default
+     * is 0 to 1000.
+     */
+    public int getMinTextLength()               { return minTextLength; }
+    public void setMinTextLength(int minTextLength) { this.minTextLength = minTextLength; }
+    public int getMaxTextLength()               { return maxTextLength; }
+    public void setMaxTextLength(int maxTextLength) { this.maxTextLength = maxTextLength; }
+
+    /**
+     * {@link Distribution} of the text lengths. Default is {@link Distribution#SKEWED}.
+     */
+    public Distribution getTextDistribution()   { return textDistribution; }
+    public void setTextDistribution(Distribution textDistribution) { this.textDistribution = textDistribution; }
+
+    /**
+     * Number of categories the records are spread over, 1 to 16. Default is 4.
+     */
+    public int getCategories()                  { return categories; }
+    public void setCategories(int categories) {
+        if (categories < 1 || categories > CategoryAppInfo.NUM_CATEGORIES) {
+            throw new IllegalArgumentException("categories must be between 1 and "
+                            + CategoryAppInfo.NUM_CATEGORIES);
+        }
+        this.categories = categories;
+    }
+
+    /**
+     * Share of secret records, 0.0 to 1.0. Default is 0.1.
+     */
+    public double getSecretRatio()              { return secretRatio; }
+    public void setSecretRatio(double secretRatio) { this.secretRatio = secretRatio; }
+
+    /**
+     * Share of repeating datebook events, 0.0 to 1.0. Default is 0.25.
+     */
+    public double getRepeatRatio()              { return repeatRatio; }
+    public void setRepeatRatio(double repeatRatio) { this.repeatRatio = repeatRatio; }
+
+    /**
+     * Share of repeating datebook events with exceptions, 0.0 to 1.0, and the maximum
+     * number of exceptions of an event. Default is 0.5 and 5.
+     */
+    public double getExceptionRatio()           { return exceptionRatio; }
+    public void setExceptionRatio(double exceptionRatio) { this.exceptionRatio = exceptionRatio; }
+    public int getMaxExceptions()               { return maxExceptions; }
+    public void setMaxExceptions(int maxExceptions) { this.maxExceptions = maxExceptions; }
+
+    /**
+     * Type of the notepad images. One of the IMAGE constants of {@link NotepadRecord},
+     * or {@link #IMAGE_MIXED}. Default is {@link NotepadRecord#IMAGE_RLE}.
+     */
+    public int getImageType()                   { return imageType; }
+    public void setImageType(int imageType)     { this.imageType = imageType; }
+
+    /**
+     * Size of the notepad images. Default is 160x160.
+     */
+    public int getImageWidth()                  { return imageWidth; }
+    public void setImageWidth(int imageWidth)   { this.imageWidth = imageWidth; }
+    public int getImageHeight()                 { return imageHeight; }
+    public void setImageHeight(int imageHeight) { this.imageHeight = imageHeight; }
+
+    /**
+     * Share of pathological records, 0.0 to 1.0. Default is 0.0.
+     */
+    public double getPathologicalRatio()        { return pathologicalRatio; }
+    public void setPathologicalRatio(double pathologicalRatio) { this.pathologicalRatio = pathologicalRatio; }
+
+    /**
+     * If set, pathological records exceed the PalmOS record size limit of 65,505 bytes.
+     * Each huge text has 65,000 characters, and datebook events have 65,535 exceptions.
+     * The generated files are not valid PalmOS databases then. Disabled by default.
+     */
+    public boolean isOversizedRecords()         { return oversizedRecords; }
+    public void setOversizedRecords(boolean oversizedRecords) { this.oversizedRecords = oversizedRecords; }
+
+    /**
+     * Generates a PDB file.
+     *
+     * @param format
+     *            {@link Format} of the database
+     * @return Content of the PDB file
+     */
+    public byte[] generate(Format format) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        generate(format, Channels.newChannel(out));
+        return out.toByteArray();
+    }
+
+    /**
+     * Generates a PDB file and writes it to a {@link File}.
+     *
+     * @param format
+     *            {@link Format} of the database
+     * @param file
+     *            {@link File} to write to
+     */
+    public void generate(Format format, File file) throws IOException {
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            generate(format, out.getChannel());
+        }
+    }
+
+    /**
+     * Generates a PDB file and writes it to a {@link WritableByteChannel}. The channel
+     * is closed afterwards.
+     *
+     * @param format
+     *            {@link Format} of the database
+     * @param channel
+     *            {@link WritableByteChannel} to write to
+     */
+    public void generate(Format format, WritableByteChannel channel) throws IOException {
+        Random rnd = new Random(seed ^ (format.ordinal() + 1) * FORMAT_SEED_SCRAMBLE);
+
+        PdbDatabase<RawRecord, RawAppInfo> db = new PdbDatabase<>();
+        db.setName(format.getDatabaseName());
+        db.setType("DATA");
+        db.setCreator(format.getCreator());
+        db.setVersion(1);
+        long date = PalmDate.toTimestamp(2005, 1, 1, 0, 0, 0);
+        db.setRawCreationTime(date);
+        db.setRawModificationTime(date);
+
+        switch (format) {
+            case MEMO: generateMemo(rnd, db); break;
+            case TODO: generateTodo(rnd, db); break;
+            case ADDRESS: generateAddress(rnd, db); break;
+            case DATEBOOK: generateDatebook(rnd, db); break;
+            case NOTEPAD: generateNotepad(rnd, db); break;
+            default: throw new IllegalArgumentException(format.name());
+        }
+
+        try (PdbWriter writer = new PdbWriter(channel)) {
+            writer.writeDatabase(db, new RawEncoder());
+        }
+    }
+
+    private void generateMemo(Random rnd, PdbDatabase<RawRecord, RawAppInfo> db) throws IOException {
+        MemoEncoder encoder = new MemoEncoder();
+        PdbDatabase<MemoRecord, CategoryAppInfo> typed = new PdbDatabase<>();
+        CategoryAppInfo appInfo = createCategories(new CategoryAppInfo());
+        db.setAppInfo(encodeAppInfo(encoder, appInfo, typed));
+
+        for (int ix = 0; ix < records; ix++) {
+            MemoRecord rec = new MemoRecord(0);
+            int pathology = pathology(rnd, 3);
+            switch (pathology) {
+                case 0:
+                    rec.setMemo("");
+                    rec.setMemo(randomText(rnd, hugeTextLength(remaining(encoder, rec, typed))));
+                    break;
+                case 1:
+                    rec.setMemo("");
+                    break;
+                default:
+                    rec.setMemo(randomText(rnd, textLength(rnd)));
+            }
+            db.getRecords().add(encode(encoder, rec, typed, attribute(rnd), pathology == 2));
+        }
+    }
+
+    private void generateTodo(Random rnd, PdbDatabase<RawRecord, RawAppInfo> db) throws IOException {
+        TodoEncoder encoder = new TodoEncoder();
+        PdbDatabase<TodoRecord, CategoryAppInfo> typed = new PdbDatabase<>();
+        CategoryAppInfo appInfo = createCategories(new CategoryAppInfo());
+        db.setAppInfo(encodeAppInfo(encoder, appInfo, typed));
+
+        for (int ix = 0; ix < records; ix++) {
+            TodoRecord rec = new TodoRecord(0);
+            rec.setPackedDate(rnd.nextInt(4) == 0 ? PalmDate.NO_DATE : randomPackedDate(rnd));
+            rec.setPriority(1 + rnd.nextInt(5));
+            rec.setCompleted(rnd.nextBoolean());
+
+            int pathology = pathology(rnd, 3);
+            switch (pathology) {
+                case 0:
+                    rec.setDescription("");
+                    rec.setNote("");
+                    int remaining = remaining(encoder, rec, typed);
+                    rec.setDescription(randomText(rnd, hugeTextLength(remaining / 2)));
+                    rec.setNote(randomText(rnd, hugeTextLength(remaining - remaining / 2)));
+                    break;
+                case 1:
+                    rec.setDescription("");
+                    break;
+                default:
+                    rec.setDescription(randomText(rnd, 1 + rnd.nextInt(SHORT_TEXT_LENGTH)));
+                    if (rnd.nextBoolean() || pathology == 2) {
+                        rec.setNote(randomText(rnd, Math.max(textLength(rnd), 1)));
+                    }
+            }
+            db.getRecords().add(encode(encoder, rec, typed, attribute(rnd), pathology == 2));
+        }
+    }
+
+    private void generateAddress(Random rnd, PdbDatabase<RawRecord, RawAppInfo> db) throws IOException {
+        AddressEncoder encoder = new AddressEncoder();
+        PdbDatabase<AddressRecord, AddressAppInfo> typed = new PdbDatabase<>();
+        AddressAppInfo appInfo = createCategories(new AddressAppInfo());
+        for (AddressRecord.Label label : AddressRecord.Label.values()) {
+            appInfo.setLabel(label, label.name().toLowerCase(Locale.ENGLISH));
+        }
+        appInfo.setCountry("DE");
+        db.setAppInfo(encodeAppInfo(encoder, appInfo, typed));
+
+        AddressRecord.Field[] fields = AddressRecord.Field.values();
+        AddressRecord.Label[] labels = AddressRecord.Label.values();
+        for (int ix = 0; ix < records; ix++) {
+            AddressRecord rec = new AddressRecord(0);
+            int pathology = pathology(rnd, 3);
+
+            int fullLength = Math.max(maxTextLength, 1);
+            if (pathology == 0 && !oversizedRecords) {
+                for (int fx = 0; fx < fields.length; fx++) {
+                    rec.setField(fields[fx], "");
+                    rec.setLabel(fields[fx], labels[fx]);
+                }
+                fullLength = Math.min(fullLength, remaining(encoder, rec, typed) / fields.length);
+            }
+
+            for (int fx = 0; fx < fields.length; fx++) {
+                String value = null;
+                if (pathology == 0) {
+                    value = randomText(rnd, fullLength);
+                } else if (pathology == 1) {
+                    value = null;
+                } else if (fields[fx] == AddressRecord.Field.NOTE) {
+                    value = rnd.nextInt(4) == 0 || pathology == 2 ? randomText(rnd, Math.max(textLength(rnd), 1)) : null;
+                } else if (fx < 2 || rnd.nextInt(3) == 0) {
+                    value = randomText(rnd, 1 + rnd.nextInt(SHORT_TEXT_LENGTH));
+                }
+                if (value != null) {
+                    rec.setField(fields[fx], value);
+                    rec.setLabel(fields[fx], labels[fx]);
+                }
+            }
+            rec.setDisplayPhone(rnd.nextInt(5));
+            db.getRecords().add(encode(encoder, rec, typed, attribute(rnd), pathology == 2));
+        }
+    }
+
+    private void generateDatebook(Random rnd, PdbDatabase<RawRecord, RawAppInfo> db) throws IOException {
+        ScheduleEncoder encoder = new ScheduleEncoder();
+        PdbDatabase<ScheduleRecord, CategoryAppInfo> typed = new PdbDatabase<>();
+        CategoryAppInfo appInfo = createCategories(new CategoryAppInfo());
+        db.setAppInfo(encodeAppInfo(encoder, appInfo, typed));
+
+        ScheduleRecord.Repeat.Mode[] modes = ScheduleRecord.Repeat.Mode.values();
+        ScheduleRecord.Alarm.Unit[] units = ScheduleRecord.Alarm.Unit.values();
+        for (int ix = 0; ix < records; ix++) {
+            ScheduleRecord rec = new ScheduleRecord(0);
+            int pathology = pathology(rnd, 3);
+
+            rec.setSchedule(ScheduleRecord.ShortDate.fromPackedDate(randomPackedDate(rnd)));
+            if (rnd.nextInt(4) != 0) {
+                int hour = rnd.nextInt(23);
+                rec.setStartTime(new ScheduleRecord.ShortTime(hour, rnd.nextInt(4) * 15));
+                rec.setEndTime(new ScheduleRecord.ShortTime(hour + 1, rnd.nextInt(4) * 15));
+            }
+
+            if (rnd.nextInt(3) == 0) {
+                rec.setAlarm(new ScheduleRecord.Alarm(1 + rnd.nextInt(30), units[rnd.nextInt(units.length)]));
+            }
+
+            if (rnd.nextDouble() < repeatRatio || pathology == 0) {
+                ScheduleRecord.Repeat.Mode mode = modes[rnd.nextInt(modes.length)];
+                boolean[] weekdays = new boolean[7];
+                weekdays[rnd.nextInt(7)] = true;
+                ScheduleRecord.ShortDate until = rnd.nextBoolean() ? null
+                                : ScheduleRecord.ShortDate.fromPackedDate(randomPackedDate(rnd));
+                rec.setRepeat(new ScheduleRecord.Repeat(mode, 1 + rnd.nextInt(3), until,
+                                weekdays, rnd.nextInt(5), rnd.nextInt(7)));
+
+                if (pathology != 0 && maxExceptions > 0 && rnd.nextDouble() < exceptionRatio) {
+                    addExceptions(rnd, rec, 1 + rnd.nextInt(maxExceptions));
+                }
+            }
+
+            if (pathology == 1) {
+                rec.setDescription("");
+                rec.setNote("");
+                rec.setLocation("");
+                int remaining = remaining(encoder, rec, typed);
+                rec.setDescription(randomText(rnd, hugeTextLength(remaining / 3)));
+                rec.setNote(randomText(rnd, hugeTextLength(remaining / 3)));
+                rec.setLocation(randomText(rnd, hugeTextLength(remaining - 2 * (remaining / 3))));
+            } else {
+                rec.setDescription(randomText(rnd, 1 + rnd.nextInt(SHORT_TEXT_LENGTH)));
+                if (rnd.nextInt(3) == 0) {
+                    rec.setNote(randomText(rnd, textLength(rnd)));
+                }
+                if (rnd.nextInt(3) == 0 || pathology == 2) {
+                    rec.setLocation(randomText(rnd, 1 + rnd.nextInt(SHORT_TEXT_LENGTH)));
+                }
+            }
+
+            if (pathology == 0) {
+                // Exception count and one packed date per exception
+                int exceptions = (remaining(encoder, rec, typed) - 2) / 2;
+                addExceptions(rnd, rec, oversizedRecords ? MAX_EXCEPTIONS : Math.min(exceptions, MAX_EXCEPTIONS));
+            }
+            db.getRecords().add(encode(encoder, rec, typed, attribute(rnd), pathology == 2));
+        }
+    }
+
+    private void generateNotepad(Random rnd, PdbDatabase<RawRecord, RawAppInfo> db) throws IOException {
+        PdbDataOutput appInfo = new PdbDataOutput();
+        appInfo.writeCategories(createCategories(new CategoryAppInfo()));
+        db.setAppInfo(new RawAppInfo(toByteArray(appInfo)));
+
+        int stride = PalmBitmap.getBytesPerRow(imageWidth);
+        for (int ix = 0; ix < records; ix++) {
+            int pathology = pathology(rnd, 2);
+
+            PdbDataOutput out = new PdbDataOutput();
+            writeDateTimeWords(out, rnd);
+            writeDateTimeWords(out, rnd);
+            out.writeShort(NOTEPAD_FLAG_TITLE);
+
+            byte[] bitmap = pathology == 0 ? noiseBitmap(rnd) : strokeBitmap(rnd);
+            int type = imageType == IMAGE_MIXED ? rnd.nextInt(3) : imageType;
+            byte[] image;
+            switch (type) {
+                case NotepadRecord.IMAGE_BITMAP: image = bitmap; break;
+                case NotepadRecord.IMAGE_RLE: image = PalmRle.encode(bitmap, 0, stride * imageHeight); break;
+                case NotepadRecord.IMAGE_PNG: image = PalmBitmap.toPng(imageWidth, imageHeight, bitmap); break;
+                default: throw new IllegalStateException("unknown image type " + type);
+            }
+
+            int titleLength;
+            if (pathology == 1) {
+                // Title terminator, padding byte and image header
+                titleLength = hugeTextLength(MAX_RECORD_SIZE - out.size() - 2 - 24 - image.length);
+            } else {
+                titleLength = 1 + rnd.nextInt(SHORT_TEXT_LENGTH);
+            }
+
+            int titleStart = out.size();
+            out.writeTerminatedString(randomText(rnd, titleLength));
+            if ((out.size() - titleStart) % 2 == 1) {
+                out.writeByte(0);
+            }
+
+            out.writeInt(image.length + 8);
+            out.writeInt(imageWidth);
+            out.writeInt(imageHeight);
+            out.writeInt(1);
+            out.writeInt(type);
+            out.writeInt(image.length);
+            out.write(image);
+
+            db.getRecords().add(new RawRecord(toByteArray(out), attribute(rnd)));
+        }
+    }
+
+    /**
+     * Creates random text of the given length.
+     *
+     * @param rnd
+     *            {@link Random} to be used
+     * @param length
+     *            Length of the text, in characters
+     * @return Text
+     */
+    public static String randomText(Random rnd, int length) {
+        StringBuilder sb = new StringBuilder(length + 16);
+        while (sb.length() < length) {
+            if (sb.length() > 0) {
+                sb.append(rnd.nextInt(12) == 0 ? '\n' : ' ');
+            }
+            sb.append(WORDS[rnd.nextInt(WORDS.length)]);
+        }
+        sb.setLength(length);
+        return sb.toString();
+    }
+
+    /**
+     * Returns a random text length, following the distribution.
+     */
+    private int textLength(Random rnd) {
+        int range = Math.max(maxTextLength - minTextLength, 0);
+        return minTextLength + (int) (textDistribution.apply(rnd.nextDouble()) * (range + 1));
+    }
+
+    /**
+     * Decides if the record is pathological.
+     *
+     * @param rnd
+     *            {@link Random} to be used
+     * @param kinds
+     *            Number of kinds of pathological records of the format
+     * @return Kind of pathology, or -1 if the record is normal
+     */
+    private int pathology(Random rnd, int kinds) {
+        if (rnd.nextDouble() < pathologicalRatio) {
+            return rnd.nextInt(kinds);
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the length of a huge text.
+     *
+     * @param budget
+     *            Number of bytes that are left for the text in the record
+     * @return Text length, in characters
+     */
+    private int hugeTextLength(int budget) {
+        if (oversizedRecords) {
+            return HUGE_TEXT_LENGTH;
+        }
+        return Math.max(Math.min(budget, HUGE_TEXT_LENGTH), 0);
+    }
+
+    /**
+     * Returns the number of bytes that can be added to a record before it exceeds the
+     * PalmOS record size limit. All texts are encoded as one byte per character.
+     */
+    private static <T extends Record, U extends AppInfo> int remaining(Encoder<T, U> encoder,
+                    T record, PdbDatabase<T, U> database) throws IOException {
+        PdbDataOutput out = new PdbDataOutput();
+        encoder.encode(out, record, database);
+        return Math.max(MAX_RECORD_SIZE - out.size(), 0);
+    }
+
+    private void addExceptions(Random rnd, ScheduleRecord rec, int exceptions) {
+        for (int ex = 0; ex < exceptions; ex++) {
+            rec.getExceptions().add(ScheduleRecord.ShortDate.fromPackedDate(randomPackedDate(rnd)));
+        }
+    }
+
+    /**
+     * Creates a bitmap with a few random strokes, like a handwritten note.
+     */
+    private byte[] strokeBitmap(Random rnd) {
+        int stride = PalmBitmap.getBytesPerRow(imageWidth);
+        byte[] bitmap = new byte[stride * imageHeight];
+        for (int stroke = 5 + rnd.nextInt(20); stroke > 0; stroke--) {
+            int x = rnd.nextInt(imageWidth);
+            int y = rnd.nextInt(imageHeight);
+            for (int step = 20 + rnd.nextInt(80); step > 0; step--) {
+                x = Math.max(0, Math.min(imageWidth - 1, x + rnd.nextInt(3) - 1));
+                y = Math.max(0, Math.min(imageHeight - 1, y + rnd.nextInt(3) - 1));
+                bitmap[y * stride + x / 8] |= (byte) (0x80 >> (x % 8));
+            }
+        }
+        return bitmap;
+    }
+
+    /**
+     * Creates a bitmap of random noise, which is the worst case for RLE compression.
+     */
+    private byte[] noiseBitmap(Random rnd) {
+        byte[] bitmap = new byte[PalmBitmap.getBytesPerRow(imageWidth) * imageHeight];
+        rnd.nextBytes(bitmap);
+        return bitmap;
+    }
+
+    private void writeDateTimeWords(PdbDataOutput out, Random rnd) throws IOException {
+        int packed = randomPackedDate(rnd);
+        out.writeShort(rnd.nextInt(60));
+        out.writeShort(rnd.nextInt(60));
+        out.writeShort(rnd.nextInt(24));
+        out.writeShort(PalmDate.getDay(packed));
+        out.writeShort(PalmDate.getMonth(packed));
+        out.writeShort(PalmDate.getYear(packed));
+        out.writeShort(PalmDate.getDayOfWeek(PalmDate.toDayNumber(packed)));
+    }
+
+    private int randomPackedDate(Random rnd) {
+        return PalmDate.pack(1998 + rnd.nextInt(10), 1 + rnd.nextInt(12), 1 + rnd.nextInt(28));
+    }
+
+    private int attribute(Random rnd) {
+        int attribute = rnd.nextInt(categories);
+        if (rnd.nextDouble() < secretRatio) {
+            attribute |= AbstractRecord.ATTR_SECRET;
+        }
+        return attribute;
+    }
+
+    private <T extends CategoryAppInfo> T createCategories(T appInfo) {
+        for (int ix = 0; ix < categories; ix++) {
+            String name = ix < CATEGORY_NAMES.length ? CATEGORY_NAMES[ix] : "Category " + ix;
+            appInfo.setCategory(ix, new Category(name, ix, ix >= CATEGORY_NAMES.length));
+        }
+        return appInfo;
+    }
+
+    /**
+     * Encodes a record to a {@link RawRecord}.
+     *
+     * @param encoder
+     *            {@link Encoder} to be used
+     * @param record
+     *            Record to be encoded
+     * @param database
+     *            Database the encoder expects
+     * @param attribute
+     *            Record attribute
+     * @param unterminated
+     *            {@code true} to remove the terminator of the last string
+     * @return {@link RawRecord} with the encoded record
+     */
+    private static <T extends Record, U extends AppInfo> RawRecord encode(Encoder<T, U> encoder,
+                    T record, PdbDatabase<T, U> database, int attribute, boolean unterminated)
+                    throws IOException {
+        PdbDataOutput out = new PdbDataOutput();
+        encoder.encode(out, record, database);
+        byte[] data = toByteArray(out);
+        if (unterminated && data.length > 0 && data[data.length - 1] == 0) {
+            byte[] shortened = new byte[data.length - 1];
+            System.arraycopy(data, 0, shortened, 0, shortened.length);
+            data = shortened;
+        }
+        return new RawRecord(data, attribute);
+    }
+
+    private static <T extends Record, U extends AppInfo> RawAppInfo encodeAppInfo(Encoder<T, U> encoder,
+                    U appInfo, PdbDatabase<T, U> database) throws IOException {
+        PdbDataOutput out = new PdbDataOutput();
+        encoder.encodeAppInfo(out, appInfo, database);
+        return new RawAppInfo(toByteArray(out));
+    }
+
+    private static byte[] toByteArray(PdbDataOutput out) {
+        byte[] data = new byte[out.size()];
+        out.toByteBuffer().get(data);
+        return data;
+    }
+
+    /**
+     * Generates a PDB file of each format.
+     * <p>
+     * Usage: {@code CorpusGenerator <directory> [seed] [records] [pathological ratio]}
+     *
+     * @param args
+     *            Command line arguments
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: CorpusGenerator <directory> [seed] [records] [pathological ratio]");
+            System.exit(1);
+        }
+
+        File dir = new File(args[0]);
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("cannot create directory " + dir);
+        }
+
+        CorpusGenerator generator = new CorpusGenerator();
+        if (args.length > 1) {
+            generator.setSeed(Long.parseLong(args[1]));
+        }
+        if (args.length > 2) {
+            generator.setRecords(Integer.parseInt(args[2]));
+        }
+        if (args.length > 3) {
+            generator.setPathologicalRatio(Double.parseDouble(args[3]));
+        }
+
+        for (Format format : Format.values()) {
+            File file = new File(dir, format.name().toLowerCase(Locale.ENGLISH) + ".pdb");
+            generator.generate(format, file);
+            System.out.println(file + ": " + file.length() + " bytes");
+        }
+    }
+
+}
@@ -0,0 +1,52 @@
+/*
+ * Shredzone Commons - pdb
+ *
+ * Copyright (C) 2009 Richard "Shred" Körber
+ *   http://commons.shredzone.org
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Library General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Library General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.shredzone.commons.pdb.benchmark.corpus;
+
+/**
+ * Distribution of the text lengths.
+ */
+public enum Distribution {
+
+    /**
+     * All lengths between minimum and maximum are equally likely.
+     */
+    UNIFORM,
+
+    /**
+     * Short texts are common, long texts are rare. This is typical for real databases.
+     */
+    SKEWED;
+
+    /**
+     * Maps a uniform random number to this distribution.
+     *
+     * @param uniform
+     *            Random number between 0.0 (inclusive) and 1.0 (exclusive)
+     * @return Distributed number between 0.0 (inclusive) and 1.0 (exclusive)
+     */
+    public double apply(double uniform) {
+        switch (this) {
+            case UNIFORM: return uniform;
+            case SKEWED: return uniform * uniform * uniform;
+            default: throw new IllegalStateException(name());
+        }
+    }
+
+}
@@ -0,0 +1,71 @@
+/*
+ * Shredzone Commons - pdb
+ *
+ * Copyright (C) 2009 Richard "Shred" Körber
+ *   http://commons.shredzone.org
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Library General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Library General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.shredzone.commons.pdb.benchmark.corpus;
+
+import org.shredzone.commons.pdb.converter.AddressConverter;
+import org.shredzone.commons.pdb.converter.Converter;
+import org.shredzone.commons.pdb.converter.MemoConverter;
+import org.shredzone.commons.pdb.converter.NotepadConverter;
+import org.shredzone.commons.pdb.converter.ScheduleConverter;
+import org.shredzone.commons.pdb.converter.TodoConverter;
+
+/**
+ * The built-in database formats.
+ */
+public enum Format {
+    MEMO("MemoDB", "memo"),
+    TODO("ToDoDB", "todo"),
+    ADDRESS("AddressDB", "addr"),
+    DATEBOOK("DatebookDB", "PDat"),
+    NOTEPAD("npadDB", "npad");
+
+    private final String databaseName;
+    private final String creator;
+
+    Format(String databaseName, String creator) {
+        this.databaseName = databaseName;
+        this.creator = creator;
+    }
+
+    /**
+     * Gets the name of the database.
+     */
+    public String getDatabaseName()             { return databaseName; }
+
+    /**
+     * Gets the creator of the database.
+     */
+    public String getCreator()                  { return creator; }
+
+    /**
+     * Creates a {@link Converter} for this format.
+     */
+    public Converter<?, ?> createConverter() {
+        switch (this) {
+            case MEMO: return new MemoConverter();
+            case TODO: return new TodoConverter();
+            case ADDRESS: return new AddressConverter();
+            case DATEBOOK: return new ScheduleConverter();
+            case NOTEPAD: return new NotepadConverter();
+            default: throw new IllegalStateException(name());
+        }
+    }
+
+}
@@ -0,0 +1,145 @@
+/*
+ * Shredzone Commons - pdb
+ *
+ * Copyright (C) 2009 Richard "Shred" Körber
+ *   http://commons.shredzone.org
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Library General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Library General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.shredzone.commons.pdb.jfr;
+
+import java.util.concurrent.TimeUnit;
+
+import org.shredzone.commons.pdb.PdbDatabase;
+import org.shredzone.commons.pdb.PdbReadAdapter;
+import org.shredzone.commons.pdb.converter.Converter;
+import org.shredzone.commons.pdb.image.Thumbnail;
+import org.shredzone.commons.pdb.record.NotepadRecord;
+import org.shredzone.commons.pdb.record.Record;
+
+/**
+ * A {@link org.shredzone.commons.pdb.PdbReadListener} that emits Java Flight Recorder
+ * events:
+ * <ul>
+ * <li>{@code org.shredzone.commons.pdb.ReadDatabase} for each database that is read,
+ * with its name, type, creator and number of records</li>
+ * <li>{@code org.shredzone.commons.pdb.SlowConversion} for each record conversion that
+ * took longer than the threshold</li>
+ * <li>{@code org.shredzone.commons.pdb.NotepadRecord} for each notepad record with an
+ * image or thumbnail</li>
+ * </ul>
+ * The events are only created if they are enabled in the recording. The listener is
+ * thread safe, so a single instance can be shared by all
+ * {@link org.shredzone.commons.pdb.PdbFile}.
+ */
+public class JfrReadListener extends PdbReadAdapter {
+
+    /**
+     * Default threshold of slow conversions, 1 ms.
+     */
+    public static final long DEFAULT_SLOW_CONVERSION_THRESHOLD = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private static final String[] IMAGE_ENCODINGS = { "bitmap", "rle", "png" };
+
+    private final ThreadLocal<ReadDatabaseEvent> currentRead = new ThreadLocal<>();
+    private volatile long slowConversionThreshold = DEFAULT_SLOW_CONVERSION_THRESHOLD;
+
+    /**
+     * Threshold of slow record conversions, in nanoseconds. Conversions that take at
+     * least this long are reported by a {@code SlowConversion} event. Default is
+     * {@link #DEFAULT_SLOW_CONVERSION_THRESHOLD}.
+     */
+    public long getSlowConversionThreshold()    { return slowConversionThreshold; }
+    public void setSlowConversionThreshold(long slowConversionThreshold) { this.slowConversionThreshold = slowConversionThreshold; }
+
+    @Override
+    public void readStarted() {
+        ReadDatabaseEvent event = new ReadDatabaseEvent();
+        if (event.isEnabled()) {
+            event.begin();
+            currentRead.set(event);
+        }
+    }
+
+    @Override
+    public void readCompleted(PdbDatabase<?, ?> database, long nanos) {
+        ReadDatabaseEvent event = currentRead.get();
+        if (event == null) {
+            return;
+        }
+        currentRead.remove();
+
+        event.end();
+        if (event.shouldCommit()) {
+            if (database != null) {
+                event.name = database.getName();
+                event.type = database.getType();
+                event.creator = database.getCreator();
+                event.records = database.getRecords().size();
+            } else {
+                event.failed = true;
+            }
+            event.commit();
+        }
+    }
+
+    @Override
+    public void recordRead(Converter<?, ?> converter, int index, int size, Record record,
+                Outcome outcome, long nanos) {
+        if (outcome == Outcome.SKIPPED) {
+            return;
+        }
+
+        if (nanos >= slowConversionThreshold) {
+            SlowConversionEvent event = new SlowConversionEvent();
+            if (event.isEnabled()) {
+                event.converter = converter.getClass();
+                event.recordIndex = index;
+                event.recordSize = size;
+                event.outcome = outcome.name();
+                event.conversionTime = nanos;
+                event.commit();
+            }
+        }
+
+        if (record instanceof NotepadRecord) {
+            NotepadRecord notepad = (NotepadRecord) record;
+            Thumbnail thumbnail = notepad.getThumbnail();
+            byte[] image = notepad.getImageData();
+            if (image == null && thumbnail == null) {
+                return;
+            }
+
+            NotepadRecordEvent event = new NotepadRecordEvent();
+            if (event.isEnabled()) {
+                event.recordIndex = index;
+                event.width = notepad.getImageWidth();
+                event.height = notepad.getImageHeight();
+                if (image != null) {
+                    int type = notepad.getImageType();
+                    event.encoding = type >= 0 && type < IMAGE_ENCODINGS.length
+                                    ? IMAGE_ENCODINGS[type] : String.valueOf(type);
+                    event.imageSize = image.length;
+                }
+                if (thumbnail != null) {
+                    event.thumbnailWidth = thumbnail.getWidth();
+                    event.thumbnailHeight = thumbnail.getHeight();
+                }
+                event.recordConversionTime = nanos;
+                event.commit();
+            }
+        }
+    }
+
+}
@@ -0,0 +1,68 @@
+/*
+ * Shredzone Commons - pdb
+ *
+ * Copyright (C) 2009 Richard "Shred" Körber
+ *   http://commons.shredzone.org
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Library General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Library General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.shredzone.commons.pdb.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * JFR event of converting a notepad record with an image or a thumbnail. The image
+ * conversion itself is not measured separately.
+ */
+@Name("org.shredzone.commons.pdb.NotepadRecord")
+@Label("PDB Notepad Record")
+@Category("Commons PDB")
+@Description("A notepad record with an image or thumbnail was converted")
+class NotepadRecordEvent extends Event {
+
+    @Label("Record Index")
+    int recordIndex;
+
+    @Label("Width")
+    int width;
+
+    @Label("Height")
+    int height;
+
+    @Label("Encoding")
+    @Description("Encoding of the image in the converted record: bitmap, rle or png")
+    String encoding;
+
+    @Label("Image Size")
+    @Description("Size of the image data, in bytes")
+    int imageSize;
+
+    @Label("Thumbnail Width")
+    int thumbnailWidth;
+
+    @Label("Thumbnail Height")
+    int thumbnailHeight;
+
+    @Label("Record Conversion Time")
+    @Description("Time spent converting the entire record. It only contains the PNG "
+                    + "encoding if the converter encoded the image while reading")
+    @Timespan(Timespan.NANOSECONDS)
+    long recordConversionTime;
+
+}
@@ -0,0 +1,55 @@
+/*
+ * Shredzone Commons - pdb
+ *
+ * Copyright (C) 2009 Richard "Shred" Körber
+ *   http://commons.shredzone.org
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Library General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Library General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.shredzone.commons.pdb.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JFR event of reading a database with {@code PdbFile.readDatabase()}. The event's
+ * duration is the time spent reading the database.
+ */
+@Name("org.shredzone.commons.pdb.ReadDatabase")
+@Label("Read PDB Database")
+@Category("Commons PDB")
+@Description("A PDB database was read")
+class ReadDatabaseEvent extends Event {
+
+    @Label("Name")
+    String name;
+
+    @Label("Type")
+    String type;
+
+    @Label("Creator")
+    String creator;
+
+    @Label("Records")
+    @Description("Number of records that were converted")
+    int records;
+
+    @Label("Failed")
+    @Description("Reading the database failed")
+    boolean failed;
+
+}
@@ -0,0 +1,56 @@
+/*
+ * Shredzone Commons - pdb
+ *
+ * Copyright (C) 2009 Richard "Shred" Körber
+ *   http://commons.shredzone.org
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Library General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Library General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.shredzone.commons.pdb.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * JFR event of a record conversion that took longer than the threshold of the
+ * {@link JfrReadListener}.
+ */
+@Name("org.shredzone.commons.pdb.SlowConversion")
+@Label("Slow PDB Record Conversion")
+@Category("Commons PDB")
+@Description("A converter took longer than the threshold to convert a record")
+class SlowConversionEvent extends Event {
+
+    @Label("Converter")
+    Class<?> converter;
+
+    @Label("Record Index")
+    int recordIndex;
+
+    @Label("Record Size")
+    @Description("Size of the record, in bytes")
+    int recordSize;
+
+    @Label("Outcome")
+    String outcome;
+
+    @Label("Conversion Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long conversionTime;
+
+}
@@ -45,6 +45,7 @@ public class CalendarFactory {
     };
 
     private TimeZone timeZone = TimeZone.getDefault();
+    private long palmEpochMillis = Long.MIN_VALUE;
 
     /**
      * Gets the singleton instance of the factory. The returned singleton is thread local
@@ -57,10 +58,47 @@ public class CalendarFactory {
         return INSTANCES.get();
     }
 
+    /**
+     * Gets a {@link CalendarFactory} for the given {@link TimeZone}. If the time zone is
+     * {@code null} or equal to the time zone of the invoking thread's singleton, the
+     * singleton is returned. Otherwise a new factory is created, which is not bound to
+     * the invoking thread.
+     *
+     * @param tz
+     *            {@link TimeZone} to be used, or {@code null} for the time zone of the
+     *            invoking thread's singleton
+     * @return {@link CalendarFactory} for that time zone
+     */
+    public static CalendarFactory forTimeZone(TimeZone tz) {
+        CalendarFactory instance = getInstance();
+        if (tz == null || tz.equals(instance.timeZone)) {
+            return instance;
+        }
+
+        CalendarFactory result = new CalendarFactory();
+        result.timeZone = tz;
+        return result;
+    }
+
+    /**
+     * Creates a new {@link CalendarFactory} with the same time zone, which is not bound
+     * to the invoking thread. It can be handed over to another thread.
+     *
+     * @return {@link CalendarFactory} with the time zone of this factory
+     */
+    CalendarFactory snapshot() {
+        CalendarFactory result = new CalendarFactory();
+        result.timeZone = timeZone;
+        return result;
+    }
+
     /**
      * The {@link TimeZone} to be used. Defaults to the system's time zone.
      */
-    public void setTimeZone(TimeZone timeZone)      { this.timeZone = timeZone; }
+    public void setTimeZone(TimeZone timeZone) {
+        this.timeZone = timeZone;
+        this.palmEpochMillis = Long.MIN_VALUE;
+    }
     public TimeZone getTimeZone()                   { return timeZone; }
 
     /**
@@ -95,4 +133,89 @@ public class CalendarFactory {
         return cal;
     }
 
+    /**
+     * Creates a {@link Calendar} from a PalmOS timestamp, as it is used in the database
+     * header. The timestamp is added to the PalmOS epoch.
+     *
+     * @param timestamp
+     *            Seconds since the PalmOS epoch
+     * @return {@link Calendar}, or {@code null} if the timestamp is 0 (not set)
+     */
+    public Calendar createFromTimestamp(long timestamp) {
+        if (timestamp <= 0) {
+            return null;
+        }
+
+        Calendar cal = create();
+        cal.setTimeInMillis(getPalmEpochMillis() + timestamp * 1000L);
+        return cal;
+    }
+
+    /**
+     * Converts a {@link Calendar} to a PalmOS timestamp. This is the inverse of
+     * {@link #createFromTimestamp(long)}.
+     *
+     * @param cal
+     *            {@link Calendar} to convert, may be {@code null}
+     * @return Seconds since the PalmOS epoch, or 0 if {@code cal} was {@code null}
+     */
+    public long toTimestamp(Calendar cal) {
+        if (cal == null) {
+            return 0L;
+        }
+        return (cal.getTimeInMillis() - getPalmEpochMillis()) / 1000L;
+    }
+
+    /**
+     * Creates a {@link Calendar} from a PalmOS timestamp that represents a local date
+     * and time. In contrast to {@link #createFromTimestamp(long)}, the date and time
+     * fields are set, so daylight saving time is taken into account.
+     *
+     * @param timestamp
+     *            Seconds since the PalmOS epoch, in local time
+     * @return {@link Calendar}
+     * @see PalmDate#toTimestamp(int, int, int, int, int, int)
+     */
+    public Calendar createFromLocalTimestamp(long timestamp) {
+        int ymd = PalmDate.toYmd(PalmDate.getDayNumber(timestamp));
+        int seconds = PalmDate.getSecondOfDay(timestamp);
+
+        Calendar cal = create();
+        cal.clear();
+        cal.set(ymd / 10000, (ymd / 100) % 100 - 1, ymd % 100,
+                seconds / 3600, (seconds / 60) % 60, seconds % 60);
+        return cal;
+    }
+
+    /**
+     * Creates a {@link Calendar} from a packed PalmOS date. The time part is midnight
+     * local time.
+     *
+     * @param packed
+     *            Packed date
+     * @return {@link Calendar}, or {@code null} if the packed date is
+     *         {@link PalmDate#NO_DATE}
+     */
+    public Calendar createFromPackedDate(int packed) {
+        if (packed == PalmDate.NO_DATE) {
+            return null;
+        }
+
+        Calendar cal = create();
+        cal.clear();
+        cal.set(PalmDate.getYear(packed), PalmDate.getMonth(packed) - 1, PalmDate.getDay(packed));
+        return cal;
+    }
+
+    /**
+     * Returns the PalmOS epoch in the current time zone, in milliseconds since the Java
+     * epoch. The value is only computed once per time zone.
+     */
+    private long getPalmEpochMillis() {
+        if (palmEpochMillis == Long.MIN_VALUE) {
+            palmEpochMillis = createPalmEpoch().getTimeInMillis();
+        }
+        return palmEpochMillis;
+    }
+
 }
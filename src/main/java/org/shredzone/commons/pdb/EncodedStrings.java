@@ -0,0 +1,105 @@
+/*
+ * Shredzone Commons - pdb
+ *
+ * Copyright (C) 2009 Richard "Shred" Körber
+ *   http://commons.shredzone.org
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Library General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Library General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.shredzone.commons.pdb;
+
+/**
+ * A number of null terminated PalmOS strings that are kept in their encoded form. A
+ * string is only decoded when it is requested.
+ * <p>
+ * This is used by records that decode their texts lazily. The encoded data is usually
+ * the remaining part of a record.
+ */
+public final class EncodedStrings {
+
+    private final byte[] data;
+    private final int[] offsets;
+
+    /**
+     * Creates a new {@link EncodedStrings}.
+     *
+     * @param data
+     *            Encoded data
+     * @param offsets
+     *            Start offset of each string in the data, or -1 if the string is not
+     *            set. A string ends at the null terminator, or at the end of the data.
+     */
+    public EncodedStrings(byte[] data, int[] offsets) {
+        this.data = data;
+        this.offsets = offsets;
+    }
+
+    /**
+     * Finds the end of a null terminated string.
+     *
+     * @param data
+     *            Encoded data
+     * @param offset
+     *            Start offset of the string
+     * @return Offset after the null terminator, which is the start of the next string.
+     *         If the string is not terminated, the length of the data is returned.
+     */
+    public static int skip(byte[] data, int offset) {
+        for (int ix = offset; ix < data.length; ix++) {
+            if (data[ix] == 0) {
+                return ix + 1;
+            }
+        }
+        return data.length;
+    }
+
+    /**
+     * Returns the number of strings.
+     */
+    public int size() {
+        return offsets.length;
+    }
+
+    /**
+     * Checks if a string is set.
+     *
+     * @param index
+     *            Index of the string
+     * @return {@code true} if the string is set
+     */
+    public boolean isSet(int index) {
+        return offsets[index] >= 0;
+    }
+
+    /**
+     * Decodes a string.
+     *
+     * @param index
+     *            Index of the string
+     * @return Decoded string, or {@code null} if the string is not set
+     */
+    public String get(int index) {
+        int offset = offsets[index];
+        if (offset < 0) {
+            return null;
+        }
+
+        int end = offset;
+        while (end < data.length && data[end] != 0) {
+            end++;
+        }
+        return PalmCharset.decode(data, offset, end - offset);
+    }
+
+}
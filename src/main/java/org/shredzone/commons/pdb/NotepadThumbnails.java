@@ -0,0 +1,87 @@
+/*
+ * Shredzone Commons - pdb
+ *
+ * Copyright (C) 2009 Richard "Shred" Körber
+ *   http://commons.shredzone.org
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Library General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Library General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.shredzone.commons.pdb;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import org.shredzone.commons.pdb.image.Thumbnail;
+import org.shredzone.commons.pdb.record.NotepadRecord;
+
+/**
+ * Creates thumbnails of many notes in parallel.
+ */
+public final class NotepadThumbnails {
+
+    private NotepadThumbnails() {
+        // utility class without constructor
+    }
+
+    /**
+     * Creates thumbnails of all the given notes, using the given {@link Executor}.
+     * The method returns when all thumbnails have been created.
+     *
+     * @param notes
+     *            Notes to create thumbnails of. {@code null} entries are permitted.
+     * @param width
+     *            Thumbnail width
+     * @param height
+     *            Thumbnail height
+     * @param executor
+     *            {@link Executor} that runs the tasks, for example a
+     *            {@link java.util.concurrent.ExecutorService}
+     * @return List of {@link Thumbnail}, in the order of the notes. The entry is
+     *         {@code null} if the note is {@code null} or has no bitmap image.
+     * @throws UncheckedPdbException
+     *             if the thread was interrupted while waiting for the thumbnails
+     */
+    public static List<Thumbnail> createAll(Collection<? extends NotepadRecord> notes,
+                    final int width, final int height, Executor executor) {
+        if (notes.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        final NotepadRecord[] records = notes.toArray(new NotepadRecord[notes.size()]);
+        final Thumbnail[] result = new Thumbnail[records.length];
+
+        try {
+            ParallelChunks.forEachChunk(records.length, executor, new ParallelChunks.ChunkTask() {
+                @Override
+                public void process(int from, int to) {
+                    for (int ix = from; ix < to; ix++) {
+                        if (records[ix] != null) {
+                            result[ix] = records[ix].createThumbnail(width, height);
+                        }
+                    }
+                }
+            });
+        } catch (IOException ex) {
+            throw new UncheckedPdbException(ex);
+        }
+
+        return new ArrayList<>(Arrays.asList(result));
+    }
+
+}
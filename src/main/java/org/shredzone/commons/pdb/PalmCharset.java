@@ -0,0 +1,269 @@
+/*
+ * Shredzone Commons - pdb
+ *
+ * Copyright (C) 2009 Richard "Shred" Körber
+ *   http://commons.shredzone.org
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Library General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Library General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.shredzone.commons.pdb;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.util.Arrays;
+
+/**
+ * The character set that is used by PalmOS. It is based on ISO-8859-1, but uses the
+ * range 0x80 to 0x9F for additional characters, similar to Windows-1252. Some very
+ * special PalmOS characters have no unicode equivalent and are kept unchanged.
+ * <p>
+ * The charset is not registered at the JVM, use {@link #INSTANCE} to get an instance.
+ * For decoding byte arrays, {@link #decode(byte[], int, int)} is the fastest way.
+ */
+public final class PalmCharset extends Charset {
+
+    /**
+     * The {@link PalmCharset} instance.
+     */
+    public static final PalmCharset INSTANCE = new PalmCharset();
+
+    private static final char[] DECODE_TABLE = new char[256];
+    private static final char[] ENCODE_CHARS;
+    private static final byte[] ENCODE_BYTES;
+
+    static {
+        for (int ix = 0; ix < DECODE_TABLE.length; ix++) {
+            DECODE_TABLE[ix] = (char) ix;
+        }
+
+        DECODE_TABLE[0x18] = '\u2026'; // Ellipsis
+        DECODE_TABLE[0x19] = '\u2007'; // Numeric Space
+        DECODE_TABLE[0x80] = '\u20AC'; // Euro
+        DECODE_TABLE[0x82] = '\u201A'; // Single Low Quotation Mark
+        DECODE_TABLE[0x83] = '\u0192'; // Small F with Hook
+        DECODE_TABLE[0x84] = '\u201E'; // Double Low Quotation Mark
+        DECODE_TABLE[0x85] = '\u2026'; // Ellipsis
+        DECODE_TABLE[0x86] = '\u2020'; // Dagger
+        DECODE_TABLE[0x87] = '\u2021'; // Double Dagger
+        DECODE_TABLE[0x88] = '\u0302'; // Combining Circumflex Accent
+        DECODE_TABLE[0x89] = '\u2030'; // Per Mille
+        DECODE_TABLE[0x8A] = '\u0160'; // Capital S with Caron
+        DECODE_TABLE[0x8B] = '\u2039'; // Single Left-pointing Angle Quotation Mark
+        DECODE_TABLE[0x8C] = '\u0152'; // Capital Ligature OE
+        DECODE_TABLE[0x8D] = '\u2662'; // Diamond
+        DECODE_TABLE[0x8E] = '\u2663'; // Club
+        DECODE_TABLE[0x8F] = '\u2661'; // Heart
+        DECODE_TABLE[0x90] = '\u2660'; // Spade
+        DECODE_TABLE[0x91] = '\u2018'; // Left Single Quotation Mark
+        DECODE_TABLE[0x92] = '\u2019'; // Right Single Quotation Mark
+        DECODE_TABLE[0x93] = '\u201C'; // Left Double Quotation Mark
+        DECODE_TABLE[0x94] = '\u201D'; // Right Double Quotation Mark
+        DECODE_TABLE[0x95] = '\u2219'; // Bullet
+        DECODE_TABLE[0x96] = '\u2011'; // Non-breaking Hyphen
+        DECODE_TABLE[0x97] = '\u2012'; // Figure Dash
+        DECODE_TABLE[0x98] = '\u0303'; // Combining Tilde
+        DECODE_TABLE[0x99] = '\u2122'; // Trademark
+        DECODE_TABLE[0x9A] = '\u0161'; // Small S with Caron
+        DECODE_TABLE[0x9B] = '\u203A'; // Single Right-pointing Angle Quotation Mark
+        DECODE_TABLE[0x9C] = '\u0153'; // Small Ligature OE
+        DECODE_TABLE[0x9F] = '\u0178'; // Capital Y with Diaeresis
+
+        // Sorted reverse table. If a character is mapped twice, the higher byte wins.
+        long[] pairs = new long[DECODE_TABLE.length];
+        for (int ix = 0; ix < DECODE_TABLE.length; ix++) {
+            pairs[ix] = ((long) DECODE_TABLE[ix] << 8) | ix;
+        }
+        Arrays.sort(pairs);
+
+        int count = 0;
+        char[] chars = new char[pairs.length];
+        byte[] bytes = new byte[pairs.length];
+        for (long pair : pairs) {
+            char ch = (char) (pair >>> 8);
+            if (count > 0 && chars[count - 1] == ch) {
+                count--;
+            }
+            chars[count] = ch;
+            bytes[count] = (byte) pair;
+            count++;
+        }
+        ENCODE_CHARS = Arrays.copyOf(chars, count);
+        ENCODE_BYTES = Arrays.copyOf(bytes, count);
+    }
+
+    private PalmCharset() {
+        super("x-PalmOS", new String[0]);
+    }
+
+    /**
+     * Decodes a PalmOS string in a single pass.
+     *
+     * @param data
+     *            Array containing the string
+     * @param offset
+     *            Start of the string in the array
+     * @param length
+     *            The length of the string, in bytes
+     * @return Decoded string
+     */
+    public static String decode(byte[] data, int offset, int length) {
+        char[] chars = new char[length];
+        for (int ix = 0; ix < length; ix++) {
+            chars[ix] = DECODE_TABLE[data[offset + ix] & 0xFF];
+        }
+        return new String(chars);
+    }
+
+    /**
+     * Decodes a PalmOS string in a single pass. The position of the buffer is not
+     * changed.
+     *
+     * @param buffer
+     *            {@link ByteBuffer} containing the string
+     * @param offset
+     *            Start of the string in the buffer
+     * @param length
+     *            The length of the string, in bytes
+     * @return Decoded string
+     */
+    public static String decode(ByteBuffer buffer, int offset, int length) {
+        if (buffer.hasArray()) {
+            return decode(buffer.array(), buffer.arrayOffset() + offset, length);
+        }
+
+        char[] chars = new char[length];
+        for (int ix = 0; ix < length; ix++) {
+            chars[ix] = DECODE_TABLE[buffer.get(offset + ix) & 0xFF];
+        }
+        return new String(chars);
+    }
+
+    /**
+     * Decodes a single PalmOS character.
+     *
+     * @param b
+     *            Character to decode
+     * @return Unicode character
+     */
+    public static char decode(byte b) {
+        return DECODE_TABLE[b & 0xFF];
+    }
+
+    /**
+     * Encodes a single character to PalmOS.
+     *
+     * @param ch
+     *            Unicode character to encode
+     * @return Encoded character, or -1 if the character cannot be encoded
+     */
+    public static int encode(char ch) {
+        int pos = Arrays.binarySearch(ENCODE_CHARS, ch);
+        if (pos < 0) {
+            return -1;
+        }
+        return ENCODE_BYTES[pos] & 0xFF;
+    }
+
+    /**
+     * Converts the special PalmOS characters of a string that was decoded as
+     * ISO-8859-1.
+     *
+     * @param str
+     *            String to be converted
+     * @return Converted string. This is {@code str} if there was nothing to convert.
+     */
+    static String convert(String str) {
+        char[] chars = null;
+        for (int ix = 0, len = str.length(); ix < len; ix++) {
+            char ch = str.charAt(ix);
+            if (ch < 256 && DECODE_TABLE[ch] != ch) {
+                if (chars == null) {
+                    chars = str.toCharArray();
+                }
+                chars[ix] = DECODE_TABLE[ch];
+            }
+        }
+        return chars != null ? new String(chars) : str;
+    }
+
+    @Override
+    public boolean contains(Charset cs) {
+        return cs instanceof PalmCharset;
+    }
+
+    @Override
+    public CharsetDecoder newDecoder() {
+        return new Decoder(this);
+    }
+
+    @Override
+    public CharsetEncoder newEncoder() {
+        return new Encoder(this);
+    }
+
+    /**
+     * {@link CharsetDecoder} for the PalmOS charset.
+     */
+    private static class Decoder extends CharsetDecoder {
+        public Decoder(Charset cs) {
+            super(cs, 1.0f, 1.0f);
+        }
+
+        @Override
+        protected CoderResult decodeLoop(ByteBuffer in, CharBuffer out) {
+            while (in.hasRemaining()) {
+                if (!out.hasRemaining()) {
+                    return CoderResult.OVERFLOW;
+                }
+                out.put(DECODE_TABLE[in.get() & 0xFF]);
+            }
+            return CoderResult.UNDERFLOW;
+        }
+    }
+
+    /**
+     * {@link CharsetEncoder} for the PalmOS charset.
+     */
+    private static class Encoder extends CharsetEncoder {
+        public Encoder(Charset cs) {
+            super(cs, 1.0f, 1.0f);
+        }
+
+        @Override
+        public boolean canEncode(char c) {
+            return PalmCharset.encode(c) >= 0;
+        }
+
+        @Override
+        protected CoderResult encodeLoop(CharBuffer in, ByteBuffer out) {
+            while (in.hasRemaining()) {
+                int b = PalmCharset.encode(in.get(in.position()));
+                if (b < 0) {
+                    return CoderResult.unmappableForLength(1);
+                }
+                if (!out.hasRemaining()) {
+                    return CoderResult.OVERFLOW;
+                }
+                out.put((byte) b);
+                in.position(in.position() + 1);
+            }
+            return CoderResult.UNDERFLOW;
+        }
+    }
+
+}
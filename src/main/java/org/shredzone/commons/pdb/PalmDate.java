@@ -0,0 +1,204 @@
+/*
+ * Shredzone Commons - pdb
+ *
+ * Copyright (C) 2009 Richard "Shred" Körber
+ *   http://commons.shredzone.org
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Library General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Library General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.shredzone.commons.pdb;
+
+/**
+ * Static helpers for PalmOS dates, working on primitive values only.
+ * <p>
+ * PalmOS stores dates in two formats. A <em>packed date</em> is a 16 bit value that
+ * contains year, month and day. A <em>timestamp</em> is the number of seconds since the
+ * PalmOS epoch (January 1st, 1904), in local time. For calculations, dates can also be
+ * converted to a <em>day number</em>, which is the number of days since the PalmOS epoch.
+ */
+public final class PalmDate {
+
+    /**
+     * Packed date value that marks that no date is set.
+     */
+    public static final int NO_DATE = 0xFFFF;
+
+    private static final int SECONDS_PER_DAY = 24 * 60 * 60;
+    private static final int DAYS_TO_UNIX_EPOCH = 24107;    // 1904-01-01 to 1970-01-01
+
+    private PalmDate() {
+        // utility class without constructor
+    }
+
+    /**
+     * Creates a packed date.
+     *
+     * @param year
+     *            Year (four digits, 1904 to 2031)
+     * @param month
+     *            Month (1 to 12)
+     * @param day
+     *            Day of month
+     * @return Packed date
+     */
+    public static int pack(int year, int month, int day) {
+        return ((year - CalendarFactory.EPOCH_YEAR) & 0x7F) << 9 | (month & 0x0F) << 5 | (day & 0x1F);
+    }
+
+    /**
+     * Gets the year of a packed date (four digits).
+     */
+    public static int getYear(int packed) {
+        return ((packed >> 9) & 0x007F) + CalendarFactory.EPOCH_YEAR;
+    }
+
+    /**
+     * Gets the month of a packed date (1 to 12).
+     */
+    public static int getMonth(int packed) {
+        return (packed >> 5) & 0x000F;
+    }
+
+    /**
+     * Gets the day of month of a packed date.
+     */
+    public static int getDay(int packed) {
+        return packed & 0x001F;
+    }
+
+    /**
+     * Converts a packed date to a day number.
+     *
+     * @param packed
+     *            Packed date
+     * @return Day number
+     */
+    public static int toDayNumber(int packed) {
+        return toDayNumber(getYear(packed), getMonth(packed), getDay(packed));
+    }
+
+    /**
+     * Converts a date to a day number.
+     *
+     * @param year
+     *            Year (four digits)
+     * @param month
+     *            Month (1 to 12)
+     * @param day
+     *            Day of month
+     * @return Number of days since the PalmOS epoch
+     */
+    public static int toDayNumber(int year, int month, int day) {
+        int y = month <= 2 ? year - 1 : year;
+        int era = (y >= 0 ? y : y - 399) / 400;
+        int yoe = y - era * 400;
+        int doy = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+        int doe = yoe * 365 + yoe / 4 - yoe / 100 + doy;
+        return era * 146097 + doe - 719468 + DAYS_TO_UNIX_EPOCH;
+    }
+
+    /**
+     * Converts a day number to a date.
+     *
+     * @param dayNumber
+     *            Number of days since the PalmOS epoch
+     * @return Date as decimal number in the form {@code yyyymmdd}, e.g. 20090131 for
+     *         January 31st, 2009
+     */
+    public static int toYmd(int dayNumber) {
+        int z = dayNumber - DAYS_TO_UNIX_EPOCH + 719468;
+        int era = (z >= 0 ? z : z - 146096) / 146097;
+        int doe = z - era * 146097;
+        int yoe = (doe - doe / 1460 + doe / 36524 - doe / 146096) / 365;
+        int doy = doe - (365 * yoe + yoe / 4 - yoe / 100);
+        int mp = (5 * doy + 2) / 153;
+        int day = doy - (153 * mp + 2) / 5 + 1;
+        int month = mp < 10 ? mp + 3 : mp - 9;
+        int year = yoe + era * 400 + (month <= 2 ? 1 : 0);
+        return year * 10000 + month * 100 + day;
+    }
+
+    /**
+     * Converts a day number to a packed date.
+     *
+     * @param dayNumber
+     *            Number of days since the PalmOS epoch
+     * @return Packed date
+     */
+    public static int toPacked(int dayNumber) {
+        int ymd = toYmd(dayNumber);
+        return pack(ymd / 10000, (ymd / 100) % 100, ymd % 100);
+    }
+
+    /**
+     * Gets the day of week of a day number.
+     *
+     * @param dayNumber
+     *            Number of days since the PalmOS epoch
+     * @return Day of week, 0 = Sunday, 1 = Monday, and so on
+     */
+    public static int getDayOfWeek(int dayNumber) {
+        int dow = (dayNumber + 5) % 7;     // PalmOS epoch was a Friday
+        return dow < 0 ? dow + 7 : dow;
+    }
+
+    /**
+     * Converts a local date and time to a timestamp.
+     *
+     * @param year
+     *            Year (four digits)
+     * @param month
+     *            Month (1 to 12)
+     * @param day
+     *            Day of month
+     * @param hour
+     *            Hour (0 to 23)
+     * @param minute
+     *            Minute
+     * @param second
+     *            Second
+     * @return Seconds since the PalmOS epoch
+     */
+    public static long toTimestamp(int year, int month, int day, int hour, int minute, int second) {
+        return (long) toDayNumber(year, month, day) * SECONDS_PER_DAY
+                + hour * 3600 + minute * 60 + second;
+    }
+
+    /**
+     * Gets the day number of a timestamp.
+     *
+     * @param timestamp
+     *            Seconds since the PalmOS epoch
+     * @return Day number
+     */
+    public static int getDayNumber(long timestamp) {
+        long days = timestamp / SECONDS_PER_DAY;
+        if (timestamp % SECONDS_PER_DAY < 0) {
+            days--;
+        }
+        return (int) days;
+    }
+
+    /**
+     * Gets the number of seconds since midnight of a timestamp.
+     *
+     * @param timestamp
+     *            Seconds since the PalmOS epoch
+     * @return Seconds of the day
+     */
+    public static int getSecondOfDay(long timestamp) {
+        return (int) (timestamp - (long) getDayNumber(timestamp) * SECONDS_PER_DAY);
+    }
+
+}
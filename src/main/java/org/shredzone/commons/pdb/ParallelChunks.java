@@ -0,0 +1,156 @@
+/*
+ * Shredzone Commons - pdb
+ *
+ * Copyright (C) 2009 Richard "Shred" Körber
+ *   http://commons.shredzone.org
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Library General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Library General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.shredzone.commons.pdb;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Processes a range of indexes in parallel. The range is split into chunks of adjacent
+ * indexes, and each chunk is processed by a separate task.
+ */
+final class ParallelChunks {
+
+    private static final int TASKS_PER_CPU = 4;
+
+    private ParallelChunks() {
+        // utility class without constructor
+    }
+
+    /**
+     * Processes the indexes {@code 0} to {@code n - 1} in chunks, using the given
+     * {@link Executor}. The method returns when all chunks have been processed. After
+     * a chunk failed, the chunks that have not been started yet are skipped.
+     * <p>
+     * The invoking thread processes chunks as well. It takes all chunks that have not
+     * been taken by a task yet, and then only waits for the chunks that are currently
+     * processed by other threads. For this reason, the method does not deadlock when it
+     * is invoked from a task of the same {@link Executor}, even if all threads of the
+     * executor are busy. If the executor rejects a task, the invoking thread processes
+     * the remaining chunks.
+     *
+     * @param n
+     *            Number of indexes
+     * @param executor
+     *            {@link Executor} that runs the tasks, for example a
+     *            {@link java.util.concurrent.ExecutorService}
+     * @param task
+     *            {@link ChunkTask} that processes a chunk
+     * @throws IOException
+     *             if a chunk failed with an {@link IOException}
+     * @throws InterruptedIOException
+     *             if the thread was interrupted while waiting for the chunks
+     */
+    static void forEachChunk(int n, Executor executor, ChunkTask task)
+                    throws IOException {
+        int chunks = Math.min(n, Runtime.getRuntime().availableProcessors() * TASKS_PER_CPU);
+        Worker worker = new Worker(n, chunks, task);
+
+        // The invoking thread is working as well, so one task less is needed
+        for (int ix = 1; ix < chunks; ix++) {
+            try {
+                executor.execute(worker);
+            } catch (RejectedExecutionException ex) {
+                break;
+            }
+        }
+
+        worker.run();
+
+        try {
+            worker.latch.await();
+        } catch (InterruptedException ex) {
+            worker.failure.compareAndSet(null, ex);
+            Thread.currentThread().interrupt();
+        }
+
+        Throwable ex = worker.failure.get();
+        if (ex instanceof IOException) {
+            throw (IOException) ex;
+        } else if (ex instanceof RuntimeException) {
+            throw (RuntimeException) ex;
+        } else if (ex instanceof Error) {
+            throw (Error) ex;
+        } else if (ex != null) {
+            throw new InterruptedIOException("interrupted while waiting for the tasks");
+        }
+    }
+
+    /**
+     * Takes chunks that have not been processed yet, and processes them. It is run by
+     * the tasks and by the invoking thread.
+     */
+    private static class Worker implements Runnable {
+        private final int n;
+        private final int chunks;
+        private final ChunkTask task;
+        private final AtomicInteger nextChunk = new AtomicInteger();
+        private final CountDownLatch latch;
+        private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        Worker(int n, int chunks, ChunkTask task) {
+            this.n = n;
+            this.chunks = chunks;
+            this.task = task;
+            this.latch = new CountDownLatch(chunks);
+        }
+
+        @Override
+        public void run() {
+            int chunk;
+            while ((chunk = nextChunk.getAndIncrement()) < chunks) {
+                int from = (int) ((long) n * chunk / chunks);
+                int to = (int) ((long) n * (chunk + 1) / chunks);
+                try {
+                    if (failure.get() == null) {
+                        task.process(from, to);
+                    }
+                } catch (Throwable ex) { //NOSONAR: all failures are passed to the caller
+                    failure.compareAndSet(null, ex);
+                } finally {
+                    latch.countDown();
+                }
+            }
+        }
+    }
+
+    /**
+     * Processes a chunk of indexes.
+     */
+    interface ChunkTask {
+
+        /**
+         * Processes the indexes of a chunk.
+         *
+         * @param from
+         *            First index, inclusive
+         * @param to
+         *            Last index, exclusive
+         */
+        void process(int from, int to) throws IOException;
+
+    }
+
+}
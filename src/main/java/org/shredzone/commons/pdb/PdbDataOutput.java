@@ -0,0 +1,175 @@
+/*
+ * Shredzone Commons - pdb
+ *
+ * Copyright (C) 2009 Richard "Shred" Körber
+ *   http://commons.shredzone.org
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Library General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Library General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.shredzone.commons.pdb;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import org.shredzone.commons.pdb.appinfo.CategoryAppInfo;
+import org.shredzone.commons.pdb.appinfo.CategoryAppInfo.Category;
+
+/**
+ * Collects the encoded data of a record or an appinfo area. This is the counterpart of
+ * the reading methods of {@link PdbFile}.
+ * <p>
+ * Strings are encoded in the PalmOS character set. Characters that cannot be encoded
+ * are replaced by {@code '?'}.
+ */
+public class PdbDataOutput extends DataOutputStream {
+
+    private static final int CATEGORY_NAME_LENGTH = 16;
+
+    /**
+     * Creates a new, empty {@link PdbDataOutput}.
+     */
+    public PdbDataOutput() {
+        super(new Buffer());
+    }
+
+    /**
+     * Writes a string of a fixed length, not null terminated. Longer strings are
+     * truncated, shorter strings are padded with null characters.
+     *
+     * @param str
+     *            String to write, may be {@code null}
+     * @param length
+     *            The length of the string
+     */
+    public void writeFixedString(String str, int length) throws IOException {
+        int len = str != null ? Math.min(str.length(), length) : 0;
+        for (int ix = 0; ix < len; ix++) {
+            write(encodeChar(str.charAt(ix)));
+        }
+        for (int ix = len; ix < length; ix++) {
+            write(0);
+        }
+    }
+
+    /**
+     * Writes a string of a fixed length that is null terminated. Longer strings are
+     * truncated so the terminator still fits.
+     *
+     * @param str
+     *            String to write, may be {@code null}
+     * @param length
+     *            The length of the string, including the terminator
+     */
+    public void writeTerminatedFixedString(String str, int length) throws IOException {
+        if (str != null && str.length() >= length) {
+            str = str.substring(0, length - 1);
+        }
+        writeFixedString(str, length);
+    }
+
+    /**
+     * Writes a string of a variable length, followed by a null terminator.
+     *
+     * @param str
+     *            String to write. {@code null} is written as empty string.
+     */
+    public void writeTerminatedString(String str) throws IOException {
+        if (str != null) {
+            for (int ix = 0; ix < str.length(); ix++) {
+                write(encodeChar(str.charAt(ix)));
+            }
+        }
+        write(0);
+    }
+
+    /**
+     * Writes a packed date.
+     *
+     * @param packed
+     *            Packed date, or {@link PalmDate#NO_DATE}
+     * @see PalmDate
+     */
+    public void writeRawPackedDate(int packed) throws IOException {
+        writeShort(packed);
+    }
+
+    /**
+     * Writes the categories of a {@link CategoryAppInfo}.
+     *
+     * @param appInfo
+     *            {@link CategoryAppInfo} to write
+     * @return Number of bytes that were written
+     * @see PdbFile#readCategories(CategoryAppInfo)
+     */
+    public int writeCategories(CategoryAppInfo appInfo) throws IOException {
+        int start = size();
+
+        int renamed = 0;
+        int lastKey = 0;
+        for (int ix = 0; ix < CategoryAppInfo.NUM_CATEGORIES; ix++) {
+            Category cat = appInfo.getCategoryByIndex(ix);
+            if (cat != null) {
+                if (cat.isRenamed()) {
+                    renamed |= 1 << ix;
+                }
+                lastKey = Math.max(lastKey, cat.getKey() & 0xFF);
+            }
+        }
+        writeShort(renamed);
+
+        for (int ix = 0; ix < CategoryAppInfo.NUM_CATEGORIES; ix++) {
+            writeTerminatedFixedString(appInfo.getCategoryName(ix), CATEGORY_NAME_LENGTH);
+        }
+
+        for (int ix = 0; ix < CategoryAppInfo.NUM_CATEGORIES; ix++) {
+            Category cat = appInfo.getCategoryByIndex(ix);
+            writeByte(cat != null ? cat.getKey() : 0);
+        }
+
+        writeByte(lastKey);     // last unique ID
+        writeByte(0);           // padding
+
+        return size() - start;
+    }
+
+    /**
+     * Returns the data that was written so far. The returned {@link ByteBuffer} shares
+     * the internal buffer, so the data is not copied.
+     *
+     * @return {@link ByteBuffer} containing the written data
+     */
+    public ByteBuffer toByteBuffer() {
+        return ((Buffer) out).toByteBuffer();
+    }
+
+    /**
+     * Encodes a single character, replacing characters that cannot be encoded.
+     */
+    private static int encodeChar(char ch) {
+        int b = PalmCharset.encode(ch);
+        return b >= 0 ? b : '?';
+    }
+
+    /**
+     * A {@link ByteArrayOutputStream} that gives access to its internal buffer.
+     */
+    private static class Buffer extends ByteArrayOutputStream {
+        public ByteBuffer toByteBuffer() {
+            return ByteBuffer.wrap(buf, 0, count);
+        }
+    }
+
+}
@@ -22,6 +22,7 @@ package org.shredzone.commons.pdb;
 import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.List;
+import java.util.TimeZone;
 
 import org.shredzone.commons.pdb.appinfo.AppInfo;
 import org.shredzone.commons.pdb.record.Record;
@@ -48,13 +49,18 @@ public class PdbDatabase<T extends Record, U extends AppInfo> {
     private String name;
     private int attributes;
     private int version;
-    private Calendar creationTime;
-    private Calendar modificationTime;
-    private Calendar backupTime;
+    private long creationTime;
+    private long modificationTime;
+    private long backupTime;
+    private TimeZone timeZone;
+    private volatile Calendar creationCalendar;
+    private volatile Calendar modificationCalendar;
+    private volatile Calendar backupCalendar;
     private int modificationNumber;
     private String type;
     private String creator;
     private U appInfo;
+    private byte[] sortInfo;
     private List<T> records = new ArrayList<>();
 
     /**
@@ -75,24 +81,99 @@ public class PdbDatabase<T extends Record, U extends AppInfo> {
     public int getVersion()             { return version; }
     public void setVersion(int version) { this.version = version; }
 
+    /**
+     * Gets the {@link TimeZone} the timestamps of the database are expressed in. When
+     * the database is read, it is the time zone of the reading {@link PdbFile}'s
+     * {@link CalendarFactory}. If {@code null}, the {@link CalendarFactory} of the
+     * invoking thread is used.
+     */
+    public TimeZone getTimeZone()       { return timeZone; }
+    public void setTimeZone(TimeZone timeZone) {
+        this.timeZone = timeZone;
+        this.creationCalendar = null;
+        this.modificationCalendar = null;
+        this.backupCalendar = null;
+    }
+
     /**
      * Gets the creation time of the database. Should not be {@code null}.
      */
-    public Calendar getCreationTime()   { return creationTime; }
-    public void setCreationTime(Calendar creationTime) { this.creationTime = creationTime; }
+    public Calendar getCreationTime() {
+        Calendar cal = creationCalendar;
+        if (cal == null) {
+            cal = getCalendarFactory().createFromTimestamp(creationTime);
+            creationCalendar = cal;
+        }
+        return cal != null ? (Calendar) cal.clone() : null;
+    }
+
+    public void setCreationTime(Calendar creationTime) {
+        this.creationTime = getCalendarFactory().toTimestamp(creationTime);
+        this.creationCalendar = creationTime != null ? (Calendar) creationTime.clone() : null;
+    }
+
+    /**
+     * Gets the creation time of the database, in seconds since the PalmOS epoch.
+     */
+    public long getRawCreationTime()    { return creationTime; }
+    public void setRawCreationTime(long creationTime) {
+        this.creationTime = creationTime;
+        this.creationCalendar = null;
+    }
 
     /**
      * Gets the modification time of the database. Should not be {@code null}.
      */
-    public Calendar getModificationTime() { return modificationTime; }
-    public void setModificationTime(Calendar modificationTime) { this.modificationTime = modificationTime; }
+    public Calendar getModificationTime() {
+        Calendar cal = modificationCalendar;
+        if (cal == null) {
+            cal = getCalendarFactory().createFromTimestamp(modificationTime);
+            modificationCalendar = cal;
+        }
+        return cal != null ? (Calendar) cal.clone() : null;
+    }
+
+    public void setModificationTime(Calendar modificationTime) {
+        this.modificationTime = getCalendarFactory().toTimestamp(modificationTime);
+        this.modificationCalendar = modificationTime != null ? (Calendar) modificationTime.clone() : null;
+    }
+
+    /**
+     * Gets the modification time of the database, in seconds since the PalmOS epoch.
+     */
+    public long getRawModificationTime() { return modificationTime; }
+    public void setRawModificationTime(long modificationTime) {
+        this.modificationTime = modificationTime;
+        this.modificationCalendar = null;
+    }
 
     /**
      * Gets the backup time of the database. Is {@code null} if the database has not
      * been backed up yet.
      */
-    public Calendar getBackupTime()     { return backupTime; }
-    public void setBackupTime(Calendar backupTime) { this.backupTime = backupTime; }
+    public Calendar getBackupTime() {
+        Calendar cal = backupCalendar;
+        if (cal == null) {
+            cal = getCalendarFactory().createFromTimestamp(backupTime);
+            backupCalendar = cal;
+        }
+        return cal != null ? (Calendar) cal.clone() : null;
+    }
+
+    public void setBackupTime(Calendar backupTime) {
+        this.backupTime = getCalendarFactory().toTimestamp(backupTime);
+        this.backupCalendar = backupTime != null ? (Calendar) backupTime.clone() : null;
+    }
+
+    /**
+     * Gets the backup time of the database, in seconds since the PalmOS epoch. Is 0 if
+     * the database has not been backed up yet.
+     */
+    public long getRawBackupTime()      { return backupTime; }
+    public void setRawBackupTime(long backupTime) {
+        this.backupTime = backupTime;
+        this.backupCalendar = null;
+    }
 
     /**
      * Gets the modification number.
@@ -119,9 +200,23 @@ public class PdbDatabase<T extends Record, U extends AppInfo> {
     public U getAppInfo()               { return appInfo; }
     public void setAppInfo(U appInfo)   { this.appInfo = appInfo; }
 
+    /**
+     * Gets the raw content of the sortinfo area. {@code null} if no sortinfo area was
+     * available. The content is not interpreted, but written back by {@link PdbWriter}.
+     */
+    public byte[] getSortInfo()         { return sortInfo; }
+    public void setSortInfo(byte[] sortInfo) { this.sortInfo = sortInfo; }
+
     /**
      * Gets all records of this database.
      */
     public List<T> getRecords()         { return records; }
 
+    /**
+     * Gets the {@link CalendarFactory} for the time zone of this database.
+     */
+    private CalendarFactory getCalendarFactory() {
+        return CalendarFactory.forTimeZone(timeZone);
+    }
+
 }
@@ -0,0 +1,423 @@
+/*
+ * Shredzone Commons - pdb
+ *
+ * Copyright (C) 2009 Richard "Shred" Körber
+ *   http://commons.shredzone.org
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Library General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Library General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.shredzone.commons.pdb;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Executor;
+
+import org.shredzone.commons.pdb.appinfo.AppInfo;
+import org.shredzone.commons.pdb.converter.Converter;
+import org.shredzone.commons.pdb.record.AbstractRecord;
+import org.shredzone.commons.pdb.record.Record;
+
+/**
+ * Reads the records of an opened PDB database on demand.
+ * <p>
+ * The database header, the appinfo and the record list are read when the database is
+ * opened. The records themselves are only read and converted while iterating, so the
+ * entire database does not need to be kept in memory.
+ * <p>
+ * Iterators are not thread safe. However, {@link #getRecord(int)} can be invoked by
+ * multiple threads concurrently, so a single opened database can serve concurrent
+ * lookups. Closing the reader also closes the {@link PdbFile}.
+ *
+ * @see PdbFile#openDatabase(Converter)
+ */
+public class PdbDatabaseReader<T extends Record, U extends AppInfo> implements Iterable<T>, Closeable {
+
+    private final PdbFile file;
+    private final Converter<T, U> converter;
+    private final RecordFilter filter;
+    private final int filterCategory;
+    private final PdbDatabase<T, U> database;
+    private final RecordList recordList;
+    private final int appInfoPos;
+    private final int appInfoSize;
+
+    /**
+     * Creates a new {@link PdbDatabaseReader}. The header, appinfo and record list are
+     * already read.
+     */
+    PdbDatabaseReader(PdbFile file, Converter<T, U> converter, RecordFilter filter,
+                PdbDatabase<T, U> database, RecordList recordList, int appInfoPos, int appInfoSize) {
+        this.file = file;
+        this.converter = converter;
+        this.filter = filter;
+        this.filterCategory = filter.resolveCategory(database.getAppInfo());
+        this.database = database;
+        this.recordList = recordList;
+        this.appInfoPos = appInfoPos;
+        this.appInfoSize = appInfoSize;
+    }
+
+    /**
+     * Gets the {@link PdbDatabase} with the header and appinfo of the database. Its record
+     * list is empty, records are only returned by the iterator.
+     */
+    public PdbDatabase<T, U> getDatabase()      { return database; }
+
+    /**
+     * Gets the number of records in the record list. Note that deleted records are
+     * included.
+     */
+    public int size()                           { return recordList.size(); }
+
+    /**
+     * Reads and converts a single record. The record is read at its position in the
+     * file, without changing the file pointer of the {@link PdbFile}. This method is
+     * thread safe, provided that the converter is thread safe.
+     *
+     * @param index
+     *            Record index, from 0 to {@link #size()} - 1
+     * @return Converted record, or {@code null} if the record was converted to
+     *         {@code null} (e.g. because it is deleted), is beyond the end of file, or
+     *         is rejected by the {@link RecordFilter}
+     */
+    public T getRecord(int index) throws IOException {
+        if (!isAccepted(index)) {
+            return null;
+        }
+
+        int size = recordList.getSize(index, file);
+        return convertRecord(file.view(recordList.getOffset(index), Math.max(size, 0)), index, size);
+    }
+
+    /**
+     * Reads and converts the record with the given unique ID. This method is thread
+     * safe, provided that the converter is thread safe.
+     *
+     * @param uniqueId
+     *            Unique ID of the record
+     * @return Converted record, or {@code null} if there is no record with that unique
+     *         ID, or if the record was converted to {@code null}
+     */
+    public T getRecordByUniqueId(int uniqueId) throws IOException {
+        int index = recordList.findIndexByUniqueId(uniqueId);
+        return index >= 0 ? getRecord(index) : null;
+    }
+
+    /**
+     * Finds the index of the record with the given unique ID.
+     *
+     * @param uniqueId
+     *            Unique ID of the record
+     * @return Record index, or -1 if there is no record with that unique ID
+     */
+    public int findIndexByUniqueId(int uniqueId) {
+        return recordList.findIndexByUniqueId(uniqueId);
+    }
+
+    /**
+     * Reads the raw data of a single record, without converting it. This method is
+     * thread safe.
+     *
+     * @param index
+     *            Record index, from 0 to {@link #size()} - 1
+     * @return Raw record data
+     */
+    public byte[] getRecordData(int index) throws IOException {
+        byte[] data = new byte[Math.max(recordList.getSize(index, file), 0)];
+        file.readFully(recordList.getOffset(index), data, 0, data.length);
+        return data;
+    }
+
+    /**
+     * Reads the raw data of the appinfo area. This method is thread safe.
+     *
+     * @return Raw appinfo data, or {@code null} if the database has no appinfo area
+     */
+    public byte[] getAppInfoData() throws IOException {
+        if (appInfoPos <= 0) {
+            return null;
+        }
+
+        byte[] data = new byte[appInfoSize];
+        file.readFully(appInfoPos, data, 0, data.length);
+        return data;
+    }
+
+    /**
+     * Gets the attribute of a record (see the ATTR constants of
+     * {@link org.shredzone.commons.pdb.record.AbstractRecord}).
+     *
+     * @param index
+     *            Record index, from 0 to {@link #size()} - 1
+     * @return Record attribute
+     */
+    public int getAttribute(int index) {
+        return recordList.getAttribute(index);
+    }
+
+    /**
+     * Gets the unique ID of a record.
+     *
+     * @param index
+     *            Record index, from 0 to {@link #size()} - 1
+     * @return Unique ID (24 bit)
+     */
+    public int getUniqueId(int index) {
+        return recordList.getUniqueId(index);
+    }
+
+    /**
+     * Returns an {@link Iterator} that reads and converts the records in the order of
+     * their index. Records that are converted to {@code null} (e.g. because they are
+     * deleted) are skipped.
+     * <p>
+     * {@link IOException} are thrown as {@link UncheckedPdbException}.
+     */
+    @Override
+    public Iterator<T> iterator() {
+        return new RecordIterator();
+    }
+
+    /**
+     * Closes the reader and the {@link PdbFile}.
+     */
+    @Override
+    public void close() throws IOException {
+        file.close();
+    }
+
+    /**
+     * Reads all records in the order of their offsets, and adds the converted records to
+     * the database's record list in the order of their index.
+     */
+    void readAll() throws IOException {
+        long start = file.getReadListener() != null ? System.nanoTime() : 0L;
+        int records = recordList.size();
+        Object[] entries = new Object[records];
+        for (int ox = 0; ox < records; ox++) {
+            int ix = recordList.getIndexByOffsetOrder(ox);
+            entries[ix] = readRecord(ix);
+        }
+        addRecords(entries);
+        completeRecordsPhase(start);
+    }
+
+    /**
+     * Reads and converts all records in parallel, and adds the converted records to the
+     * database's record list in the order of their index.
+     *
+     * @param executor
+     *            {@link Executor} that runs the conversion tasks
+     */
+    void readAll(Executor executor) throws IOException {
+        long start = file.getReadListener() != null ? System.nanoTime() : 0L;
+        final int records = recordList.size();
+        final Object[] entries = new Object[records];
+
+        // Sizes are computed beforehand, as the last record needs the file length
+        final int[] sizes = new int[records];
+        for (int ix = 0; ix < records; ix++) {
+            sizes[ix] = recordList.getSize(ix, file);
+        }
+
+        // Each task converts a range of records that are adjacent in the file. The views
+        // use a snapshot of this file's CalendarFactory, so all threads use its time zone.
+        ParallelChunks.forEachChunk(records, executor, new ParallelChunks.ChunkTask() {
+            @Override
+            public void process(int from, int to) throws IOException {
+                for (int ox = from; ox < to; ox++) {
+                    int ix = recordList.getIndexByOffsetOrder(ox);
+                    if (!isAccepted(ix)) {
+                        continue;
+                    }
+                    PdbFile view = file.view(recordList.getOffset(ix), Math.max(sizes[ix], 0));
+                    entries[ix] = convertRecord(view, ix, sizes[ix]);
+                }
+            }
+        });
+
+        addRecords(entries);
+        completeRecordsPhase(start);
+    }
+
+    /**
+     * Notifies the {@link PdbReadListener} that all records were read.
+     *
+     * @param start
+     *            Start time of reading the records, in nanoseconds
+     */
+    private void completeRecordsPhase(long start) {
+        PdbReadListener listener = file.getReadListener();
+        if (listener != null) {
+            listener.phaseCompleted(PdbReadListener.Phase.RECORDS, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Reads and converts a single record, using the shared file pointer.
+     *
+     * @param ix
+     *            Record index
+     * @return Converted record, or {@code null} if the record is beyond the end of file,
+     *         is rejected by the {@link RecordFilter}, or was converted to {@code null}
+     */
+    private T readRecord(int ix) throws IOException {
+        if (!isAccepted(ix)) {
+            return null;
+        }
+
+        file.seek(recordList.getOffset(ix));
+        return convertRecord(file, ix, recordList.getSize(ix, file));
+    }
+
+    /**
+     * Checks if the record is accepted by the {@link RecordFilter}.
+     *
+     * @param ix
+     *            Record index
+     * @return {@code true} if the record is to be read
+     */
+    private boolean isAccepted(int ix) {
+        if (filter.accepts(recordList.getAttribute(ix), filterCategory)) {
+            return true;
+        }
+
+        PdbReadListener listener = file.getReadListener();
+        if (listener != null) {
+            listener.recordRead(converter, ix, -1, null, PdbReadListener.Outcome.SKIPPED, 0L);
+        }
+        return false;
+    }
+
+    /**
+     * Converts a single record.
+     *
+     * @param reader
+     *            {@link PdbFile} with the file pointer at the beginning of the record
+     * @param ix
+     *            Record index
+     * @param size
+     *            Record size
+     * @return Converted record, or {@code null} if the record is beyond the end of file,
+     *         or was converted to {@code null}
+     */
+    private T convertRecord(PdbFile reader, int ix, int size) throws IOException {
+        PdbReadListener listener = reader.getReadListener();
+        if (listener == null) {
+            return doConvertRecord(reader, ix, size);
+        }
+
+        long start = System.nanoTime();
+        PdbReadListener.Outcome outcome = PdbReadListener.Outcome.FAILED;
+        T result = null;
+        try {
+            result = doConvertRecord(reader, ix, size);
+            if (result != null) {
+                outcome = PdbReadListener.Outcome.CONVERTED;
+            } else if ((recordList.getAttribute(ix) & AbstractRecord.ATTR_DELETE) != 0) {
+                outcome = PdbReadListener.Outcome.DELETED;
+            } else {
+                outcome = PdbReadListener.Outcome.NULL;
+            }
+            return result;
+        } finally {
+            listener.recordRead(converter, ix, size, result, outcome, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Converts a single record, without notifying the {@link PdbReadListener}.
+     *
+     * @param reader
+     *            {@link PdbFile} with the file pointer at the beginning of the record
+     * @param ix
+     *            Record index
+     * @param size
+     *            Record size
+     * @return Converted record, or {@code null}
+     */
+    private T doConvertRecord(PdbFile reader, int ix, int size) throws IOException {
+        if (!reader.hasRemaining()) {
+            return null;
+        }
+
+        reader.setRecordLimit(reader.getFilePointer() + size);
+        try {
+            T result = converter.convert(reader, ix, size, recordList.getAttribute(ix), database);
+            if (result instanceof AbstractRecord) {
+                AbstractRecord record = (AbstractRecord) result;
+                record.setUniqueId(recordList.getUniqueId(ix));
+                record.setTimeZone(reader.getCalendarFactory().getTimeZone());
+            }
+            return result;
+        } finally {
+            reader.setRecordLimit(-1L);
+        }
+    }
+
+    /**
+     * Adds the converted records to the database's record list. {@code null} entries are
+     * skipped.
+     *
+     * @param entries
+     *            Converted records, in the order of their index
+     */
+    private void addRecords(Object[] entries) {
+        for (Object entry : entries) {
+            if (entry != null) {
+                @SuppressWarnings("unchecked")
+                T record = (T) entry;
+                database.getRecords().add(record);
+            }
+        }
+    }
+
+    /**
+     * Iterates over the converted records.
+     */
+    private class RecordIterator implements Iterator<T> {
+        private int index = 0;
+        private T nextRecord;
+
+        @Override
+        public boolean hasNext() {
+            try {
+                while (nextRecord == null && index < recordList.size()) {
+                    nextRecord = readRecord(index++);
+                }
+                return nextRecord != null;
+            } catch (IOException ex) {
+                throw new UncheckedPdbException(ex);
+            }
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            T result = nextRecord;
+            nextRecord = null;
+            return result;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+}
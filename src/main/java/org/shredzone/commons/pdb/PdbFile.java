@@ -19,41 +19,138 @@
  */
 package org.shredzone.commons.pdb;
 
-import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.EOFException;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.util.Calendar;
+import java.util.concurrent.Executor;
 
 import org.shredzone.commons.pdb.appinfo.AppInfo;
 import org.shredzone.commons.pdb.appinfo.CategoryAppInfo;
 import org.shredzone.commons.pdb.appinfo.CategoryAppInfo.Category;
 import org.shredzone.commons.pdb.converter.Converter;
 import org.shredzone.commons.pdb.record.Record;
+import org.shredzone.commons.pdb.source.FileSource;
+import org.shredzone.commons.pdb.source.PdbSource;
+import org.shredzone.commons.pdb.source.WritablePdbSource;
 
 /**
  * Opens a PDB file and gives access to its contents.
+ * <p>
+ * The contents are read from a {@link PdbSource}. Reads are buffered, so the individual
+ * {@code read} methods are cheap even if they only read a single byte.
  *
  * @see <a href="http://membres.multimania.fr/microfirst/palm/pdb.html">The Pilot Record Database Format</a>
  */
-public class PdbFile extends RandomAccessFile {
+public class PdbFile implements DataInput, Closeable {
 
-    private static final String CHARSET = "iso-8859-1";
-    private static final int NUM_CATEGORIES = 16;
+    private static final int BUFFER_SIZE = 8192;
+    private static final int MIN_VIEW_BUFFER_SIZE = 64;
+
+    private final PdbSource source;
+    private final ByteBuffer resident;
+    private final boolean view;
+    private final int bufferSize;
+    private ByteBuffer buffer;
+    private long bufferPos;
+    private long recordLimit = -1L;
+    private PdbReadListener readListener;
 
     private CalendarFactory cf = CalendarFactory.getInstance();
 
     /**
-     * Creates a new {@link PdbFile} for the given {@link File}.
+     * Creates a new {@link PdbFile} for the given {@link File}. The file is read through
+     * a {@link FileSource}.
      *
      * @param file
      *            {@link File} to be opened
      */
     public PdbFile(File file) throws FileNotFoundException {
-        super(file, "r");
+        this(new FileSource(file));
+    }
+
+    /**
+     * Creates a new {@link PdbFile} for the given {@link File}, optionally opened for
+     * writing. A writable file can be updated in place by a {@link PdbUpdater}.
+     *
+     * @param file
+     *            {@link File} to be opened
+     * @param writable
+     *            {@code true} to open the file for reading and writing
+     * @see #openUpdater()
+     */
+    public PdbFile(File file, boolean writable) throws FileNotFoundException {
+        this(new FileSource(file, writable));
+    }
+
+    /**
+     * Creates a new {@link PdbFile} that reads from the given {@link PdbSource}. The
+     * source is closed when the {@link PdbFile} is closed.
+     *
+     * @param source
+     *            {@link PdbSource} to read from
+     */
+    public PdbFile(PdbSource source) {
+        this.source = source;
+        this.view = false;
+        this.bufferSize = BUFFER_SIZE;
+
+        ByteBuffer content = source.getBuffer();
+        if (content != null) {
+            this.resident = content.duplicate().order(ByteOrder.BIG_ENDIAN);
+            this.buffer = resident;
+        } else {
+            this.resident = null;
+            this.buffer = ByteBuffer.allocate(0);
+        }
+    }
+
+    /**
+     * Creates a view on the given {@link PdbFile}. The view shares the source, but has
+     * its own file pointer and a snapshot of the {@link CalendarFactory} time zone, so it
+     * can be used in a different thread. The given part of the file is read into the
+     * buffer with a single read. Closing the view does not close the source.
+     *
+     * @param parent
+     *            {@link PdbFile} to create a view of
+     * @param position
+     *            Initial file pointer position
+     * @param length
+     *            Number of bytes that are expected to be read
+     */
+    PdbFile(PdbFile parent, long position, int length) throws IOException {
+        this.source = parent.source;
+        this.view = true;
+        this.cf = parent.cf.snapshot();
+        this.readListener = parent.readListener;
+
+        if (parent.resident != null) {
+            this.resident = parent.resident.duplicate().order(ByteOrder.BIG_ENDIAN);
+            this.bufferSize = BUFFER_SIZE;
+            this.buffer = resident;
+        } else {
+            this.resident = null;
+            this.bufferSize = Math.max(length, MIN_VIEW_BUFFER_SIZE);
+            this.buffer = ByteBuffer.allocate(0);
+        }
+
+        seek(position);
     }
 
+    /**
+     * {@link PdbReadListener} that is notified while reading the database. Views that
+     * are created afterwards use the same listener. {@code null} disables the
+     * notifications, which is the default.
+     */
+    public PdbReadListener getReadListener()    { return readListener; }
+    public void setReadListener(PdbReadListener readListener) { this.readListener = readListener; }
+
     /**
      * Reads the entire database file and returns a {@link PdbDatabase}. You usually want
      * to invoke this method, as the other methods are just helpers.
@@ -70,35 +167,184 @@ public class PdbFile extends RandomAccessFile {
      *             convert the file's contents.
      */
     public <T extends Record, U extends AppInfo> PdbDatabase<T, U> readDatabase(Converter<T, U> converter)
+    throws IOException {
+        return readDatabase(converter, new RecordFilter());
+    }
+
+    /**
+     * Reads the database file and returns a {@link PdbDatabase}. Only the records that
+     * are accepted by the {@link RecordFilter} are read and converted.
+     *
+     * @param <T>
+     *            {@link Record} subclass the database shall consist of
+     * @param converter
+     *            {@link Converter} that converts the raw database entries into
+     *            {@link Record} objects
+     * @param filter
+     *            {@link RecordFilter} that selects the records to be read
+     * @return {@link PdbDatabase} containing the file contents
+     * @throws IOException
+     *             The file could not be read, or a record could not be converted.
+     */
+    public <T extends Record, U extends AppInfo> PdbDatabase<T, U> readDatabase(Converter<T, U> converter, RecordFilter filter)
+    throws IOException {
+        return readDatabase(converter, filter, null, false);
+    }
+
+    /**
+     * Reads the entire database file and returns a {@link PdbDatabase}. The records are
+     * converted in parallel, using the given {@link Executor}. The records are still
+     * returned in the order of their index.
+     * <p>
+     * The converter is invoked concurrently, so it must be thread safe. All converters of
+     * this library are thread safe. The {@link PdbSource} must be able to read at
+     * random positions, so a {@link org.shredzone.commons.pdb.source.StreamSource}
+     * cannot be used. The worker threads read dates with the {@link java.util.TimeZone}
+     * of this {@link PdbFile}'s {@link CalendarFactory}.
+     * <p>
+     * Parallel conversion pays off for large databases with records that are expensive
+     * to convert, like address records with many fields.
+     *
+     * @param <T>
+     *            {@link Record} subclass the database shall consist of
+     * @param converter
+     *            {@link Converter} that converts the raw database entries into
+     *            {@link Record} objects
+     * @param executor
+     *            {@link Executor} that runs the conversion tasks, for example a
+     *            {@link java.util.concurrent.ForkJoinPool}
+     * @return {@link PdbDatabase} containing the file contents
+     * @throws IOException
+     *             The file could not be read, or a record could not be converted.
+     */
+    public <T extends Record, U extends AppInfo> PdbDatabase<T, U> readDatabase(Converter<T, U> converter, Executor executor)
+    throws IOException {
+        return readDatabase(converter, new RecordFilter(), executor);
+    }
+
+    /**
+     * Reads the database file and returns a {@link PdbDatabase}. Only the records that
+     * are accepted by the {@link RecordFilter} are read, and they are converted in
+     * parallel. See {@link #readDatabase(Converter, Executor)}.
+     *
+     * @param <T>
+     *            {@link Record} subclass the database shall consist of
+     * @param converter
+     *            {@link Converter} that converts the raw database entries into
+     *            {@link Record} objects
+     * @param filter
+     *            {@link RecordFilter} that selects the records to be read
+     * @param executor
+     *            {@link Executor} that runs the conversion tasks
+     * @return {@link PdbDatabase} containing the file contents
+     * @throws IOException
+     *             The file could not be read, or a record could not be converted.
+     */
+    public <T extends Record, U extends AppInfo> PdbDatabase<T, U> readDatabase(Converter<T, U> converter,
+                RecordFilter filter, Executor executor)
+    throws IOException {
+        return readDatabase(converter, filter, executor, true);
+    }
+
+    /**
+     * Reads the database file, and notifies the {@link PdbReadListener}.
+     *
+     * @param converter
+     *            {@link Converter} that converts the records
+     * @param filter
+     *            {@link RecordFilter} that selects the records to be read
+     * @param executor
+     *            {@link Executor} that runs the conversion tasks
+     * @param parallel
+     *            {@code true} if the records are to be converted by the executor
+     * @return {@link PdbDatabase} containing the file contents
+     */
+    private <T extends Record, U extends AppInfo> PdbDatabase<T, U> readDatabase(Converter<T, U> converter,
+                RecordFilter filter, Executor executor, boolean parallel)
+    throws IOException {
+        PdbReadListener listener = readListener;
+        long start = 0L;
+        if (listener != null) {
+            listener.readStarted();
+            start = System.nanoTime();
+        }
+
+        PdbDatabase<T, U> result = null;
+        try {
+            PdbDatabaseReader<T, U> reader = openDatabase(converter, filter);
+            if (parallel) {
+                reader.readAll(executor);
+            } else {
+                reader.readAll();
+            }
+            result = reader.getDatabase();
+            return result;
+        } finally {
+            if (listener != null) {
+                listener.readCompleted(result, System.nanoTime() - start);
+            }
+        }
+    }
+
+    /**
+     * Opens the database for reading the records on demand. The database header, the
+     * appinfo and the record list are read immediately. The records are read and
+     * converted while iterating over the returned {@link PdbDatabaseReader}.
+     * <p>
+     * In contrast to {@link #readDatabase(Converter)}, the records are not kept in
+     * memory, so large databases can be processed in constant memory.
+     *
+     * @param <T>
+     *            {@link Record} subclass the database shall consist of
+     * @param converter
+     *            {@link Converter} that converts the raw database entries into
+     *            {@link Record} objects
+     * @return {@link PdbDatabaseReader} for reading the records
+     * @throws IOException
+     *             The file could not be read, or the converter does not accept the
+     *             database.
+     */
+    public <T extends Record, U extends AppInfo> PdbDatabaseReader<T, U> openDatabase(Converter<T, U> converter)
+    throws IOException {
+        return openDatabase(converter, new RecordFilter());
+    }
+
+    /**
+     * Opens the database for reading the records on demand. Only the records that are
+     * accepted by the {@link RecordFilter} are read and converted. See
+     * {@link #openDatabase(Converter)}.
+     *
+     * @param <T>
+     *            {@link Record} subclass the database shall consist of
+     * @param converter
+     *            {@link Converter} that converts the raw database entries into
+     *            {@link Record} objects
+     * @param filter
+     *            {@link RecordFilter} that selects the records to be read
+     * @return {@link PdbDatabaseReader} for reading the records
+     * @throws IOException
+     *             The file could not be read, or the converter does not accept the
+     *             database.
+     */
+    public <T extends Record, U extends AppInfo> PdbDatabaseReader<T, U> openDatabase(Converter<T, U> converter,
+                RecordFilter filter)
     throws IOException {
         PdbDatabase<T, U> result = new PdbDatabase<>();
+        long time = readListener != null ? System.nanoTime() : 0L;
 
         // Read the database header
-        seek(0);
-        result.setName(readTerminatedFixedString(32));
-        result.setAttributes(readShort());
-        result.setVersion(readShort());
-        result.setCreationTime(readDate());
-        result.setModificationTime(readDate());
-        result.setBackupTime(readDate());
-        result.setModificationNumber(readInt());
-        int appInfoPos = readInt();
-        int sortInfoPos = readInt();
-        result.setType(readFixedString(4));
-        result.setCreator(readFixedString(4));
-        readInt();                              // Unique ID seed
-        readInt();                              // Next index
-        int records = readShort();
+        PdbHeader header = readHeader();
+        header.copyTo(result);
+        result.setTimeZone(cf.getTimeZone());
+        int appInfoPos = header.getAppInfoOffset();
+        int sortInfoPos = header.getSortInfoOffset();
+        int records = header.getRecordCount();
+        time = completePhase(PdbReadListener.Phase.HEADER, time);
 
         // Read the entire record list
-        int[] offsets = new int[records];
-        int[] attributes = new int[records];
-        for (int ix = 0; ix < records; ix++) {
-            offsets[ix] = readInt();
-            attributes[ix] = readUnsignedByte();
-            readByte();
-            readShort();
-        }
+        seek(PdbHeader.SIZE);
+        RecordList recordList = new RecordList(this, records);
+        time = completePhase(PdbReadListener.Phase.RECORD_LIST, time);
 
         // Ask converter if it accepts the content
         if (!converter.isAcceptable(result)) {
@@ -106,38 +352,416 @@ public class PdbFile extends RandomAccessFile {
         }
 
         // Read appInfo if available
+        int appInfoSize = 0;
         if (appInfoPos > 0) {
-            int endPos = (records > 0) ? offsets[0] : (int) length();
+            int endPos = (records > 0) ? recordList.getFirstOffset() : (int) length();
             if (sortInfoPos > appInfoPos && sortInfoPos < endPos) {
                 endPos = sortInfoPos;
             }
-            int size = endPos - appInfoPos;
+            appInfoSize = endPos - appInfoPos;
 
             seek(appInfoPos);
-            result.setAppInfo(converter.convertAppInfo(this, size, result));
+            result.setAppInfo(converter.convertAppInfo(this, appInfoSize, result));
+            completePhase(PdbReadListener.Phase.APP_INFO, time);
         }
 
-        // Read each record
-        for (int ix = 0; ix < records; ix++) {
-            if (offsets[ix] >= length()) {
-                continue;
+        // Keep the raw sortInfo if available, it ends at the next area of the file
+        if (sortInfoPos > 0) {
+            int endPos = (int) length();
+            if (appInfoPos > sortInfoPos && appInfoPos < endPos) {
+                endPos = appInfoPos;
+            }
+            for (int ix = 0; ix < records; ix++) {
+                int offset = recordList.getOffset(ix);
+                if (offset >= sortInfoPos && offset < endPos) {
+                    endPos = offset;
+                }
             }
+            byte[] sortInfo = new byte[Math.max(endPos - sortInfoPos, 0)];
+            seek(sortInfoPos);
+            readFully(sortInfo);
+            result.setSortInfo(sortInfo);
+        }
 
-            int size;
-            if (ix < records - 1) {
-                size = offsets[ix + 1] - offsets[ix];
-            } else {
-                size = ((int) length()) - offsets[ix];
+        return new PdbDatabaseReader<>(this, converter, filter, result, recordList, appInfoPos, appInfoSize);
+    }
+
+    /**
+     * Notifies the {@link PdbReadListener} that a phase was completed.
+     *
+     * @param phase
+     *            {@link PdbReadListener.Phase} that was completed
+     * @param start
+     *            Start time of the phase, in nanoseconds
+     * @return Start time of the next phase, or 0 if there is no listener
+     */
+    private long completePhase(PdbReadListener.Phase phase, long start) {
+        if (readListener == null) {
+            return 0L;
+        }
+
+        long now = System.nanoTime();
+        readListener.phaseCompleted(phase, now - start);
+        return now;
+    }
+
+    /**
+     * Opens a {@link PdbUpdater} for changing the file in place. The file must have been
+     * opened for writing.
+     *
+     * @return {@link PdbUpdater} of this file
+     * @throws IOException
+     *             if the file is not writable, or the record list could not be read
+     */
+    public PdbUpdater openUpdater() throws IOException {
+        return openUpdater(null);
+    }
+
+    /**
+     * Opens a {@link PdbUpdater} for changing the file in place. The file must have been
+     * opened for writing. See {@link #openUpdater()}.
+     *
+     * @param database
+     *            {@link PdbDatabase} that was read from this file. Its modification
+     *            number and time are updated along with the file. May be {@code null}.
+     * @return {@link PdbUpdater} of this file
+     * @throws IOException
+     *             if the file is not writable, or the record list could not be read
+     */
+    public PdbUpdater openUpdater(PdbDatabase<?, ?> database) throws IOException {
+        if (view || !(source instanceof WritablePdbSource)
+                        || !((WritablePdbSource) source).isWritable()) {
+            throw new IOException("file was not opened for writing");
+        }
+        return new PdbUpdater(this, (WritablePdbSource) source, database);
+    }
+
+    /**
+     * Reads only the fixed-size database header. This is much cheaper than opening the
+     * database, and is sufficient for finding out the type of the database. The file
+     * pointer is not changed.
+     *
+     * @return {@link PdbHeader} that was read
+     * @see PdbHeader#findConverter()
+     */
+    public PdbHeader readHeader() throws IOException {
+        byte[] data = new byte[PdbHeader.SIZE];
+        readFully(0L, data, 0, data.length);
+        return new PdbHeader(data);
+    }
+
+    /**
+     * Returns the current position in the file.
+     *
+     * @return Position, in bytes from the beginning of the file
+     */
+    public long getFilePointer() {
+        return bufferPos + buffer.position();
+    }
+
+    /**
+     * Sets the current position in the file. The position may be set beyond the end of
+     * the file.
+     *
+     * @param pos
+     *            New position, in bytes from the beginning of the file
+     */
+    public void seek(long pos) throws IOException {
+        if (pos < 0) {
+            throw new IOException("Negative seek offset");
+        }
+
+        if (pos >= bufferPos && pos <= bufferPos + buffer.limit()) {
+            buffer.position((int) (pos - bufferPos));
+        } else if (resident != null && pos <= resident.limit()) {
+            buffer = resident;
+            bufferPos = 0;
+            buffer.position((int) pos);
+        } else {
+            if (resident != null) {
+                buffer = ByteBuffer.allocate(0);
+            }
+            buffer.limit(0);
+            bufferPos = pos;
+        }
+    }
+
+    /**
+     * Returns the length of the file.
+     *
+     * @return Length of the file, in bytes
+     */
+    public long length() throws IOException {
+        return source.length();
+    }
+
+    /**
+     * Discards the buffered content, so it is read again from the source. Must be
+     * invoked after the source was changed.
+     */
+    void invalidate() {
+        if (resident == null) {
+            bufferPos = getFilePointer();
+            buffer.limit(0);
+        }
+    }
+
+    /**
+     * Gets the {@link CalendarFactory} that is used for reading dates.
+     */
+    CalendarFactory getCalendarFactory() {
+        return cf;
+    }
+
+    /**
+     * Creates an independent view of this {@link PdbFile}. The view reads from the same
+     * source, but has its own file pointer and buffer. It can be used by another thread
+     * without changing the state of this {@link PdbFile}. Closing the view does not close
+     * the source.
+     *
+     * @param position
+     *            Initial file pointer position of the view
+     * @param length
+     *            Number of bytes that are expected to be read from the view. They are
+     *            read with a single read. Further bytes can still be read, though.
+     * @return {@link PdbFile} view
+     */
+    public PdbFile view(long position, int length) throws IOException {
+        return new PdbFile(this, position, length);
+    }
+
+    /**
+     * Reads bytes from the given position into the array. The file pointer is not
+     * changed. This method is thread safe.
+     *
+     * @param position
+     *            Position to read from
+     * @param b
+     *            Array to read the data into
+     * @param off
+     *            Start offset in the array
+     * @param len
+     *            Number of bytes to be read
+     * @throws EOFException
+     *             if the end of file was reached before all bytes were read
+     */
+    public void readFully(long position, byte[] b, int off, int len) throws IOException {
+        ByteBuffer dst = ByteBuffer.wrap(b, off, len);
+        while (dst.hasRemaining()) {
+            if (readSource(dst, position + dst.position() - off) < 0) {
+                throw new EOFException();
+            }
+        }
+    }
+
+    /**
+     * Reads a byte.
+     *
+     * @return Byte that was read (0..255), or -1 if the end of the file was reached
+     */
+    public int read() throws IOException {
+        if (!buffer.hasRemaining() && fill(1) == 0) {
+            return -1;
+        }
+        return buffer.get() & 0xFF;
+    }
+
+    /**
+     * Reads up to {@code b.length} bytes into the array.
+     *
+     * @param b
+     *            Array to read the data into
+     * @return Number of bytes read, or -1 if the end of the file was reached
+     */
+    public int read(byte[] b) throws IOException {
+        return read(b, 0, b.length);
+    }
+
+    /**
+     * Reads up to {@code len} bytes into the array.
+     *
+     * @param b
+     *            Array to read the data into
+     * @param off
+     *            Start offset in the array
+     * @param len
+     *            Maximum number of bytes to be read
+     * @return Number of bytes read, or -1 if the end of the file was reached
+     */
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+
+        if (!buffer.hasRemaining()) {
+            if (resident == null && len >= bufferSize) {
+                // Large reads bypass the buffer
+                long pos = getFilePointer();
+                int read = readSource(ByteBuffer.wrap(b, off, len), pos);
+                if (read > 0) {
+                    buffer.limit(0);
+                    bufferPos = pos + read;
+                }
+                return read;
             }
 
-            seek(offsets[ix]);
-            T entry = converter.convert(this, ix, size, attributes[ix], result);
-            if (entry != null) {
-                result.getRecords().add(entry);
+            if (fill(1) == 0) {
+                return -1;
             }
         }
 
-        return result;
+        int read = Math.min(len, buffer.remaining());
+        buffer.get(b, off, read);
+        return read;
+    }
+
+    @Override
+    public void readFully(byte[] b) throws IOException {
+        readFully(b, 0, b.length);
+    }
+
+    @Override
+    public void readFully(byte[] b, int off, int len) throws IOException {
+        int n = 0;
+        while (n < len) {
+            int read = read(b, off + n, len - n);
+            if (read < 0) {
+                throw new EOFException();
+            }
+            n += read;
+        }
+    }
+
+    /**
+     * Skips bytes. As permitted by {@link DataInput#skipBytes(int)}, fewer bytes may be
+     * skipped: While a record is converted, it does not skip beyond the end of the
+     * record. If the file content is kept in memory, it does not skip beyond the end of
+     * file.
+     * <p>
+     * <em>NOTE:</em> Unlike {@link java.io.RandomAccessFile#skipBytes(int)}, other
+     * sources are not checked against the end of file, so the file length is never
+     * needed. The file pointer may then be moved beyond the end of file, and the next
+     * read throws an {@link EOFException}.
+     *
+     * @param n
+     *            Number of bytes to skip
+     * @return Number of bytes that were skipped
+     */
+    @Override
+    public int skipBytes(int n) throws IOException {
+        if (n <= 0) {
+            return 0;
+        }
+
+        long pos = getFilePointer();
+        long newPos = pos + n;
+        if (recordLimit >= 0) {
+            newPos = Math.min(newPos, recordLimit);
+        }
+        if (resident != null) {
+            newPos = Math.min(newPos, resident.limit());
+        }
+        if (newPos > pos) {
+            seek(newPos);
+            return (int) (newPos - pos);
+        }
+        return 0;
+    }
+
+    @Override
+    public boolean readBoolean() throws IOException {
+        return readByte() != 0;
+    }
+
+    @Override
+    public byte readByte() throws IOException {
+        require(1);
+        return buffer.get();
+    }
+
+    @Override
+    public int readUnsignedByte() throws IOException {
+        return readByte() & 0xFF;
+    }
+
+    @Override
+    public short readShort() throws IOException {
+        require(2);
+        return buffer.getShort();
+    }
+
+    @Override
+    public int readUnsignedShort() throws IOException {
+        return readShort() & 0xFFFF;
+    }
+
+    @Override
+    public char readChar() throws IOException {
+        require(2);
+        return buffer.getChar();
+    }
+
+    @Override
+    public int readInt() throws IOException {
+        require(4);
+        return buffer.getInt();
+    }
+
+    @Override
+    public long readLong() throws IOException {
+        require(8);
+        return buffer.getLong();
+    }
+
+    @Override
+    public float readFloat() throws IOException {
+        require(4);
+        return buffer.getFloat();
+    }
+
+    @Override
+    public double readDouble() throws IOException {
+        require(8);
+        return buffer.getDouble();
+    }
+
+    @Override
+    public String readLine() throws IOException {
+        StringBuilder sb = new StringBuilder();
+        int ch = read();
+        if (ch < 0) {
+            return null;
+        }
+
+        while (ch >= 0 && ch != '\n') {
+            if (ch == '\r') {
+                long pos = getFilePointer();
+                if (read() != '\n') {
+                    seek(pos);
+                }
+                break;
+            }
+            sb.append((char) ch);
+            ch = read();
+        }
+
+        return sb.toString();
+    }
+
+    @Override
+    public String readUTF() throws IOException {
+        return DataInputStream.readUTF(this);
+    }
+
+    /**
+     * Closes the {@link PdbFile} and the underlying {@link PdbSource}. If this is a view
+     * of another {@link PdbFile}, the source is left open.
+     */
+    @Override
+    public void close() throws IOException {
+        if (!view) {
+            source.close();
+        }
     }
 
     /**
@@ -150,7 +774,7 @@ public class PdbFile extends RandomAccessFile {
     public String readFixedString(int length) throws IOException {
         byte[] data = new byte[length];
         readFully(data);
-        return convertSpecialChars(new String(data, CHARSET));
+        return decodeFixedString(data, 0, length);
     }
 
     /**
@@ -165,31 +789,31 @@ public class PdbFile extends RandomAccessFile {
     public String readTerminatedFixedString(int length) throws IOException {
         byte[] data = new byte[length];
         readFully(data);
-        int pos = 0;
-        while (pos < length) {
-            if (data[pos] == 0) {
-                return new String(data, 0, pos, CHARSET);
-            }
-            pos++;
-        }
-        return convertSpecialChars(new String(data, CHARSET));
+        return decodeTerminatedFixedString(data, 0, length);
     }
 
     /**
      * Reads a string of a variable length that is null terminated.
+     * <p>
+     * The terminator is searched in the buffer, and the string is decoded in a single
+     * step. While a record is converted, the end of the record is treated as terminator
+     * if no null character was found before.
      *
      * @return String that was read
      */
     public String readTerminatedString() throws IOException {
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-
-        while(true) {
-            int ch = readByte();
-            if (ch == 0) break;
-            baos.write(ch);
-        }
+        int length = scanTerminatedString();
+        String result = PalmCharset.decode(buffer, buffer.position(), length);
+        consumeTerminatedString(length);
+        return result;
+    }
 
-        return convertSpecialChars(baos.toString(CHARSET));
+    /**
+     * Skips a string of a variable length that is null terminated. The string is not
+     * decoded.
+     */
+    public void skipTerminatedString() throws IOException {
+        consumeTerminatedString(scanTerminatedString());
     }
 
     /**
@@ -209,14 +833,16 @@ public class PdbFile extends RandomAccessFile {
      * @return Calendar that was read. May be {@code null} if no date was set.
      */
     public Calendar readDate() throws IOException {
-        long date = readUnsignedInt();
-        if (date > 0) {
-            Calendar result = cf.createPalmEpoch();
-            result.setTimeInMillis(result.getTimeInMillis() + (date * 1000L));
-            return result;
-        } else {
-            return null;
-        }
+        return cf.createFromTimestamp(readRawDate());
+    }
+
+    /**
+     * Reads a PalmOS date, without converting it to a {@link Calendar}.
+     *
+     * @return Seconds since the PalmOS epoch, or 0 if no date was set
+     */
+    public long readRawDate() throws IOException {
+        return readUnsignedInt();
     }
 
     /**
@@ -226,20 +852,17 @@ public class PdbFile extends RandomAccessFile {
      * was set. The time part is always midnight local time.
      */
     public Calendar readPackedDate() throws IOException {
-        int packed = readUnsignedShort();
-
-        if (packed == 0xFFFF) {
-            return null;
-        }
-
-        int year  = ((packed >> 9) & 0x007F) + CalendarFactory.EPOCH_YEAR;
-        int month = ((packed >> 5) & 0x000F);
-        int day   = ((packed     ) & 0x001F);
+        return cf.createFromPackedDate(readRawPackedDate());
+    }
 
-        Calendar cal = cf.create();
-        cal.clear();
-        cal.set(year, month - 1, day);
-        return cal;
+    /**
+     * Reads a packed PalmOS date, without converting it to a {@link Calendar}.
+     *
+     * @return Packed date, or {@link PalmDate#NO_DATE} if no date was set
+     * @see PalmDate
+     */
+    public int readRawPackedDate() throws IOException {
+        return readUnsignedShort();
     }
 
     /**
@@ -248,6 +871,16 @@ public class PdbFile extends RandomAccessFile {
      * @return Calendar that was read
      */
     public Calendar readDateTimeWords() throws IOException {
+        return cf.createFromLocalTimestamp(readRawDateTimeWords());
+    }
+
+    /**
+     * Reads a PalmOS date and time that is stored in seven words, without converting it
+     * to a {@link Calendar}.
+     *
+     * @return Seconds since the PalmOS epoch, in local time
+     */
+    public long readRawDateTimeWords() throws IOException {
         int second = readUnsignedShort();
         int minute = readUnsignedShort();
         int hour   = readUnsignedShort();
@@ -256,10 +889,7 @@ public class PdbFile extends RandomAccessFile {
         int year   = readUnsignedShort();   // 4 digits
         readUnsignedShort();                // day of week, to be ignored...
 
-        Calendar cal = cf.create();
-        cal.clear();
-        cal.set(year, month - 1, day, hour, minute, second);
-        return cal;
+        return PalmDate.toTimestamp(year, month, day, hour, minute, second);
     }
 
     /**
@@ -281,8 +911,8 @@ public class PdbFile extends RandomAccessFile {
         int renamed = readShort();
 
         // Read the category names
-        String[] catNames = new String[NUM_CATEGORIES];
-        for (int ix = 0; ix < NUM_CATEGORIES; ix++) {
+        String[] catNames = new String[CategoryAppInfo.NUM_CATEGORIES];
+        for (int ix = 0; ix < CategoryAppInfo.NUM_CATEGORIES; ix++) {
             String catName = readTerminatedFixedString(16);
             if (catName.length() > 0) {
                 catNames[ix] = catName;
@@ -290,17 +920,17 @@ public class PdbFile extends RandomAccessFile {
         }
 
         // Read the category keys
-        for (int ix = 0; ix < NUM_CATEGORIES; ix++) {
+        for (int ix = 0; ix < CategoryAppInfo.NUM_CATEGORIES; ix++) {
             int key = readByte();
 
             if (catNames[ix] != null) {
-                appInfo.getCategories().add(new Category(
+                appInfo.setCategory(ix, new Category(
                     catNames[ix],
                     key,
                     (renamed & (1 << ix)) != 0
                 ));
             } else {
-                appInfo.getCategories().add(null);
+                appInfo.setCategory(ix, null);
             }
         }
 
@@ -312,6 +942,169 @@ public class PdbFile extends RandomAccessFile {
         return (int) (endPos - startPos);
     }
 
+    /**
+     * Checks if there is at least one more byte to be read at the current position.
+     *
+     * @return {@code true} if the end of file was not reached yet
+     */
+    boolean hasRemaining() throws IOException {
+        return buffer.hasRemaining() || fill(1) > 0;
+    }
+
+    /**
+     * Searches the end of the null terminated string at the current position. When this
+     * method returns, the entire string is available in the buffer.
+     *
+     * @return Length of the string, in bytes, excluding the terminator
+     */
+    private int scanTerminatedString() throws IOException {
+        long start = getFilePointer();
+        long max = recordLimit >= 0 ? Math.max(recordLimit - start, 0L) : Long.MAX_VALUE;
+
+        int scanned = 0;
+        while (true) {
+            int available = (int) Math.min(buffer.remaining(), max);
+            int offset = buffer.position();
+            for (; scanned < available; scanned++) {
+                if (buffer.get(offset + scanned) == 0) {
+                    return scanned;
+                }
+            }
+
+            if (available == max) {
+                // End of the record was reached without terminator
+                return available;
+            }
+
+            int required = (int) Math.min(Math.max(available * 2L, bufferSize), max);
+            if (fill(required) <= available) {
+                throw new EOFException();
+            }
+        }
+    }
+
+    /**
+     * Skips a string that was found by {@link #scanTerminatedString()}, and its
+     * terminator if present.
+     *
+     * @param length
+     *            Length of the string, excluding the terminator
+     */
+    private void consumeTerminatedString(int length) {
+        long end = getFilePointer() + length;
+        boolean terminated = recordLimit < 0 || end < recordLimit;
+        buffer.position(buffer.position() + length + (terminated ? 1 : 0));
+    }
+
+    /**
+     * Sets the end position of the record that is currently converted. Terminated strings
+     * are not read beyond this position.
+     *
+     * @param recordLimit
+     *            End position of the record, or -1 if there is no limit
+     */
+    void setRecordLimit(long recordLimit) {
+        this.recordLimit = recordLimit;
+    }
+
+    /**
+     * Makes sure that at least the given number of bytes can be read from the buffer.
+     *
+     * @param required
+     *            Number of bytes required
+     * @throws EOFException
+     *             if the end of file was reached before
+     */
+    private void require(int required) throws IOException {
+        if (buffer.remaining() < required && fill(required) < required) {
+            throw new EOFException();
+        }
+    }
+
+    /**
+     * Refills the buffer from the current file position.
+     *
+     * @param required
+     *            Number of bytes that are required in the buffer
+     * @return Number of bytes that are available in the buffer. Less than
+     *         {@code required} if the end of file was reached.
+     */
+    private int fill(int required) throws IOException {
+        if (resident != null) {
+            // The resident buffer always contains everything up to the end of file
+            return buffer.remaining();
+        }
+
+        long pos = getFilePointer();
+        if (buffer.capacity() < required || buffer.capacity() == 0) {
+            buffer = ByteBuffer.allocate(Math.max(required, bufferSize));
+        }
+
+        buffer.clear();
+        bufferPos = pos;
+        while (buffer.position() < required) {
+            int read = readSource(buffer, pos + buffer.position());
+            if (read < 0) {
+                break;
+            }
+        }
+        buffer.flip();
+
+        return buffer.remaining();
+    }
+
+    /**
+     * Reads from the source, and notifies the {@link PdbReadListener}.
+     *
+     * @param dst
+     *            {@link ByteBuffer} to read into
+     * @param position
+     *            Position to read from
+     * @return Number of bytes read, or -1 if the end of file was reached
+     */
+    private int readSource(ByteBuffer dst, long position) throws IOException {
+        int read = source.read(dst, position);
+        if (readListener != null) {
+            readListener.sourceRead(read);
+        }
+        return read;
+    }
+
+    /**
+     * Decodes a string of a fixed length, not null terminated.
+     *
+     * @param data
+     *            Array containing the string
+     * @param offset
+     *            Start of the string in the array
+     * @param length
+     *            The length of the string
+     * @return Decoded string
+     */
+    static String decodeFixedString(byte[] data, int offset, int length) {
+        return PalmCharset.decode(data, offset, length);
+    }
+
+    /**
+     * Decodes a string of a fixed length that is null terminated. Everything including
+     * and after the terminator character is ignored.
+     *
+     * @param data
+     *            Array containing the string
+     * @param offset
+     *            Start of the string in the array
+     * @param length
+     *            The maximum length of the string
+     * @return Decoded string
+     */
+    static String decodeTerminatedFixedString(byte[] data, int offset, int length) {
+        int pos = 0;
+        while (pos < length && data[offset + pos] != 0) {
+            pos++;
+        }
+        return PalmCharset.decode(data, offset, pos);
+    }
+
     /**
      * Converts special PalmOS characters into their unicode equivalents. The string
      * methods of {@link PdbFile} will invoke this method by itself, so you usually do not
@@ -321,41 +1114,10 @@ public class PdbFile extends RandomAccessFile {
      * @param str
      *            String to be converted
      * @return Converted string
+     * @see PalmCharset
      */
     public static String convertSpecialChars(String str) {
-        return str
-                .replace('\u0018', '\u2026') // Ellipsis
-                .replace('\u0019', '\u2007') // Numeric Space
-                .replace('\u0080', '\u20AC') // Euro
-                .replace('\u0082', '\u201A') // Single Low Quotation Mark
-                .replace('\u0083', '\u0192') // Small F with Hook
-                .replace('\u0084', '\u201E') // Double Low Quotation Mark
-                .replace('\u0085', '\u2026') // Ellipsis
-                .replace('\u0086', '\u2020') // Dagger
-                .replace('\u0087', '\u2021') // Double Dagger
-                .replace('\u0088', '\u0302') // Combining Circumflex Accent
-                .replace('\u0089', '\u2030') // Per Mille
-                .replace('\u008A', '\u0160') // Capital S with Caron
-                .replace('\u008B', '\u2039') // Single Left-pointing Angle Quotation Mark
-                .replace('\u008C', '\u0152') // Capital Ligature OE
-                .replace('\u008D', '\u2662') // Diamond
-                .replace('\u008E', '\u2663') // Club
-                .replace('\u008F', '\u2661') // Heart
-                .replace('\u0090', '\u2660') // Spade
-                .replace('\u0091', '\u2018') // Left Single Quotation Mark
-                .replace('\u0092', '\u2019') // Right Single Quotation Mark
-                .replace('\u0093', '\u201C') // Left Double Quotation Mark
-                .replace('\u0094', '\u201D') // Right Double Quotation Mark
-                .replace('\u0095', '\u2219') // Bullet
-                .replace('\u0096', '\u2011') // Non-breaking Hyphen
-                .replace('\u0097', '\u2012') // Figure Dash
-                .replace('\u0098', '\u0303') // Combining Tilde
-                .replace('\u0099', '\u2122') // Trademark
-                .replace('\u009A', '\u0161') // Small S with Caron
-                .replace('\u009B', '\u203A') // Single Right-pointing Angle Quotation Mark
-                .replace('\u009C', '\u0153') // Small Ligature OE
-                .replace('\u009F', '\u0178') // Capital Y with Diaeresis
-                ;
+        return PalmCharset.convert(str);
     }
 
 }
@@ -0,0 +1,233 @@
+/*
+ * Shredzone Commons - pdb
+ *
+ * Copyright (C) 2009 Richard "Shred" Körber
+ *   http://commons.shredzone.org
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Library General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Library General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.shredzone.commons.pdb;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Calendar;
+
+import org.shredzone.commons.pdb.appinfo.AppInfo;
+import org.shredzone.commons.pdb.converter.AddressConverter;
+import org.shredzone.commons.pdb.converter.Converter;
+import org.shredzone.commons.pdb.converter.MemoConverter;
+import org.shredzone.commons.pdb.converter.NotepadConverter;
+import org.shredzone.commons.pdb.converter.ScheduleConverter;
+import org.shredzone.commons.pdb.converter.TodoConverter;
+import org.shredzone.commons.pdb.record.Record;
+
+/**
+ * The fixed-size header of a PDB file. It is read by {@link PdbFile#readHeader()}, and
+ * can be used for quickly classifying PDB files without reading the record list.
+ * <p>
+ * Timestamps are kept in their raw form, and are only converted to {@link Calendar}
+ * when requested.
+ */
+public class PdbHeader {
+
+    /**
+     * Size of the header, in bytes.
+     */
+    public static final int SIZE = 78;
+
+    private final String name;
+    private final int attributes;
+    private final int version;
+    private final long creationTime;
+    private final long modificationTime;
+    private final long backupTime;
+    private final int modificationNumber;
+    private final int appInfoOffset;
+    private final int sortInfoOffset;
+    private final String type;
+    private final String creator;
+    private final int uniqueIdSeed;
+    private final int recordCount;
+
+    /**
+     * Creates a new {@link PdbHeader}.
+     *
+     * @param data
+     *            The raw header, {@link #SIZE} bytes
+     */
+    PdbHeader(byte[] data) {
+        ByteBuffer buf = ByteBuffer.wrap(data);
+        name = PdbFile.decodeTerminatedFixedString(data, 0, 32);
+        attributes = buf.getShort(32) & 0xFFFF;
+        version = buf.getShort(34) & 0xFFFF;
+        creationTime = buf.getInt(36) & 0xFFFFFFFFL;
+        modificationTime = buf.getInt(40) & 0xFFFFFFFFL;
+        backupTime = buf.getInt(44) & 0xFFFFFFFFL;
+        modificationNumber = buf.getInt(48);
+        appInfoOffset = buf.getInt(52);
+        sortInfoOffset = buf.getInt(56);
+        type = PdbFile.decodeFixedString(data, 60, 4);
+        creator = PdbFile.decodeFixedString(data, 64, 4);
+        uniqueIdSeed = buf.getInt(68);
+        // int at 72 is the next record list ID, which is always 0
+        recordCount = buf.getShort(76) & 0xFFFF;
+    }
+
+    /**
+     * Gets the database name (for example "CalendarDB-PDat").
+     */
+    public String getName()                     { return name; }
+
+    /**
+     * Gets the attributes of the database. See ATTR constants of {@link PdbDatabase}.
+     */
+    public int getAttributes()                  { return attributes; }
+
+    /**
+     * Gets the database version.
+     */
+    public int getVersion()                     { return version; }
+
+    /**
+     * Gets the creation time, in seconds since the PalmOS epoch.
+     */
+    public long getRawCreationTime()            { return creationTime; }
+
+    /**
+     * Gets the modification time, in seconds since the PalmOS epoch.
+     */
+    public long getRawModificationTime()        { return modificationTime; }
+
+    /**
+     * Gets the backup time, in seconds since the PalmOS epoch. 0 if the database has not
+     * been backed up yet.
+     */
+    public long getRawBackupTime()              { return backupTime; }
+
+    /**
+     * Gets the creation time of the database.
+     */
+    public Calendar getCreationTime() {
+        return CalendarFactory.getInstance().createFromTimestamp(creationTime);
+    }
+
+    /**
+     * Gets the modification time of the database.
+     */
+    public Calendar getModificationTime() {
+        return CalendarFactory.getInstance().createFromTimestamp(modificationTime);
+    }
+
+    /**
+     * Gets the backup time of the database. {@code null} if the database has not been
+     * backed up yet.
+     */
+    public Calendar getBackupTime() {
+        return CalendarFactory.getInstance().createFromTimestamp(backupTime);
+    }
+
+    /**
+     * Gets the modification number.
+     */
+    public int getModificationNumber()          { return modificationNumber; }
+
+    /**
+     * Gets the offset of the appinfo area. 0 if there is no appinfo area.
+     */
+    public int getAppInfoOffset()               { return appInfoOffset; }
+
+    /**
+     * Gets the offset of the sortinfo area. 0 if there is no sortinfo area.
+     */
+    public int getSortInfoOffset()              { return sortInfoOffset; }
+
+    /**
+     * Gets the database type.
+     */
+    public String getType()                     { return type; }
+
+    /**
+     * Gets the database creator. For example "PDAT".
+     */
+    public String getCreator()                  { return creator; }
+
+    /**
+     * Gets the unique ID seed.
+     */
+    public int getUniqueIdSeed()                { return uniqueIdSeed; }
+
+    /**
+     * Gets the number of records in the record list.
+     */
+    public int getRecordCount()                 { return recordCount; }
+
+    /**
+     * Finds a built-in {@link Converter} that accepts this database.
+     *
+     * @return New instance of the matching {@link Converter}, or {@code null} if no
+     *         built-in converter accepts the database. In that case, the database can
+     *         still be read with a {@link org.shredzone.commons.pdb.converter.RawConverter}.
+     */
+    public Converter<?, ?> findConverter() {
+        Converter<?, ?>[] converters = {
+            new MemoConverter(),
+            new TodoConverter(),
+            new AddressConverter(),
+            new NotepadConverter(),
+            new ScheduleConverter(),
+        };
+
+        for (Converter<?, ?> converter : converters) {
+            if (accepts(converter)) {
+                return converter;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Copies the header information to the given {@link PdbDatabase}.
+     *
+     * @param database
+     *            {@link PdbDatabase} to copy the header to
+     */
+    void copyTo(PdbDatabase<?, ?> database) {
+        database.setName(name);
+        database.setAttributes(attributes);
+        database.setVersion(version);
+        database.setRawCreationTime(creationTime);
+        database.setRawModificationTime(modificationTime);
+        database.setRawBackupTime(backupTime);
+        database.setModificationNumber(modificationNumber);
+        database.setType(type);
+        database.setCreator(creator);
+    }
+
+    /**
+     * Checks if the converter accepts this database.
+     */
+    private <T extends Record, U extends AppInfo> boolean accepts(Converter<T, U> converter) {
+        PdbDatabase<T, U> database = new PdbDatabase<>();
+        copyTo(database);
+        return converter.isAcceptable(database);
+    }
+
+    @Override
+    public String toString() {
+        return "PdbHeader:[name='" + name + "' type=" + type + " creator=" + creator
+                + " records=" + recordCount + ']';
+    }
+
+}
@@ -0,0 +1,57 @@
+/*
+ * Shredzone Commons - pdb
+ *
+ * Copyright (C) 2009 Richard "Shred" Körber
+ *   http://commons.shredzone.org
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Library General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Library General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.shredzone.commons.pdb;
+
+import org.shredzone.commons.pdb.converter.Converter;
+import org.shredzone.commons.pdb.record.Record;
+
+/**
+ * A {@link PdbReadListener} that ignores all notifications. Extend it and only override
+ * the methods you need.
+ */
+public abstract class PdbReadAdapter implements PdbReadListener {
+
+    @Override
+    public void readStarted() {
+        // ignored
+    }
+
+    @Override
+    public void phaseCompleted(Phase phase, long nanos) {
+        // ignored
+    }
+
+    @Override
+    public void sourceRead(int bytes) {
+        // ignored
+    }
+
+    @Override
+    public void recordRead(Converter<?, ?> converter, int index, int size, Record record,
+                Outcome outcome, long nanos) {
+        // ignored
+    }
+
+    @Override
+    public void readCompleted(PdbDatabase<?, ?> database, long nanos) {
+        // ignored
+    }
+
+}
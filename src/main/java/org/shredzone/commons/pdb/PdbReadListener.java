@@ -0,0 +1,131 @@
+/*
+ * Shredzone Commons - pdb
+ *
+ * Copyright (C) 2009 Richard "Shred" Körber
+ *   http://commons.shredzone.org
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Library General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Library General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.shredzone.commons.pdb;
+
+import org.shredzone.commons.pdb.converter.Converter;
+import org.shredzone.commons.pdb.record.Record;
+
+/**
+ * Receives notifications about the progress of reading a database. It can be used for
+ * collecting metrics, like the time spent in each phase, the number of bytes read, and
+ * the conversion latency of the records.
+ * <p>
+ * A listener is set with {@link PdbFile#setReadListener(PdbReadListener)}. If no
+ * listener is set, no timings are taken at all. When records are converted in parallel,
+ * the listener is invoked concurrently, so it must be thread safe.
+ *
+ * @see PdbReadAdapter
+ * @see PdbReadStatistics
+ */
+public interface PdbReadListener {
+
+    /**
+     * Phases of reading a database.
+     */
+    enum Phase {
+        /** Reading the database header. */
+        HEADER,
+
+        /** Reading the record list. */
+        RECORD_LIST,
+
+        /** Reading and converting the appinfo area. */
+        APP_INFO,
+
+        /** Reading and converting all records. */
+        RECORDS
+    }
+
+    /**
+     * Outcome of reading a single record.
+     */
+    enum Outcome {
+        /** The record was converted. */
+        CONVERTED,
+
+        /** The record was converted to {@code null} because it is deleted. */
+        DELETED,
+
+        /** The record was converted to {@code null}, or is beyond the end of file. */
+        NULL,
+
+        /** The record was rejected by the {@link RecordFilter} and was not read. */
+        SKIPPED,
+
+        /** The converter failed with an exception. */
+        FAILED
+    }
+
+    /**
+     * Invoked when {@link PdbFile#readDatabase(Converter)} starts reading the database.
+     */
+    void readStarted();
+
+    /**
+     * Invoked when a phase of reading the database is completed.
+     *
+     * @param phase
+     *            {@link Phase} that was completed
+     * @param nanos
+     *            Time spent in this phase, in nanoseconds
+     */
+    void phaseCompleted(Phase phase, long nanos);
+
+    /**
+     * Invoked after each read from the {@link org.shredzone.commons.pdb.source.PdbSource}.
+     *
+     * @param bytes
+     *            Number of bytes that were read, or -1 if the end of file was reached
+     */
+    void sourceRead(int bytes);
+
+    /**
+     * Invoked after a record was read.
+     *
+     * @param converter
+     *            {@link Converter} that converted the record
+     * @param index
+     *            Record index
+     * @param size
+     *            Record size, in bytes, or -1 if the record was skipped
+     * @param record
+     *            The converted {@link Record}, or {@code null} if the record was not
+     *            converted
+     * @param outcome
+     *            {@link Outcome} of reading the record
+     * @param nanos
+     *            Time spent converting the record, in nanoseconds. 0 if the record was
+     *            skipped.
+     */
+    void recordRead(Converter<?, ?> converter, int index, int size, Record record,
+                Outcome outcome, long nanos);
+
+    /**
+     * Invoked when {@link PdbFile#readDatabase(Converter)} has finished reading the
+     * database.
+     *
+     * @param database
+     *            {@link PdbDatabase} that was read, or {@code null} if reading failed
+     * @param nanos
+     *            Total time spent reading the database, in nanoseconds
+     */
+    void readCompleted(PdbDatabase<?, ?> database, long nanos);
+
+}
@@ -0,0 +1,244 @@
+/*
+ * Shredzone Commons - pdb
+ *
+ * Copyright (C) 2009 Richard "Shred" Körber
+ *   http://commons.shredzone.org
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Library General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Library General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.shredzone.commons.pdb;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.shredzone.commons.pdb.converter.Converter;
+import org.shredzone.commons.pdb.record.Record;
+
+/**
+ * A {@link PdbReadListener} that collects statistics: the time spent in each phase, the
+ * number of source reads and bytes, the number of records by {@link Outcome}, and a
+ * latency histogram of each converter.
+ * <p>
+ * The statistics are thread safe, and can be shared by several {@link PdbFile}.
+ */
+public class PdbReadStatistics implements PdbReadListener {
+
+    private final AtomicLong databases = new AtomicLong();
+    private final AtomicLong failedDatabases = new AtomicLong();
+    private final AtomicLong readNanos = new AtomicLong();
+    private final AtomicLongArray phaseNanos = new AtomicLongArray(Phase.values().length);
+    private final AtomicLong readCalls = new AtomicLong();
+    private final AtomicLong bytesRead = new AtomicLong();
+    private final AtomicLongArray outcomes = new AtomicLongArray(Outcome.values().length);
+    private final ConcurrentMap<Class<?>, Histogram> latencies = new ConcurrentHashMap<>();
+
+    /**
+     * Number of databases that were read, and number of databases that failed.
+     */
+    public long getDatabases()                  { return databases.get(); }
+    public long getFailedDatabases()            { return failedDatabases.get(); }
+
+    /**
+     * Total time spent in {@link PdbFile#readDatabase(Converter)}, in nanoseconds.
+     */
+    public long getReadNanos()                  { return readNanos.get(); }
+
+    /**
+     * Number of reads from the source, and number of bytes read.
+     */
+    public long getReadCalls()                  { return readCalls.get(); }
+    public long getBytesRead()                  { return bytesRead.get(); }
+
+    /**
+     * Gets the total time spent in a phase.
+     *
+     * @param phase
+     *            {@link Phase}
+     * @return Time spent, in nanoseconds
+     */
+    public long getPhaseNanos(Phase phase) {
+        return phaseNanos.get(phase.ordinal());
+    }
+
+    /**
+     * Gets the number of records with the given outcome.
+     *
+     * @param outcome
+     *            {@link Outcome}
+     * @return Number of records
+     */
+    public long getRecordCount(Outcome outcome) {
+        return outcomes.get(outcome.ordinal());
+    }
+
+    /**
+     * Gets the conversion latency histograms, by the class of the {@link Converter}.
+     * Skipped records are not included.
+     *
+     * @return Unmodifiable map of converter classes and their {@link Histogram}
+     */
+    public Map<Class<?>, Histogram> getLatencies() {
+        return Collections.unmodifiableMap(latencies);
+    }
+
+    @Override
+    public void readStarted() {
+        // nothing to count
+    }
+
+    @Override
+    public void phaseCompleted(Phase phase, long nanos) {
+        phaseNanos.addAndGet(phase.ordinal(), nanos);
+    }
+
+    @Override
+    public void sourceRead(int bytes) {
+        readCalls.incrementAndGet();
+        if (bytes > 0) {
+            bytesRead.addAndGet(bytes);
+        }
+    }
+
+    @Override
+    public void recordRead(Converter<?, ?> converter, int index, int size, Record record,
+                Outcome outcome, long nanos) {
+        outcomes.incrementAndGet(outcome.ordinal());
+        if (outcome == Outcome.SKIPPED) {
+            return;
+        }
+
+        Class<?> type = converter.getClass();
+        Histogram histogram = latencies.get(type);
+        if (histogram == null) {
+            Histogram created = new Histogram();
+            histogram = latencies.putIfAbsent(type, created);
+            if (histogram == null) {
+                histogram = created;
+            }
+        }
+        histogram.add(nanos);
+    }
+
+    @Override
+    public void readCompleted(PdbDatabase<?, ?> database, long nanos) {
+        databases.incrementAndGet();
+        if (database == null) {
+            failedDatabases.incrementAndGet();
+        }
+        readNanos.addAndGet(nanos);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("databases=").append(getDatabases());
+        sb.append(", failed=").append(getFailedDatabases());
+        sb.append(", readNanos=").append(getReadNanos());
+        for (Phase phase : Phase.values()) {
+            sb.append(", ").append(phase).append('=').append(getPhaseNanos(phase));
+        }
+        sb.append(", readCalls=").append(getReadCalls());
+        sb.append(", bytesRead=").append(getBytesRead());
+        for (Outcome outcome : Outcome.values()) {
+            sb.append(", ").append(outcome).append('=').append(getRecordCount(outcome));
+        }
+        for (Map.Entry<Class<?>, Histogram> entry : latencies.entrySet()) {
+            sb.append(", ").append(entry.getKey().getSimpleName()).append('=').append(entry.getValue());
+        }
+        return sb.toString();
+    }
+
+    /**
+     * A latency histogram with buckets of powers of two. Bucket {@code n} counts the
+     * latencies from 2<sup>n-1</sup> up to 2<sup>n</sup>-1 nanoseconds, bucket 0 counts
+     * latencies of 0 nanoseconds.
+     */
+    public static class Histogram {
+        /**
+         * Number of buckets.
+         */
+        public static final int BUCKETS = 64;
+
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+        private final AtomicLong count = new AtomicLong();
+        private final AtomicLong totalNanos = new AtomicLong();
+        private final AtomicLong maxNanos = new AtomicLong();
+
+        /**
+         * Number of latencies, their sum and their maximum, in nanoseconds.
+         */
+        public long getCount()                  { return count.get(); }
+        public long getTotalNanos()             { return totalNanos.get(); }
+        public long getMaxNanos()               { return maxNanos.get(); }
+
+        /**
+         * Gets the number of latencies in a bucket.
+         *
+         * @param bucket
+         *            Bucket number, 0 to {@link #BUCKETS} - 1
+         * @return Number of latencies
+         */
+        public long getBucket(int bucket) {
+            return buckets.get(bucket);
+        }
+
+        /**
+         * Gets an upper bound of a percentile.
+         *
+         * @param percentile
+         *            Percentile, 0.0 to 1.0
+         * @return Upper bound of the latencies of that percentile, in nanoseconds
+         */
+        public long getPercentile(double percentile) {
+            long threshold = (long) Math.ceil(count.get() * percentile);
+            long sum = 0;
+            for (int ix = 0; ix < BUCKETS; ix++) {
+                sum += buckets.get(ix);
+                if (sum >= threshold && sum > 0) {
+                    return Math.min(ix == 0 ? 0L : (1L << ix) - 1, maxNanos.get());
+                }
+            }
+            return maxNanos.get();
+        }
+
+        /**
+         * Adds a latency.
+         *
+         * @param nanos
+         *            Latency, in nanoseconds
+         */
+        void add(long nanos) {
+            long value = Math.max(nanos, 0L);
+            buckets.incrementAndGet(Math.min(BUCKETS - Long.numberOfLeadingZeros(value), BUCKETS - 1));
+            count.incrementAndGet();
+            totalNanos.addAndGet(value);
+
+            long max = maxNanos.get();
+            while (value > max && !maxNanos.compareAndSet(max, value)) {
+                max = maxNanos.get();
+            }
+        }
+
+        @Override
+        public String toString() {
+            return "[count=" + getCount() + ", p50=" + getPercentile(0.5)
+                            + ", p99=" + getPercentile(0.99) + ", max=" + getMaxNanos() + "]";
+        }
+    }
+
+}
@@ -0,0 +1,375 @@
+/*
+ * Shredzone Commons - pdb
+ *
+ * Copyright (C) 2009 Richard "Shred" Körber
+ *   http://commons.shredzone.org
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Library General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Library General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.shredzone.commons.pdb;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Calendar;
+
+import org.shredzone.commons.pdb.record.AbstractRecord;
+import org.shredzone.commons.pdb.source.WritablePdbSource;
+
+/**
+ * Updates a PDB file in place. It is opened by {@link PdbFile#openUpdater()}.
+ * <p>
+ * Record attributes are patched in the record list. A record of unchanged size is
+ * overwritten in place. If the size changes, only the data behind the record is moved,
+ * and the offsets of the following records are fixed.
+ * <p>
+ * The modification number and time of the database are updated once by
+ * {@link #commit()}, which is also invoked when the updater is closed. Closing the
+ * updater does not close the {@link PdbFile}.
+ * <p>
+ * Views and {@link PdbDatabaseReader} of the {@link PdbFile} that were created before
+ * the change may see stale data. The record indexes are not changed by an update.
+ */
+public class PdbUpdater implements Closeable {
+
+    private static final int MODIFICATION_TIME_POS = 40;
+    private static final int MODIFICATION_NUMBER_POS = 48;
+    private static final int APPINFO_POS = 52;
+    private static final int SORTINFO_POS = 56;
+    private static final int RECORD_ENTRY_SIZE = 8;
+    private static final int MOVE_BUFFER_SIZE = 65536;
+
+    private final PdbFile file;
+    private final WritablePdbSource source;
+    private final PdbDatabase<?, ?> database;
+    private PdbHeader header;
+    private RecordList recordList;
+    private boolean modified;
+
+    /**
+     * Creates a new {@link PdbUpdater}.
+     *
+     * @param file
+     *            {@link PdbFile} to be updated
+     * @param source
+     *            {@link WritablePdbSource} of that file
+     * @param database
+     *            {@link PdbDatabase} to be kept in sync, or {@code null}
+     */
+    PdbUpdater(PdbFile file, WritablePdbSource source, PdbDatabase<?, ?> database) throws IOException {
+        this.file = file;
+        this.source = source;
+        this.database = database;
+        reload();
+    }
+
+    /**
+     * Returns the number of records.
+     */
+    public int size() {
+        return recordList.size();
+    }
+
+    /**
+     * Returns the attribute of a record.
+     *
+     * @param index
+     *            Record index
+     * @return Record attribute (unsigned byte)
+     */
+    public int getAttribute(int index) {
+        return recordList.getAttribute(index);
+    }
+
+    /**
+     * Changes the attribute of a record.
+     *
+     * @param index
+     *            Record index
+     * @param attribute
+     *            New record attribute (unsigned byte)
+     */
+    public void setAttribute(int index, int attribute) throws IOException {
+        checkIndex(index);
+        if (attribute < 0 || attribute > 0xFF) {
+            throw new IllegalArgumentException("attribute " + attribute + " is not an unsigned byte");
+        }
+        ByteBuffer buf = ByteBuffer.allocate(1);
+        buf.put(0, (byte) attribute);
+        writeFully(buf, getEntryPosition(index) + 4);
+        recordList.setAttribute(index, attribute);
+        changed();
+    }
+
+    /**
+     * Changes the category of a record. The other attribute bits are kept.
+     *
+     * @param index
+     *            Record index
+     * @param category
+     *            New category index (0..15)
+     */
+    public void setCategoryIndex(int index, int category) throws IOException {
+        checkIndex(index);
+        setAttribute(index, (getAttribute(index) & ~0x0F) | (category & 0x0F));
+    }
+
+    /**
+     * Changes the secret flag of a record. The other attribute bits are kept.
+     *
+     * @param index
+     *            Record index
+     * @param secret
+     *            {@code true} if the record is secret
+     */
+    public void setSecret(int index, boolean secret) throws IOException {
+        checkIndex(index);
+        int attribute = getAttribute(index);
+        if (secret) {
+            attribute |= AbstractRecord.ATTR_SECRET;
+        } else {
+            attribute &= ~AbstractRecord.ATTR_SECRET;
+        }
+        setAttribute(index, attribute);
+    }
+
+    /**
+     * Replaces the data of a record.
+     *
+     * @param index
+     *            Record index
+     * @param data
+     *            New record data, for example encoded by a
+     *            {@link org.shredzone.commons.pdb.converter.Encoder}
+     */
+    public void writeRecord(int index, byte[] data) throws IOException {
+        checkIndex(index);
+
+        long offset = recordList.getOffset(index);
+        int oldSize = getRecordSize(index);
+        int delta = data.length - oldSize;
+
+        if (delta != 0) {
+            long length = source.length();
+            if (length + delta > Integer.MAX_VALUE) {
+                throw new IOException("database too large");
+            }
+
+            moveTail(offset + oldSize, length, delta);
+            if (delta < 0) {
+                source.truncate(length + delta);
+            }
+            fixOffsets(index, offset, delta);
+        }
+
+        writeFully(ByteBuffer.wrap(data), offset);
+        changed();
+
+        if (delta != 0) {
+            reload();
+        }
+    }
+
+    /**
+     * Increments the modification number and sets the modification time to now, if the
+     * file was changed since the last commit. The {@link PdbDatabase} passed to
+     * {@link PdbFile#openUpdater(PdbDatabase)} is updated as well.
+     */
+    public void commit() throws IOException {
+        if (!modified) {
+            return;
+        }
+
+        int modificationNumber = header.getModificationNumber() + 1;
+        long modificationTime = file.getCalendarFactory().toTimestamp(Calendar.getInstance());
+
+        ByteBuffer buf = ByteBuffer.allocate(4);
+        buf.putInt(0, modificationNumber);
+        writeFully(buf, MODIFICATION_NUMBER_POS);
+        buf.clear();
+        buf.putInt(0, (int) modificationTime);
+        writeFully(buf, MODIFICATION_TIME_POS);
+
+        if (database != null) {
+            database.setModificationNumber(modificationNumber);
+            database.setRawModificationTime(modificationTime);
+        }
+
+        modified = false;
+        reload();
+    }
+
+    /**
+     * Commits the changes. The {@link PdbFile} is not closed.
+     */
+    @Override
+    public void close() throws IOException {
+        commit();
+    }
+
+    /**
+     * Moves the data from the given position to the end of the file.
+     *
+     * @param from
+     *            Start of the data to be moved
+     * @param end
+     *            End of the file
+     * @param delta
+     *            Number of bytes to move the data by
+     */
+    private void moveTail(long from, long end, int delta) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate((int) Math.min(MOVE_BUFFER_SIZE, Math.max(end - from, 1)));
+
+        if (delta > 0) {
+            // Move backwards, so the data is not overwritten before it was moved
+            long pos = end;
+            while (pos > from) {
+                int len = (int) Math.min(buf.capacity(), pos - from);
+                pos -= len;
+                move(buf, pos, len, delta);
+            }
+        } else {
+            long pos = from;
+            while (pos < end) {
+                int len = (int) Math.min(buf.capacity(), end - pos);
+                move(buf, pos, len, delta);
+                pos += len;
+            }
+        }
+    }
+
+    /**
+     * Moves a single block of data.
+     */
+    private void move(ByteBuffer buf, long pos, int len, int delta) throws IOException {
+        buf.clear().limit(len);
+        while (buf.hasRemaining()) {
+            if (source.read(buf, pos + buf.position()) < 0) {
+                throw new EOFException();
+            }
+        }
+        buf.flip();
+        writeFully(buf, pos + delta);
+    }
+
+    /**
+     * Fixes the offsets of all records following the changed record, and of the appinfo
+     * and sortinfo areas if they follow the record.
+     *
+     * @param index
+     *            Index of the changed record
+     * @param offset
+     *            Offset of the changed record
+     * @param delta
+     *            Change of the record size
+     */
+    private void fixOffsets(int index, long offset, int delta) throws IOException {
+        int records = recordList.size();
+        ByteBuffer list = ByteBuffer.allocate(records * RECORD_ENTRY_SIZE);
+        file.readFully(PdbHeader.SIZE, list.array(), 0, list.capacity());
+
+        boolean following = false;
+        for (int ox = 0; ox < records; ox++) {
+            int ix = recordList.getIndexByOffsetOrder(ox);
+            if (following) {
+                list.putInt(ix * RECORD_ENTRY_SIZE, recordList.getOffset(ix) + delta);
+            }
+            if (ix == index) {
+                following = true;
+            }
+        }
+        writeFully(list, PdbHeader.SIZE);
+
+        ByteBuffer pos = ByteBuffer.allocate(4);
+        if (header.getAppInfoOffset() > offset) {
+            pos.putInt(0, header.getAppInfoOffset() + delta);
+            writeFully(pos, APPINFO_POS);
+        }
+        if (header.getSortInfoOffset() > offset) {
+            pos.clear();
+            pos.putInt(0, header.getSortInfoOffset() + delta);
+            writeFully(pos, SORTINFO_POS);
+        }
+    }
+
+    /**
+     * Gets the size of a record. If the appinfo or sortinfo area follows the record, the
+     * record ends where the area starts.
+     *
+     * @param index
+     *            Record index
+     * @return Size of the record, in bytes
+     */
+    private int getRecordSize(int index) throws IOException {
+        int offset = recordList.getOffset(index);
+        int end = offset + recordList.getSize(index, file);
+        int appInfoOffset = header.getAppInfoOffset();
+        if (appInfoOffset > offset && appInfoOffset < end) {
+            end = appInfoOffset;
+        }
+        int sortInfoOffset = header.getSortInfoOffset();
+        if (sortInfoOffset > offset && sortInfoOffset < end) {
+            end = sortInfoOffset;
+        }
+        return end - offset;
+    }
+
+    /**
+     * Marks the file as modified, and discards the buffered content of the
+     * {@link PdbFile}.
+     */
+    private void changed() {
+        modified = true;
+        file.invalidate();
+    }
+
+    /**
+     * Reads the header and the record list again. The file pointer is not changed.
+     */
+    private void reload() throws IOException {
+        file.invalidate();
+        long pos = file.getFilePointer();
+        header = file.readHeader();
+        file.seek(PdbHeader.SIZE);
+        recordList = new RecordList(file, header.getRecordCount());
+        file.seek(pos);
+    }
+
+    /**
+     * Writes the entire buffer to the given position.
+     */
+    private void writeFully(ByteBuffer buf, long position) throws IOException {
+        while (buf.hasRemaining()) {
+            source.write(buf, position + buf.position());
+        }
+    }
+
+    /**
+     * Returns the position of a record list entry.
+     */
+    private static long getEntryPosition(int index) {
+        return PdbHeader.SIZE + (long) index * RECORD_ENTRY_SIZE;
+    }
+
+    /**
+     * Checks that the record index is valid.
+     */
+    private void checkIndex(int index) {
+        if (index < 0 || index >= recordList.size()) {
+            throw new IndexOutOfBoundsException("record index " + index + ", size " + recordList.size());
+        }
+    }
+
+}
@@ -0,0 +1,288 @@
+/*
+ * Shredzone Commons - pdb
+ *
+ * Copyright (C) 2009 Richard "Shred" Körber
+ *   http://commons.shredzone.org
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Library General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Library General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.shredzone.commons.pdb;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.shredzone.commons.pdb.appinfo.AppInfo;
+import org.shredzone.commons.pdb.converter.Encoder;
+import org.shredzone.commons.pdb.record.AbstractRecord;
+import org.shredzone.commons.pdb.record.Record;
+
+/**
+ * Writes a {@link PdbDatabase} as PDB file. This is the counterpart of {@link PdbFile}.
+ * <p>
+ * Each record is encoded into its own buffer. The header, the record list, the appinfo
+ * and sortinfo areas and the records are then written with a single gathering write, so
+ * the file content is never assembled in memory.
+ * <p>
+ * Records that were read from a database keep their unique IDs. Other records, and
+ * records with a unique ID that is already used, are assigned new unique IDs.
+ */
+public class PdbWriter implements Closeable {
+
+    private static final int RECORD_ENTRY_SIZE = 8;
+    private static final int LIST_PADDING = 2;
+    private static final int NAME_LENGTH = 32;
+    private static final int TYPE_LENGTH = 4;
+    private static final int MAX_UNIQUE_ID = 0xFFFFFF;
+
+    private final WritableByteChannel channel;
+
+    /**
+     * Creates a new {@link PdbWriter} for the given {@link File}. An existing file is
+     * overwritten.
+     *
+     * @param file
+     *            {@link File} to be written
+     */
+    public PdbWriter(File file) throws IOException {
+        this(new FileOutputStream(file).getChannel());
+    }
+
+    /**
+     * Creates a new {@link PdbWriter} that writes to the given {@link OutputStream}. The
+     * stream is closed when the {@link PdbWriter} is closed.
+     *
+     * @param out
+     *            {@link OutputStream} to write to
+     */
+    public PdbWriter(OutputStream out) {
+        this(Channels.newChannel(out));
+    }
+
+    /**
+     * Creates a new {@link PdbWriter} that writes to the given
+     * {@link WritableByteChannel}. The channel is closed when the {@link PdbWriter} is
+     * closed.
+     *
+     * @param channel
+     *            {@link WritableByteChannel} to write to
+     */
+    public PdbWriter(WritableByteChannel channel) {
+        this.channel = channel;
+    }
+
+    /**
+     * Writes the entire database.
+     *
+     * @param database
+     *            {@link PdbDatabase} to be written
+     * @param encoder
+     *            {@link Encoder} that converts the {@link Record} objects into raw
+     *            database entries
+     */
+    public <T extends Record, U extends AppInfo> void writeDatabase(PdbDatabase<T, U> database,
+                Encoder<T, U> encoder)
+    throws IOException {
+        List<T> records = database.getRecords();
+        int count = records.size();
+        if (count > 0xFFFF) {
+            throw new IOException("too many records: " + count);
+        }
+
+        // buffers[0] is the header and record list, followed by appinfo, sortinfo and records
+        ByteBuffer[] buffers = new ByteBuffer[count + 3];
+
+        U appInfo = database.getAppInfo();
+        if (appInfo != null) {
+            PdbDataOutput out = new PdbDataOutput();
+            encoder.encodeAppInfo(out, appInfo, database);
+            buffers[1] = out.toByteBuffer();
+        } else {
+            buffers[1] = ByteBuffer.allocate(0);
+        }
+
+        byte[] sortInfo = database.getSortInfo();
+        buffers[2] = ByteBuffer.wrap(sortInfo != null ? sortInfo : new byte[0]);
+
+        for (int ix = 0; ix < count; ix++) {
+            PdbDataOutput out = new PdbDataOutput();
+            encoder.encode(out, records.get(ix), database);
+            buffers[ix + 3] = out.toByteBuffer();
+        }
+
+        int listEnd = PdbHeader.SIZE + count * RECORD_ENTRY_SIZE + LIST_PADDING;
+        int appInfoOffset = appInfo != null ? listEnd : 0;
+        int sortInfoOffset = sortInfo != null ? listEnd + buffers[1].remaining() : 0;
+
+        int[] uniqueIds = assignUniqueIds(records);
+        int seed = 0;
+        for (int uniqueId : uniqueIds) {
+            seed = Math.max(seed, uniqueId);
+        }
+
+        PdbDataOutput head = new PdbDataOutput();
+        writeHeader(head, database, appInfoOffset, sortInfoOffset, count, seed + 1);
+
+        long offset = (long) listEnd + buffers[1].remaining() + buffers[2].remaining();
+        for (int ix = 0; ix < count; ix++) {
+            if (offset > Integer.MAX_VALUE) {
+                throw new IOException("database too large");
+            }
+            head.writeInt((int) offset);
+            head.writeByte(getAttribute(records.get(ix)));
+            head.writeByte(uniqueIds[ix] >> 16);
+            head.writeShort(uniqueIds[ix]);
+            offset += buffers[ix + 3].remaining();
+        }
+        head.writeShort(0);     // padding
+        buffers[0] = head.toByteBuffer();
+
+        write(buffers, offset);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Writes the database header.
+     *
+     * @param out
+     *            {@link PdbDataOutput} to write to
+     * @param database
+     *            {@link PdbDatabase} to take the attributes from
+     * @param appInfoOffset
+     *            Offset of the appinfo area, or 0 if there is none
+     * @param sortInfoOffset
+     *            Offset of the sortinfo area, or 0 if there is none
+     * @param count
+     *            Number of records
+     * @param seed
+     *            Unique ID seed
+     */
+    private void writeHeader(PdbDataOutput out, PdbDatabase<?, ?> database,
+                int appInfoOffset, int sortInfoOffset, int count, int seed) throws IOException {
+        out.writeTerminatedFixedString(database.getName(), NAME_LENGTH);
+        out.writeShort(database.getAttributes());
+        out.writeShort(database.getVersion());
+        out.writeInt((int) database.getRawCreationTime());
+        out.writeInt((int) database.getRawModificationTime());
+        out.writeInt((int) database.getRawBackupTime());
+        out.writeInt(database.getModificationNumber());
+        out.writeInt(appInfoOffset);
+        out.writeInt(sortInfoOffset);
+        out.writeFixedString(database.getType(), TYPE_LENGTH);
+        out.writeFixedString(database.getCreator(), TYPE_LENGTH);
+        out.writeInt(seed);     // unique ID seed
+        out.writeInt(0);        // next record list ID
+        out.writeShort(count);
+    }
+
+    /**
+     * Writes all buffers to the channel.
+     *
+     * @param buffers
+     *            Buffers to write
+     * @param total
+     *            Total number of bytes to be written
+     */
+    private void write(ByteBuffer[] buffers, long total) throws IOException {
+        if (channel instanceof GatheringByteChannel) {
+            GatheringByteChannel gathering = (GatheringByteChannel) channel;
+            long written = 0;
+            int first = 0;
+            while (written < total) {
+                written += gathering.write(buffers, first, buffers.length - first);
+                while (first < buffers.length && !buffers[first].hasRemaining()) {
+                    first++;
+                }
+            }
+        } else {
+            for (ByteBuffer buffer : buffers) {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the unique IDs of the records. Records without a valid unique ID, or with a
+     * unique ID that was already used by a previous record, get a new unique ID that is
+     * not used by any other record.
+     *
+     * @param records
+     *            Records to be written
+     * @return Unique IDs, in the order of the records
+     */
+    private static int[] assignUniqueIds(List<? extends Record> records) {
+        int count = records.size();
+        int[] uniqueIds = new int[count];
+        Set<Integer> used = new HashSet<>();
+        int max = 0;
+
+        for (int ix = 0; ix < count; ix++) {
+            Record record = records.get(ix);
+            int uniqueId = record instanceof AbstractRecord ? ((AbstractRecord) record).getUniqueId() : 0;
+            if (uniqueId > 0 && uniqueId <= MAX_UNIQUE_ID && used.add(uniqueId)) {
+                uniqueIds[ix] = uniqueId;
+                max = Math.max(max, uniqueId);
+            }
+        }
+
+        int next = max;
+        for (int ix = 0; ix < count; ix++) {
+            if (uniqueIds[ix] == 0) {
+                do {
+                    next = next < MAX_UNIQUE_ID ? next + 1 : 1;
+                } while (used.contains(next));
+                used.add(next);
+                uniqueIds[ix] = next;
+            }
+        }
+
+        return uniqueIds;
+    }
+
+    /**
+     * Gets the attribute byte of a record.
+     */
+    private static int getAttribute(Record record) {
+        int attribute = record.getCategoryIndex() & 0x0F;
+        if (record.isSecret()) {
+            attribute |= AbstractRecord.ATTR_SECRET;
+        }
+        if (record.isBusy()) {
+            attribute |= AbstractRecord.ATTR_BUSY;
+        }
+        if (record.isDirty()) {
+            attribute |= AbstractRecord.ATTR_DIRTY;
+        }
+        if (record.isDelete()) {
+            attribute |= AbstractRecord.ATTR_DELETE;
+        }
+        return attribute;
+    }
+
+}
@@ -0,0 +1,114 @@
+/*
+ * Shredzone Commons - pdb
+ *
+ * Copyright (C) 2009 Richard "Shred" Körber
+ *   http://commons.shredzone.org
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Library General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Library General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.shredzone.commons.pdb;
+
+import org.shredzone.commons.pdb.appinfo.AppInfo;
+import org.shredzone.commons.pdb.appinfo.CategoryAppInfo;
+import org.shredzone.commons.pdb.record.AbstractRecord;
+
+/**
+ * Selects the records to be read, by their attributes and their category.
+ * <p>
+ * The filter is evaluated on the record attributes in the record list, before the
+ * record itself is read. Records that are rejected are neither read nor converted. By
+ * default, all records are accepted.
+ */
+public class RecordFilter {
+
+    private static final int CATEGORY_MASK = 0x0F;
+    private static final int ANY_CATEGORY = -1;
+    private static final int NO_CATEGORY = -2;
+
+    private int categoryIndex = ANY_CATEGORY;
+    private String categoryName;
+    private boolean skipSecret;
+    private boolean skipDeleted;
+
+    /**
+     * Only accepts records of the category with the given index. -1 accepts all
+     * categories, which is the default.
+     */
+    public int getCategoryIndex()               { return categoryIndex; }
+    public void setCategoryIndex(int categoryIndex) { this.categoryIndex = categoryIndex; }
+
+    /**
+     * Only accepts records of the category with the given name. The name is resolved by
+     * the {@link CategoryAppInfo} of the database. If there is no such category, no
+     * record is accepted. {@code null} accepts all categories, which is the default.
+     * Takes precedence over the category index.
+     */
+    public String getCategoryName()             { return categoryName; }
+    public void setCategoryName(String categoryName) { this.categoryName = categoryName; }
+
+    /**
+     * Rejects records that are marked as secret.
+     */
+    public boolean isSkipSecret()               { return skipSecret; }
+    public void setSkipSecret(boolean skipSecret) { this.skipSecret = skipSecret; }
+
+    /**
+     * Rejects records that are marked as deleted.
+     */
+    public boolean isSkipDeleted()              { return skipDeleted; }
+    public void setSkipDeleted(boolean skipDeleted) { this.skipDeleted = skipDeleted; }
+
+    /**
+     * Resolves the category to be accepted.
+     *
+     * @param appInfo
+     *            {@link AppInfo} of the database, may be {@code null}
+     * @return Category index to be accepted, -1 if all categories are accepted, or -2 if
+     *         no category is accepted
+     */
+    int resolveCategory(AppInfo appInfo) {
+        if (categoryName == null) {
+            return categoryIndex;
+        }
+
+        if (appInfo instanceof CategoryAppInfo) {
+            int index = ((CategoryAppInfo) appInfo).findCategoryByName(categoryName);
+            if (index >= 0) {
+                return index;
+            }
+        }
+        return NO_CATEGORY;
+    }
+
+    /**
+     * Checks if a record is accepted.
+     *
+     * @param attribute
+     *            Attribute of the record
+     * @param category
+     *            Category index as returned by {@link #resolveCategory(AppInfo)}
+     * @return {@code true} if the record is accepted
+     */
+    boolean accepts(int attribute, int category) {
+        if (skipDeleted && (attribute & AbstractRecord.ATTR_DELETE) != 0) {
+            return false;
+        }
+        if (skipSecret && (attribute & AbstractRecord.ATTR_SECRET) != 0) {
+            return false;
+        }
+        return category == ANY_CATEGORY
+                || (category != NO_CATEGORY && (attribute & CATEGORY_MASK) == category);
+    }
+
+}
@@ -0,0 +1,171 @@
+/*
+ * Shredzone Commons - pdb
+ *
+ * Copyright (C) 2009 Richard "Shred" Körber
+ *   http://commons.shredzone.org
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Library General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Library General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.shredzone.commons.pdb;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * The record list of a PDB file. It contains the offset, attribute and unique ID of each
+ * record, stored in primitive arrays.
+ * <p>
+ * Instances are immutable and thread safe. The only exception is the instance of a
+ * {@link PdbUpdater}, which keeps its record attributes in sync with the file.
+ */
+class RecordList {
+
+    private final int[] offsets;
+    private final byte[] attributes;
+    private final int[] uniqueIds;
+    private final int[] order;
+    private final int[] next;
+    private volatile UniqueIdMap uniqueIdMap;
+
+    /**
+     * Reads the record list. The file pointer must be at the beginning of the list.
+     *
+     * @param reader
+     *            {@link PdbFile} to read from
+     * @param records
+     *            Number of records
+     */
+    RecordList(PdbFile reader, int records) throws IOException {
+        offsets = new int[records];
+        attributes = new byte[records];
+        uniqueIds = new int[records];
+        for (int ix = 0; ix < records; ix++) {
+            offsets[ix] = reader.readInt();
+            attributes[ix] = reader.readByte();
+            uniqueIds[ix] = reader.readUnsignedByte() << 16 | reader.readUnsignedShort();
+        }
+
+        order = sortByOffset(offsets);
+
+        next = new int[records];
+        for (int ox = 0; ox < records; ox++) {
+            next[order[ox]] = (ox < records - 1) ? offsets[order[ox + 1]] : -1;
+        }
+    }
+
+    /**
+     * Returns the number of records.
+     */
+    public int size()                           { return offsets.length; }
+
+    /**
+     * Returns the offset of a record.
+     */
+    public int getOffset(int index)             { return offsets[index]; }
+
+    /**
+     * Returns the attribute of a record.
+     */
+    public int getAttribute(int index)          { return attributes[index] & 0xFF; }
+
+    /**
+     * Changes the attribute of a record. Only to be used by {@link PdbUpdater}.
+     */
+    void setAttribute(int index, int attribute) { attributes[index] = (byte) attribute; }
+
+    /**
+     * Returns the unique ID of a record.
+     */
+    public int getUniqueId(int index)           { return uniqueIds[index]; }
+
+    /**
+     * Finds the index of the record with the given unique ID.
+     *
+     * @param uniqueId
+     *            Unique ID
+     * @return Record index, or -1 if there is no such record
+     */
+    public int findIndexByUniqueId(int uniqueId) {
+        UniqueIdMap map = uniqueIdMap;
+        if (map == null) {
+            // Racy, but harmless, as the map is immutable
+            map = new UniqueIdMap(uniqueIds);
+            uniqueIdMap = map;
+        }
+        return map.get(uniqueId);
+    }
+
+    /**
+     * Returns the index of the record at the given position, if the records are sorted
+     * by their offsets.
+     */
+    public int getIndexByOffsetOrder(int position) { return order[position]; }
+
+    /**
+     * Returns the offset of the first record in the file, or -1 if there are no records.
+     */
+    public int getFirstOffset() {
+        return order.length > 0 ? offsets[order[0]] : -1;
+    }
+
+    /**
+     * Returns the size of a record. The size of the last record in the file is computed
+     * from the file length.
+     *
+     * @param index
+     *            Record index
+     * @param reader
+     *            {@link PdbFile} the record list belongs to
+     * @return Size of the record, in bytes
+     */
+    public int getSize(int index, PdbFile reader) throws IOException {
+        int end = next[index];
+        if (end < 0) {
+            end = (int) reader.length();
+        }
+        return end - offsets[index];
+    }
+
+    /**
+     * Returns the record indexes, sorted by their offsets.
+     *
+     * @param offsets
+     *            Record offsets
+     * @return Record indexes in the order of ascending offsets
+     */
+    private static int[] sortByOffset(int[] offsets) {
+        int[] order = new int[offsets.length];
+        boolean sorted = true;
+        for (int ix = 0; ix < offsets.length; ix++) {
+            order[ix] = ix;
+            if (ix > 0 && offsets[ix] < offsets[ix - 1]) {
+                sorted = false;
+            }
+        }
+
+        if (!sorted) {
+            long[] keys = new long[offsets.length];
+            for (int ix = 0; ix < offsets.length; ix++) {
+                keys[ix] = ((long) offsets[ix] << 32) | ix;
+            }
+            Arrays.sort(keys);
+            for (int ix = 0; ix < offsets.length; ix++) {
+                order[ix] = (int) keys[ix];
+            }
+        }
+
+        return order;
+    }
+
+}
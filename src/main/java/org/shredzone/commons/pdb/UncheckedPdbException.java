@@ -0,0 +1,46 @@
+/*
+ * Shredzone Commons - pdb
+ *
+ * Copyright (C) 2009 Richard "Shred" Körber
+ *   http://commons.shredzone.org
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Library General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Library General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.shredzone.commons.pdb;
+
+import java.io.IOException;
+
+/**
+ * An unchecked exception that wraps an {@link IOException}. It is thrown by methods that
+ * cannot throw checked exceptions, like {@link java.util.Iterator#next()}.
+ */
+public class UncheckedPdbException extends RuntimeException {
+    private static final long serialVersionUID = 3829408263384541733L;
+
+    /**
+     * Creates a new {@link UncheckedPdbException}.
+     *
+     * @param cause
+     *            {@link IOException} that was thrown
+     */
+    public UncheckedPdbException(IOException cause) {
+        super(cause.getMessage(), cause);
+    }
+
+    @Override
+    public synchronized IOException getCause() {
+        return (IOException) super.getCause();
+    }
+
+}
@@ -0,0 +1,83 @@
+/*
+ * Shredzone Commons - pdb
+ *
+ * Copyright (C) 2009 Richard "Shred" Körber
+ *   http://commons.shredzone.org
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Library General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Library General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.shredzone.commons.pdb;
+
+/**
+ * Maps unique IDs to record indexes. It is an open addressing hash map with linear
+ * probing, working on primitive arrays only.
+ */
+final class UniqueIdMap {
+
+    private final int[] keys;
+    private final int[] values;
+    private final int mask;
+
+    /**
+     * Creates a new {@link UniqueIdMap}.
+     *
+     * @param uniqueIds
+     *            Unique IDs, in the order of the record index. If a unique ID is used
+     *            more than once, the first record is mapped.
+     */
+    UniqueIdMap(int[] uniqueIds) {
+        int capacity = Integer.highestOneBit(Math.max(uniqueIds.length, 1) * 2 - 1) << 1;
+        keys = new int[capacity];
+        values = new int[capacity];
+        mask = capacity - 1;
+
+        for (int ix = 0; ix < uniqueIds.length; ix++) {
+            int slot = slot(uniqueIds[ix]);
+            while (values[slot] != 0 && keys[slot] != uniqueIds[ix]) {
+                slot = (slot + 1) & mask;
+            }
+            if (values[slot] == 0) {
+                keys[slot] = uniqueIds[ix];
+                values[slot] = ix + 1;      // 0 marks an empty slot
+            }
+        }
+    }
+
+    /**
+     * Gets the record index of a unique ID.
+     *
+     * @param uniqueId
+     *            Unique ID to look up
+     * @return Record index, or -1 if there is no record with that unique ID
+     */
+    int get(int uniqueId) {
+        int slot = slot(uniqueId);
+        while (values[slot] != 0) {
+            if (keys[slot] == uniqueId) {
+                return values[slot] - 1;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the first slot of a unique ID.
+     */
+    private int slot(int uniqueId) {
+        int hash = uniqueId * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+
+}
@@ -19,20 +19,57 @@
  */
 package org.shredzone.commons.pdb.appinfo;
 
-import java.util.ArrayList;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
 
 /**
  * A standard {@link AppInfo} container that contains a list of category names.
+ * <p>
+ * The categories are kept in a fixed array, with lookup tables for the keys and names.
+ * The lookup tables are built on the first lookup after the categories were changed.
  */
 public class CategoryAppInfo implements AppInfo {
 
-    private List<Category> categories = new ArrayList<>();
+    /**
+     * Number of categories of a PalmOS database.
+     */
+    public static final int NUM_CATEGORIES = 16;
+
+    private final Category[] categories = new Category[NUM_CATEGORIES];
+    private final String[] names = new String[NUM_CATEGORIES];
+    private final byte[] keyIndex = new byte[256];
+    private final Map<String, Integer> nameIndex = new HashMap<>();
+    private final List<Category> categoryList = new CategoryList();
+    private int size;
+    private volatile boolean indexed;
+
+    /**
+     * Gets a list of categories. Unused categories are {@code null}. Changes to the list
+     * are written through to this container. The list cannot hold more than
+     * {@link #NUM_CATEGORIES} categories.
+     */
+    public List<Category> getCategories() {
+        return categoryList;
+    }
 
     /**
-     * Gets a list of category names.
+     * Sets a {@link Category}.
+     *
+     * @param index
+     *            Category index
+     * @param category
+     *            {@link Category}, or {@code null} if the category is unused
      */
-    public List<Category> getCategories()           { return categories; }
+    public void setCategory(int index, Category category) {
+        categories[index] = category;
+        names[index] = category != null ? category.getName() : null;
+        size = Math.max(size, index + 1);
+        indexed = false;
+    }
 
     /**
      * Finds a {@link Category} by its index.
@@ -42,7 +79,18 @@ public class CategoryAppInfo implements AppInfo {
      * @return {@link Category} or {@code null}
      */
     public Category getCategoryByIndex(int index) {
-        return categories.get(index);
+        return categories[index];
+    }
+
+    /**
+     * Gets the name of a category by its index.
+     *
+     * @param index
+     *            Category index
+     * @return Category name, or {@code null} if the category is unused
+     */
+    public String getCategoryName(int index) {
+        return names[index];
     }
 
     /**
@@ -53,12 +101,8 @@ public class CategoryAppInfo implements AppInfo {
      * @return {@link Category} or {@code null}
      */
     public Category getCategoryByKey(int key) {
-        for (Category cat : categories) {
-            if (cat != null && cat.getKey() == key) {
-                return cat;
-            }
-        }
-        return null;
+        int ix = findCategoryByKey(key);
+        return ix >= 0 ? categories[ix] : null;
     }
 
     /**
@@ -69,13 +113,11 @@ public class CategoryAppInfo implements AppInfo {
      * @return Index of that category, or -1 if there was none with that key.
      */
     public int findCategoryByKey(int key) {
-        for (int ix = 0; ix < categories.size(); ix++) {
-            Category cat = categories.get(ix);
-            if (cat != null && cat.getKey() == key) {
-                return ix;
-            }
+        ensureIndex();
+        int ix = keyIndex[key & 0xFF];
+        if (ix >= 0 && categories[ix].getKey() == key) {
+            return ix;
         }
-
         return -1;
     }
 
@@ -87,14 +129,104 @@ public class CategoryAppInfo implements AppInfo {
      * @return Index of that category, or -1 if there was none with that name.
      */
     public int findCategoryByName(String name) {
-        for (int ix = 0; ix < categories.size(); ix++) {
-            Category cat = categories.get(ix);
-            if (cat != null && cat.getName().equals(name)) {
-                return ix;
+        ensureIndex();
+        Integer ix = nameIndex.get(name);
+        return ix != null ? ix : -1;
+    }
+
+    /**
+     * Builds the key and name lookup tables if the categories were changed. If keys or
+     * names are used more than once, the category with the lowest index is found.
+     */
+    private void ensureIndex() {
+        if (indexed) {
+            return;
+        }
+
+        synchronized (this) {
+            if (!indexed) {
+                Arrays.fill(keyIndex, (byte) -1);
+                nameIndex.clear();
+                for (int ix = NUM_CATEGORIES - 1; ix >= 0; ix--) {
+                    Category cat = categories[ix];
+                    if (cat != null) {
+                        keyIndex[cat.getKey() & 0xFF] = (byte) ix;
+                        nameIndex.put(cat.getName(), ix);
+                    }
+                }
+                indexed = true;
             }
         }
+    }
 
-        return -1;
+    /**
+     * A list view of the categories, for compatibility with the former
+     * {@link java.util.ArrayList} of categories.
+     */
+    private class CategoryList extends AbstractList<Category> implements RandomAccess {
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public Category get(int index) {
+            checkIndex(index);
+            return categories[index];
+        }
+
+        @Override
+        public Category set(int index, Category category) {
+            checkIndex(index);
+            Category previous = categories[index];
+            setCategory(index, category);
+            return previous;
+        }
+
+        @Override
+        public void add(int index, Category category) {
+            if (index < 0 || index > size) {
+                throw new IndexOutOfBoundsException("index " + index + ", size " + size);
+            }
+            if (size >= NUM_CATEGORIES) {
+                throw new IllegalStateException("only " + NUM_CATEGORIES + " categories are permitted");
+            }
+            System.arraycopy(categories, index, categories, index + 1, size - index);
+            System.arraycopy(names, index, names, index + 1, size - index);
+            size++;
+            setCategory(index, category);
+            modCount++;
+        }
+
+        @Override
+        public Category remove(int index) {
+            checkIndex(index);
+            Category previous = categories[index];
+            System.arraycopy(categories, index + 1, categories, index, size - index - 1);
+            System.arraycopy(names, index + 1, names, index, size - index - 1);
+            size--;
+            categories[size] = null;
+            names[size] = null;
+            indexed = false;
+            modCount++;
+            return previous;
+        }
+
+        @Override
+        public void clear() {
+            Arrays.fill(categories, null);
+            Arrays.fill(names, null);
+            size = 0;
+            indexed = false;
+            modCount++;
+        }
+
+        private void checkIndex(int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("index " + index + ", size " + size);
+            }
+        }
     }
 
     /**
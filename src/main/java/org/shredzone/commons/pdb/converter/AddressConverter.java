@@ -20,7 +20,11 @@
 package org.shredzone.commons.pdb.converter;
 
 import java.io.IOException;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
 
+import org.shredzone.commons.pdb.EncodedStrings;
 import org.shredzone.commons.pdb.PdbDatabase;
 import org.shredzone.commons.pdb.PdbFile;
 import org.shredzone.commons.pdb.appinfo.AddressAppInfo;
@@ -33,18 +37,39 @@ import org.shredzone.commons.pdb.record.AddressRecord;
  */
 public class AddressConverter implements Converter<AddressRecord, AddressAppInfo> {
 
-    private static final String[] COUNTRIES = { "AU", "AT", "BE", "BR", "CA",
+    static final String[] COUNTRIES = { "AU", "AT", "BE", "BR", "CA",
             "DK", "FI", "FR", "DE", "HK", "IS", "IE", "IT", "JP", "LU", "MX",
             "NL", "NZ", "NO", "ES", "SE", "CH", "GB", "US", };
 
-    private static final AddressRecord.Label[] PHONE_LABELS = {
+    static final AddressRecord.Label[] PHONE_LABELS = {
         AddressRecord.Label.PHONE1, AddressRecord.Label.PHONE2,
         AddressRecord.Label.PHONE3, AddressRecord.Label.PHONE4,
         AddressRecord.Label.PHONE5, AddressRecord.Label.PHONE6,
         AddressRecord.Label.PHONE7, AddressRecord.Label.PHONE8,
     };
 
-    private static final int LABEL_LENGTH = 16;
+    static final int LABEL_LENGTH = 16;
+
+    private final EnumSet<AddressRecord.Field> fields = EnumSet.allOf(AddressRecord.Field.class);
+    private boolean lazy;
+
+    /**
+     * The fields to be read. Fields that are not contained are skipped without being
+     * decoded, and remain unset in the record. By default, all fields are read.
+     */
+    public Set<AddressRecord.Field> getFields() { return Collections.unmodifiableSet(fields); }
+    public void setFields(Set<AddressRecord.Field> fields) {
+        this.fields.clear();
+        this.fields.addAll(fields);
+    }
+
+    /**
+     * If set, the fields of the records are not decoded when the database is read, but
+     * when they are accessed for the first time. It saves time if only a few fields are
+     * used, but the encoded record data is kept in memory.
+     */
+    public boolean isLazy()                     { return lazy; }
+    public void setLazy(boolean lazy)           { this.lazy = lazy; }
 
     @Override
     public boolean isAcceptable(
@@ -57,6 +82,7 @@ public class AddressConverter implements Converter<AddressRecord, AddressAppInfo
     public AddressRecord convert(PdbFile reader, int record, int size, int attribute,
             PdbDatabase<AddressRecord, AddressAppInfo> database)
             throws IOException {
+        long start = reader.getFilePointer();
 
         AddressRecord result = new AddressRecord(attribute);
         if (result.isDelete()) {
@@ -67,12 +93,40 @@ public class AddressConverter implements Converter<AddressRecord, AddressAppInfo
         int fieldMap = reader.readInt();
         reader.readByte();
 
-        AddressRecord.Field[] fields = AddressRecord.Field.values();
+        AddressRecord.Field[] allFields = AddressRecord.Field.values();
         AddressRecord.Label[] labels = AddressRecord.Label.values();
-        for (int ix = 0; ix < fields.length; ix++) {
-            if ((fieldMap & (1 << ix)) != 0) {
-                result.setLabel(fields[ix], mapLabel(labels[ix], phoneFlags));
-                result.setField(fields[ix], reader.readTerminatedString());
+        int wantedMap = 0;
+        for (int ix = 0; ix < allFields.length; ix++) {
+            if ((fieldMap & (1 << ix)) != 0 && fields.contains(allFields[ix])) {
+                result.setLabel(allFields[ix], mapLabel(labels[ix], phoneFlags));
+                wantedMap |= 1 << ix;
+            }
+        }
+
+        if (lazy) {
+            byte[] data = new byte[(int) Math.max(size - (reader.getFilePointer() - start), 0L)];
+            reader.readFully(data);
+
+            int[] offsets = new int[allFields.length];
+            int pos = 0;
+            for (int ix = 0; ix < allFields.length; ix++) {
+                offsets[ix] = -1;
+                if ((fieldMap & (1 << ix)) != 0) {
+                    if ((wantedMap & (1 << ix)) != 0) {
+                        offsets[ix] = pos;
+                    }
+                    pos = EncodedStrings.skip(data, pos);
+                }
+            }
+            result.setEncodedFields(new EncodedStrings(data, offsets));
+        } else {
+            // Stop reading after the last wanted field
+            for (int ix = 0; ix < allFields.length && (wantedMap >>> ix) != 0; ix++) {
+                if ((wantedMap & (1 << ix)) != 0) {
+                    result.setField(allFields[ix], reader.readTerminatedString());
+                } else if ((fieldMap & (1 << ix)) != 0) {
+                    reader.skipTerminatedString();
+                }
             }
         }
 
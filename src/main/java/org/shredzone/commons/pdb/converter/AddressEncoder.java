@@ -0,0 +1,98 @@
+/*
+ * Shredzone Commons - pdb
+ *
+ * Copyright (C) 2009 Richard "Shred" Körber
+ *   http://commons.shredzone.org
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Library General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Library General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.shredzone.commons.pdb.converter;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.shredzone.commons.pdb.PdbDataOutput;
+import org.shredzone.commons.pdb.PdbDatabase;
+import org.shredzone.commons.pdb.appinfo.AddressAppInfo;
+import org.shredzone.commons.pdb.record.AddressRecord;
+
+/**
+ * An {@link Encoder} that writes address records.
+ *
+ * @see AddressConverter
+ */
+public class AddressEncoder implements Encoder<AddressRecord, AddressAppInfo> {
+
+    private static final AddressRecord.Field[] PHONE_FIELDS = {
+        AddressRecord.Field.PHONE1, AddressRecord.Field.PHONE2,
+        AddressRecord.Field.PHONE3, AddressRecord.Field.PHONE4,
+        AddressRecord.Field.PHONE5,
+    };
+
+    @Override
+    public void encode(PdbDataOutput out, AddressRecord record,
+            PdbDatabase<AddressRecord, AddressAppInfo> database) throws IOException {
+        int phoneFlags = 0;
+        for (int ix = 0; ix < PHONE_FIELDS.length; ix++) {
+            AddressRecord.Label label = record.getLabel(PHONE_FIELDS[ix]);
+            int mapped = label != null ? Arrays.asList(AddressConverter.PHONE_LABELS).indexOf(label) : -1;
+            phoneFlags |= (mapped >= 0 ? mapped : ix) << (ix * 4);
+        }
+        phoneFlags |= (record.getDisplayPhone() & 0x0F) << 20;
+
+        AddressRecord.Field[] allFields = AddressRecord.Field.values();
+        String[] values = new String[allFields.length];
+        int fieldMap = 0;
+        int companyOffset = 0;
+        int pos = 0;
+        for (int ix = 0; ix < allFields.length; ix++) {
+            values[ix] = record.getField(allFields[ix]);
+            if (values[ix] != null) {
+                fieldMap |= 1 << ix;
+                if (allFields[ix] == AddressRecord.Field.COMPANY) {
+                    companyOffset = pos + 1;
+                }
+                pos += values[ix].length() + 1;
+            }
+        }
+
+        out.writeInt(phoneFlags);
+        out.writeInt(fieldMap);
+        out.writeByte(companyOffset <= 0xFF ? companyOffset : 0);
+
+        for (String value : values) {
+            if (value != null) {
+                out.writeTerminatedString(value);
+            }
+        }
+    }
+
+    @Override
+    public void encodeAppInfo(PdbDataOutput out, AddressAppInfo appInfo,
+            PdbDatabase<AddressRecord, AddressAppInfo> database) throws IOException {
+        out.writeCategories(appInfo);
+
+        out.writeShort(0);
+        out.writeInt(0);
+
+        for (AddressRecord.Label label : AddressRecord.Label.values()) {
+            out.writeTerminatedFixedString(appInfo.getLabel(label), AddressConverter.LABEL_LENGTH);
+        }
+
+        out.writeByte(Arrays.asList(AddressConverter.COUNTRIES).indexOf(appInfo.getCountry()));
+
+        out.writeByte(0);
+    }
+
+}
@@ -0,0 +1,61 @@
+/*
+ * Shredzone Commons - pdb
+ *
+ * Copyright (C) 2009 Richard "Shred" Körber
+ *   http://commons.shredzone.org
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Library General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Library General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.shredzone.commons.pdb.converter;
+
+import java.io.IOException;
+
+import org.shredzone.commons.pdb.PdbDataOutput;
+import org.shredzone.commons.pdb.PdbDatabase;
+import org.shredzone.commons.pdb.appinfo.AppInfo;
+import org.shredzone.commons.pdb.record.Record;
+
+/**
+ * Encodes a {@link Record} object into a PDB record. This is the counterpart of
+ * {@link Converter}.
+ */
+public interface Encoder <T extends Record, U extends AppInfo> {
+
+    /**
+     * Encodes a {@link Record} object to raw record data.
+     *
+     * @param out
+     *            {@link PdbDataOutput} to write the record data to
+     * @param record
+     *            {@link Record} to be encoded
+     * @param database
+     *            The {@link PdbDatabase} that is currently written
+     */
+    void encode(PdbDataOutput out, T record, PdbDatabase<T, U> database)
+        throws IOException;
+
+    /**
+     * Encodes an {@link AppInfo} to raw application info data.
+     *
+     * @param out
+     *            {@link PdbDataOutput} to write the appinfo data to
+     * @param appInfo
+     *            {@link AppInfo} to be encoded
+     * @param database
+     *            The {@link PdbDatabase} that is currently written
+     */
+    void encodeAppInfo(PdbDataOutput out, U appInfo, PdbDatabase<T, U> database)
+        throws IOException;
+
+}
@@ -19,31 +19,73 @@
  */
 package org.shredzone.commons.pdb.converter;
 
-import java.awt.image.BufferedImage;
-import java.awt.image.WritableRaster;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-
-import javax.imageio.ImageIO;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
 
 import org.shredzone.commons.pdb.PdbDatabase;
 import org.shredzone.commons.pdb.PdbFile;
 import org.shredzone.commons.pdb.appinfo.CategoryAppInfo;
+import org.shredzone.commons.pdb.image.PalmBitmap;
 import org.shredzone.commons.pdb.record.NotepadRecord;
+import org.shredzone.commons.pdb.record.NotepadRecord.Field;
 
 /**
  * An {@link Converter} that handles notepad entries.
  * <p>
- * <em>NOTE:</em> This converter does not work in Android environments.
+ * <em>NOTE:</em> Unless PNG conversion is disabled or direct PNG encoding is enabled,
+ * bitmap images are converted to PNG by {@link javax.imageio.ImageIO}, which is not
+ * available in Android environments.
  */
 public class NotepadConverter implements Converter<NotepadRecord, CategoryAppInfo> {
 
     private static final int FLAG_TITLE = 0x0002;
     private static final int FLAG_ALARM = 0x0004;
 
-    private static final int TYPE_BITMAP = 0; // Raw bitmap
-    private static final int TYPE_RLE    = 1; // Run Length Encoded bitmap
-    private static final int TYPE_PNG    = 2; // PNG file
+    private final EnumSet<Field> fields = EnumSet.allOf(Field.class);
+    private boolean pngConversion = true;
+    private boolean directPngEncoding;
+    private int thumbnailWidth;
+    private int thumbnailHeight;
+
+    /**
+     * The fields to be read. Fields that are not contained are skipped without being
+     * decoded, and remain unset in the record. By default, all fields are read.
+     */
+    public Set<Field> getFields()               { return Collections.unmodifiableSet(fields); }
+    public void setFields(Set<Field> fields) {
+        this.fields.clear();
+        this.fields.addAll(fields);
+    }
+
+    /**
+     * If set, bitmap images are converted to PNG while reading, so
+     * {@link NotepadRecord#getImagePng()} returns a PNG file for every image. Otherwise
+     * the images are kept in their native PalmOS format, and can be converted later by
+     * {@link #toPng(NotepadRecord)}. Enabled by default.
+     */
+    public boolean isPngConversion()            { return pngConversion; }
+    public void setPngConversion(boolean pngConversion) { this.pngConversion = pngConversion; }
+
+    /**
+     * If set, bitmap images are encoded to PNG by a simple built-in encoder instead of
+     * {@link javax.imageio.ImageIO}, which is considerably faster.
+     */
+    public boolean isDirectPngEncoding()        { return directPngEncoding; }
+    public void setDirectPngEncoding(boolean directPngEncoding) { this.directPngEncoding = directPngEncoding; }
+
+    /**
+     * Thumbnail size. If both are set, a greyscale thumbnail of that size is created
+     * from the bitmap image while reading, see {@link NotepadRecord#getThumbnail()}. If
+     * {@link Field#IMAGE} is not read, only the thumbnail is kept in the record, and the
+     * image type is {@link NotepadRecord#IMAGE_NONE}. PNG images are not converted to
+     * thumbnails. Disabled by default.
+     */
+    public int getThumbnailWidth()              { return thumbnailWidth; }
+    public void setThumbnailWidth(int thumbnailWidth) { this.thumbnailWidth = thumbnailWidth; }
+    public int getThumbnailHeight()             { return thumbnailHeight; }
+    public void setThumbnailHeight(int thumbnailHeight) { this.thumbnailHeight = thumbnailHeight; }
 
     @Override
     public boolean isAcceptable(PdbDatabase<NotepadRecord, CategoryAppInfo> database) {
@@ -61,17 +103,24 @@ public class NotepadConverter implements Converter<NotepadRecord, CategoryAppInf
             return null;
         }
 
-        result.setCreated(reader.readDateTimeWords());
-        result.setModified(reader.readDateTimeWords());
+        result.setRawCreated(reader.readRawDateTimeWords());
+        result.setRawModified(reader.readRawDateTimeWords());
         int flags = reader.readUnsignedShort();
 
         if ((flags & FLAG_ALARM) != 0) {
-            result.setAlarm(reader.readDateTimeWords());
+            result.setRawAlarm(reader.readRawDateTimeWords());
         }
 
+        boolean wantImage = fields.contains(Field.IMAGE);
+        boolean wantThumbnail = thumbnailWidth > 0 && thumbnailHeight > 0;
+
         if ((flags & FLAG_TITLE) != 0) {
             long start = reader.getFilePointer();
-            result.setTitle(reader.readTerminatedString());
+            if (fields.contains(Field.TITLE)) {
+                result.setTitle(reader.readTerminatedString());
+            } else if (wantImage || wantThumbnail) {
+                reader.skipTerminatedString();
+            }
             long end = reader.getFilePointer();
 
             // If we're on an odd position, read one padding byte to make it even
@@ -80,6 +129,10 @@ public class NotepadConverter implements Converter<NotepadRecord, CategoryAppInf
             }
         }
 
+        if (!wantImage && !wantThumbnail) {
+            return result;
+        }
+
         reader.readUnsignedInt();                       // Offset to the image's end (?)
         int width = (int) reader.readUnsignedInt();     // Full image width
         int height = (int) reader.readUnsignedInt();    // Full image height
@@ -87,100 +140,65 @@ public class NotepadConverter implements Converter<NotepadRecord, CategoryAppInf
         int type = (int) reader.readUnsignedInt();      // 0 = bitmap, 1 = RLE, 2 = PNG
         reader.readUnsignedInt();                       // Offset to the image's end (?)
 
+        if (type != NotepadRecord.IMAGE_BITMAP && type != NotepadRecord.IMAGE_RLE
+                        && type != NotepadRecord.IMAGE_PNG) {
+            throw new IOException("unable to handle notepad image type " + type + " at record " + record);
+        }
+
         // Read image data
         int fileSize = size - (int) (reader.getFilePointer() - current);
-        byte[] pngData = new byte[fileSize];
-        reader.readFully(pngData);
-
-        // Convert image if necessary
-        switch (type) {
-            case TYPE_RLE: //NOSONAR: falls through...
-                pngData = uncompressRle(pngData);
+        byte[] imageData = new byte[fileSize];
+        reader.readFully(imageData);
 
-            case TYPE_BITMAP: //NOSONAR: falls through...
-                pngData = convertToPng(width, height, pngData);
+        result.setImage(type, width, height, imageData);
 
-            case TYPE_PNG:
-                break;
-
-            default:
-                throw new IOException("unable to handle notepad image type " + type + " at record " + record);
+        if (wantThumbnail) {
+            result.setThumbnail(result.createThumbnail(thumbnailWidth, thumbnailHeight));
+            if (!wantImage) {
+                result.setImage(NotepadRecord.IMAGE_NONE, 0, 0, null);
+            }
         }
 
-        result.setImagePng(pngData);
-
-        return result;
-    }
+        if (wantImage && pngConversion && type != NotepadRecord.IMAGE_PNG) {
+            result.setImagePng(toPng(result));
+        }
 
-    @Override
-    public CategoryAppInfo convertAppInfo(PdbFile reader, int size,
-            PdbDatabase<NotepadRecord, CategoryAppInfo> database) throws IOException {
-        CategoryAppInfo result = new CategoryAppInfo();
-        reader.readCategories(result);
         return result;
     }
 
     /**
-     * Uncompresses a Run Length Encoded bitmap. The compression scheme is actually very
-     * simple. The first byte gives the number of times the second byte is written (i.e.
-     * "0x06 0xC0" gives 6 times 0xC0). If the first byte is 0x00, the end of data has
-     * been reached.
+     * Converts the image of a record to a PNG file, using the encoder that is configured
+     * in this converter. The record is not changed.
      *
-     * @param width
-     *            Image width
-     * @param height
-     *            Image height
-     * @param rle
-     *            Run Length Encoded data
-     * @return Uncompressed raw bitmap
+     * @param note
+     *            {@link NotepadRecord} to convert
+     * @return PNG file, or {@code null} if the record has no image
+     * @throws IOException
+     *             if the image could not be encoded
      */
-    private byte[] uncompressRle(byte[] rle) throws IOException {
-        try (ByteArrayOutputStream baos = new ByteArrayOutputStream()) {
-            for (int ix = 0; ix < rle.length; ix += 2) {
-                int cnt = rle[ix] & 0xFF;
-                if (cnt == 0x00) break;
-
-                byte data = rle[ix+1];
-                while (cnt-- > 0) {
-                    baos.write(data);
-                }
-            }
-
-            return baos.toByteArray();
+    public byte[] toPng(NotepadRecord note) throws IOException {
+        if (note.getImageType() == NotepadRecord.IMAGE_PNG) {
+            return note.getImagePng();
         }
-    }
 
-    /**
-     * Converts a raw bitmap to a PNG file.
-     *
-     * @param width
-     *            Image width
-     * @param height
-     *            Image height
-     * @param bitmap
-     *            Raw bitmap to be converted
-     * @return PNG file containing that bitmap
-     */
-    private byte[] convertToPng(int width, int height, byte[] bitmap) throws IOException {
-        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_BINARY);
-        WritableRaster raster = image.getRaster();
-
-        // Make the width a multiple of 16 first
-        int bytesPerRow = ((((width - 1) / 16) + 1) * 16) / 8;
-
-        for (int w = 0; w < width; w++) {
-            for (int h = 0; h < height; h++) {
-                byte data = bitmap[(h * bytesPerRow) + (w / 8)];
-                if ((data & (0x80 >> (w % 8))) == 0) { //NOSONAR: int promotion is safe
-                    raster.setSample(w,h,0,1);
-                }
-            }
+        byte[] bitmap = note.getBitmap();
+        if (bitmap == null) {
+            return null;
         }
 
-        try (ByteArrayOutputStream baos = new ByteArrayOutputStream()) {
-            ImageIO.write(image, "PNG", baos);
-            return baos.toByteArray();
+        if (directPngEncoding) {
+            return PalmBitmap.toPng(note.getImageWidth(), note.getImageHeight(), bitmap);
+        } else {
+            return PalmBitmap.encodePng(note.getImageWidth(), note.getImageHeight(), bitmap);
         }
     }
 
+    @Override
+    public CategoryAppInfo convertAppInfo(PdbFile reader, int size,
+            PdbDatabase<NotepadRecord, CategoryAppInfo> database) throws IOException {
+        CategoryAppInfo result = new CategoryAppInfo();
+        reader.readCategories(result);
+        return result;
+    }
+
 }
@@ -0,0 +1,48 @@
+/*
+ * Shredzone Commons - pdb
+ *
+ * Copyright (C) 2009 Richard "Shred" Körber
+ *   http://commons.shredzone.org
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Library General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Library General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.shredzone.commons.pdb.converter;
+
+import java.io.IOException;
+
+import org.shredzone.commons.pdb.PdbDataOutput;
+import org.shredzone.commons.pdb.PdbDatabase;
+import org.shredzone.commons.pdb.appinfo.RawAppInfo;
+import org.shredzone.commons.pdb.record.RawRecord;
+
+/**
+ * An {@link Encoder} that writes the raw content of a record.
+ *
+ * @see RawConverter
+ */
+public class RawEncoder implements Encoder<RawRecord, RawAppInfo> {
+
+    @Override
+    public void encode(PdbDataOutput out, RawRecord record,
+            PdbDatabase<RawRecord, RawAppInfo> database) throws IOException {
+        out.write(record.getRaw());
+    }
+
+    @Override
+    public void encodeAppInfo(PdbDataOutput out, RawAppInfo appInfo,
+            PdbDatabase<RawRecord, RawAppInfo> database) throws IOException {
+        out.write(appInfo.getRawAppInfo());
+    }
+
+}
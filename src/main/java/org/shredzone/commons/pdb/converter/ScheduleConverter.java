@@ -20,14 +20,17 @@
 package org.shredzone.commons.pdb.converter;
 
 import java.io.IOException;
-import java.util.Calendar;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
 
+import org.shredzone.commons.pdb.EncodedStrings;
 import org.shredzone.commons.pdb.PdbDatabase;
 import org.shredzone.commons.pdb.PdbFile;
 import org.shredzone.commons.pdb.appinfo.CategoryAppInfo;
-import org.shredzone.commons.pdb.appinfo.CategoryAppInfo.Category;
 import org.shredzone.commons.pdb.record.ScheduleRecord;
 import org.shredzone.commons.pdb.record.ScheduleRecord.Alarm.Unit;
+import org.shredzone.commons.pdb.record.ScheduleRecord.Field;
 import org.shredzone.commons.pdb.record.ScheduleRecord.Repeat.Mode;
 
 /**
@@ -44,6 +47,32 @@ public class ScheduleConverter implements Converter<ScheduleRecord, CategoryAppI
     public static final int FLAG_DESCRIPTION = 0x0400;
     public static final int FLAG_LOCATION = 0x0200;  // only if creator is "PDat"
 
+    private static final int[] TEXT_FLAGS = { FLAG_DESCRIPTION, FLAG_NOTE, FLAG_LOCATION };
+    private static final Field[] TEXT_FIELDS = { Field.DESCRIPTION, Field.NOTE, Field.LOCATION };
+
+    private static final int ALARM_SIZE = 2;
+    private static final int REPEAT_SIZE = 8;
+
+    private final EnumSet<Field> fields = EnumSet.allOf(Field.class);
+    private boolean lazy;
+
+    /**
+     * The optional fields to be read. Fields that are not contained are skipped without
+     * being decoded, and remain unset in the record. By default, all fields are read.
+     */
+    public Set<Field> getFields()               { return Collections.unmodifiableSet(fields); }
+    public void setFields(Set<Field> fields) {
+        this.fields.clear();
+        this.fields.addAll(fields);
+    }
+
+    /**
+     * If set, the description, note and location are not decoded when the database is
+     * read, but when they are accessed for the first time.
+     */
+    public boolean isLazy()                     { return lazy; }
+    public void setLazy(boolean lazy)           { this.lazy = lazy; }
+
     @Override
     public boolean isAcceptable(PdbDatabase<ScheduleRecord, CategoryAppInfo> database) {
         return "PDat".equals(database.getCreator());
@@ -52,21 +81,20 @@ public class ScheduleConverter implements Converter<ScheduleRecord, CategoryAppI
     @Override
     public ScheduleRecord convert(PdbFile reader, int record, int size, int attribute,
             PdbDatabase<ScheduleRecord, CategoryAppInfo> database) throws IOException {
+        long start = reader.getFilePointer();
+
         ScheduleRecord result = new ScheduleRecord(attribute);
         if (result.isDelete()) {
             return null;
         }
 
-        Category cat = database.getAppInfo().getCategoryByIndex(result.getCategoryIndex());
-        if (cat != null) {
-            result.setCategory(cat.getName());
-        }
+        result.setCategory(database.getAppInfo().getCategoryName(result.getCategoryIndex()));
 
         byte startHour = reader.readByte();
         byte startMinute = reader.readByte();
         byte endHour = reader.readByte();
         byte endMinute = reader.readByte();
-        Calendar date = reader.readPackedDate();
+        int date = reader.readRawPackedDate();
         int flags = reader.readShort();
 
         if (startHour >= 0 && startMinute >= 0) {
@@ -77,9 +105,11 @@ public class ScheduleConverter implements Converter<ScheduleRecord, CategoryAppI
             result.setEndTime(new ScheduleRecord.ShortTime(endHour, endMinute));
         }
 
-        result.setSchedule(new ScheduleRecord.ShortDate(date));
+        result.setSchedule(ScheduleRecord.ShortDate.fromPackedDate(date));
 
-        if ((flags & FLAG_ALARM) != 0) {
+        if ((flags & FLAG_ALARM) != 0 && !fields.contains(Field.ALARM)) {
+            reader.skipBytes(ALARM_SIZE);
+        } else if ((flags & FLAG_ALARM) != 0) {
             int advance = reader.readByte();
             int unit = reader.readUnsignedByte();
 
@@ -94,7 +124,9 @@ public class ScheduleConverter implements Converter<ScheduleRecord, CategoryAppI
             result.setAlarm(new ScheduleRecord.Alarm(advance, alarmUnit));
         }
 
-        if ((flags & FLAG_REPEAT) != 0) {
+        if ((flags & FLAG_REPEAT) != 0 && !fields.contains(Field.REPEAT)) {
+            reader.skipBytes(REPEAT_SIZE);
+        } else if ((flags & FLAG_REPEAT) != 0) {
             int type = reader.readUnsignedByte();
             reader.readByte();
 
@@ -108,11 +140,8 @@ public class ScheduleConverter implements Converter<ScheduleRecord, CategoryAppI
                 default: throw new IOException("Unknown repeat mode: " + type);
             }
 
-            ScheduleRecord.ShortDate endDate = null;
-            Calendar ending = reader.readPackedDate();
-            if (ending != null) {
-                endDate = new ScheduleRecord.ShortDate(ending);
-            }
+            ScheduleRecord.ShortDate endDate =
+                            ScheduleRecord.ShortDate.fromPackedDate(reader.readRawPackedDate());
 
             int frequency = reader.readUnsignedByte();
             int repeatOn = reader.readUnsignedByte();
@@ -143,27 +172,68 @@ public class ScheduleConverter implements Converter<ScheduleRecord, CategoryAppI
             ));
         }
 
-        if ((flags & FLAG_EXCEPTIONS) != 0) {
+        if ((flags & FLAG_EXCEPTIONS) != 0 && !fields.contains(Field.EXCEPTIONS)) {
+            int numExceptions = reader.readUnsignedShort();
+            reader.skipBytes(numExceptions * 2);
+        } else if ((flags & FLAG_EXCEPTIONS) != 0) {
             int numExceptions = reader.readUnsignedShort();
             for (int ix = 0; ix < numExceptions; ix++) {
-                Calendar excDate = reader.readPackedDate();
-                result.getExceptions().add(new ScheduleRecord.ShortDate(excDate));
+                int excDate = reader.readRawPackedDate();
+                result.getExceptions().add(ScheduleRecord.ShortDate.fromPackedDate(excDate));
             }
         }
 
-        if ((flags & FLAG_DESCRIPTION) != 0) {
-            result.setDescription(reader.readTerminatedString());
+        if (lazy) {
+            byte[] data = new byte[(int) Math.max(size - (reader.getFilePointer() - start), 0L)];
+            reader.readFully(data);
+
+            int[] offsets = new int[TEXT_FLAGS.length];
+            int pos = 0;
+            for (int ix = 0; ix < TEXT_FLAGS.length; ix++) {
+                offsets[ix] = -1;
+                if ((flags & TEXT_FLAGS[ix]) != 0) {
+                    if (fields.contains(TEXT_FIELDS[ix])) {
+                        offsets[ix] = pos;
+                    }
+                    pos = EncodedStrings.skip(data, pos);
+                }
+            }
+            result.setEncodedTexts(new EncodedStrings(data, offsets));
+        } else {
+            String[] texts = new String[TEXT_FLAGS.length];
+            for (int ix = 0; ix < TEXT_FLAGS.length && hasTextsFrom(flags, ix); ix++) {
+                if ((flags & TEXT_FLAGS[ix]) != 0) {
+                    if (fields.contains(TEXT_FIELDS[ix])) {
+                        texts[ix] = reader.readTerminatedString();
+                    } else {
+                        reader.skipTerminatedString();
+                    }
+                }
+            }
+            result.setDescription(texts[0]);
+            result.setNote(texts[1]);
+            result.setLocation(texts[2]);
         }
 
-        if ((flags & FLAG_NOTE) != 0) {
-            result.setNote(reader.readTerminatedString());
-        }
+        return result;
+    }
 
-        if ((flags & FLAG_LOCATION) != 0) {
-            result.setLocation(reader.readTerminatedString());
+    /**
+     * Checks if there are texts to be read, starting from the given text index.
+     *
+     * @param flags
+     *            Record flags
+     * @param index
+     *            Index of the first text in {@link #TEXT_FLAGS}
+     * @return {@code true} if a text is present and wanted at this index or after
+     */
+    private boolean hasTextsFrom(int flags, int index) {
+        for (int ix = index; ix < TEXT_FLAGS.length; ix++) {
+            if ((flags & TEXT_FLAGS[ix]) != 0 && fields.contains(TEXT_FIELDS[ix])) {
+                return true;
+            }
         }
-
-        return result;
+        return false;
     }
 
     @Override
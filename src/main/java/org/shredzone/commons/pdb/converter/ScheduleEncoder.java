@@ -0,0 +1,137 @@
+/*
+ * Shredzone Commons - pdb
+ *
+ * Copyright (C) 2009 Richard "Shred" Körber
+ *   http://commons.shredzone.org
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Library General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Library General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.shredzone.commons.pdb.converter;
+
+import java.io.IOException;
+
+import org.shredzone.commons.pdb.PalmDate;
+import org.shredzone.commons.pdb.PdbDataOutput;
+import org.shredzone.commons.pdb.PdbDatabase;
+import org.shredzone.commons.pdb.appinfo.CategoryAppInfo;
+import org.shredzone.commons.pdb.record.ScheduleRecord;
+import org.shredzone.commons.pdb.record.ScheduleRecord.Repeat.Mode;
+
+/**
+ * An {@link Encoder} that writes Calendar records.
+ *
+ * @see ScheduleConverter
+ */
+public class ScheduleEncoder implements Encoder<ScheduleRecord, CategoryAppInfo> {
+
+    @Override
+    public void encode(PdbDataOutput out, ScheduleRecord record,
+            PdbDatabase<ScheduleRecord, CategoryAppInfo> database) throws IOException {
+        ScheduleRecord.ShortTime start = record.getStartTime();
+        ScheduleRecord.ShortTime end = record.getEndTime();
+        ScheduleRecord.Alarm alarm = record.getAlarm();
+        ScheduleRecord.Repeat repeat = record.getRepeat();
+        String description = record.getDescription();
+        String note = record.getNote();
+        String location = record.getLocation();
+
+        int flags = 0;
+        if (alarm != null) {
+            flags |= ScheduleConverter.FLAG_ALARM;
+        }
+        if (repeat != null) {
+            flags |= ScheduleConverter.FLAG_REPEAT;
+        }
+        if (note != null) {
+            flags |= ScheduleConverter.FLAG_NOTE;
+        }
+        if (!record.getExceptions().isEmpty()) {
+            flags |= ScheduleConverter.FLAG_EXCEPTIONS;
+        }
+        if (description != null) {
+            flags |= ScheduleConverter.FLAG_DESCRIPTION;
+        }
+        if (location != null) {
+            flags |= ScheduleConverter.FLAG_LOCATION;
+        }
+
+        out.writeByte(start != null ? start.getHour() : -1);
+        out.writeByte(start != null ? start.getMinute() : -1);
+        out.writeByte(end != null ? end.getHour() : -1);
+        out.writeByte(end != null ? end.getMinute() : -1);
+        out.writeRawPackedDate(toPackedDate(record.getSchedule()));
+        out.writeShort(flags);
+
+        if (alarm != null) {
+            out.writeByte(alarm.getValue());
+            out.writeByte(alarm.getUnit().ordinal());
+        }
+
+        if (repeat != null) {
+            int repeatOn = 0;
+            if (repeat.getMode() == Mode.WEEKLY) {
+                boolean[] weeklyDays = repeat.getWeeklyDays();
+                for (int ix = 0; ix < weeklyDays.length; ix++) {
+                    if (weeklyDays[ix]) {
+                        repeatOn |= 1 << ix;
+                    }
+                }
+            } else if (repeat.getMode() == Mode.MONTHLY_BY_DAY) {
+                repeatOn = repeat.getMonthlyWeek() * 7 + repeat.getMonthlyDay();
+            }
+
+            out.writeByte(repeat.getMode().ordinal() + 1);
+            out.writeByte(0);
+            out.writeRawPackedDate(toPackedDate(repeat.getUntil()));
+            out.writeByte(repeat.getFrequency());
+            out.writeByte(repeatOn);
+            out.writeByte(0);   // start of week
+            out.writeByte(0);
+        }
+
+        if ((flags & ScheduleConverter.FLAG_EXCEPTIONS) != 0) {
+            out.writeShort(record.getExceptions().size());
+            for (ScheduleRecord.ShortDate exception : record.getExceptions()) {
+                out.writeRawPackedDate(toPackedDate(exception));
+            }
+        }
+
+        if (description != null) {
+            out.writeTerminatedString(description);
+        }
+        if (note != null) {
+            out.writeTerminatedString(note);
+        }
+        if (location != null) {
+            out.writeTerminatedString(location);
+        }
+    }
+
+    @Override
+    public void encodeAppInfo(PdbDataOutput out, CategoryAppInfo appInfo,
+            PdbDatabase<ScheduleRecord, CategoryAppInfo> database) throws IOException {
+        out.writeCategories(appInfo);
+    }
+
+    /**
+     * Converts a {@link ScheduleRecord.ShortDate} to a packed date.
+     */
+    private static int toPackedDate(ScheduleRecord.ShortDate date) {
+        if (date == null) {
+            return PalmDate.NO_DATE;
+        }
+        return PalmDate.pack(date.getYear(), date.getMonth(), date.getDay());
+    }
+
+}
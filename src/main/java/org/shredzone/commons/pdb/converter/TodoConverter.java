@@ -20,17 +20,42 @@
 package org.shredzone.commons.pdb.converter;
 
 import java.io.IOException;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
 
+import org.shredzone.commons.pdb.EncodedStrings;
 import org.shredzone.commons.pdb.PdbDatabase;
 import org.shredzone.commons.pdb.PdbFile;
 import org.shredzone.commons.pdb.appinfo.CategoryAppInfo;
 import org.shredzone.commons.pdb.record.TodoRecord;
+import org.shredzone.commons.pdb.record.TodoRecord.Field;
 
 /**
  * A {@link Converter} that handles to-do records.
  */
 public class TodoConverter implements Converter<TodoRecord, CategoryAppInfo> {
 
+    private final EnumSet<Field> fields = EnumSet.allOf(Field.class);
+    private boolean lazy;
+
+    /**
+     * The fields to be read. Fields that are not contained are skipped without being
+     * decoded, and remain unset in the record. By default, all fields are read.
+     */
+    public Set<Field> getFields()               { return Collections.unmodifiableSet(fields); }
+    public void setFields(Set<Field> fields) {
+        this.fields.clear();
+        this.fields.addAll(fields);
+    }
+
+    /**
+     * If set, the description and the note are not decoded when the database is read,
+     * but when they are accessed for the first time.
+     */
+    public boolean isLazy()                     { return lazy; }
+    public void setLazy(boolean lazy)           { this.lazy = lazy; }
+
     @Override
     public boolean isAcceptable(PdbDatabase<TodoRecord, CategoryAppInfo> database) {
         return "ToDoDB".equals(database.getName())
@@ -40,22 +65,41 @@ public class TodoConverter implements Converter<TodoRecord, CategoryAppInfo> {
     @Override
     public TodoRecord convert(PdbFile reader, int record, int size, int attribute,
             PdbDatabase<TodoRecord, CategoryAppInfo> database) throws IOException {
+        long start = reader.getFilePointer();
+
         TodoRecord result = new TodoRecord(attribute);
         if (result.isDelete()) {
             return null;
         }
 
-        result.setDate(reader.readPackedDate());
+        result.setPackedDate(reader.readRawPackedDate());
 
         int flags = reader.readUnsignedByte();
         result.setCompleted((flags & 0x80) != 0);
         result.setPriority(flags & 0x7F);
 
-        result.setDescription(reader.readTerminatedString());
+        if (lazy) {
+            byte[] data = new byte[(int) Math.max(size - (reader.getFilePointer() - start), 0L)];
+            reader.readFully(data);
+
+            int noteOffset = EncodedStrings.skip(data, 0);
+            result.setEncodedTexts(new EncodedStrings(data, new int[] {
+                            fields.contains(Field.DESCRIPTION) ? 0 : -1,
+                            fields.contains(Field.NOTE) ? noteOffset : -1,
+            }));
+        } else {
+            if (fields.contains(Field.DESCRIPTION)) {
+                result.setDescription(reader.readTerminatedString());
+            } else if (fields.contains(Field.NOTE)) {
+                reader.skipTerminatedString();
+            }
 
-        String note = reader.readTerminatedString();
-        if (note != null && note.length() > 0) {
-            result.setNote(note);
+            if (fields.contains(Field.NOTE)) {
+                String note = reader.readTerminatedString();
+                if (note != null && note.length() > 0) {
+                    result.setNote(note);
+                }
+            }
         }
 
         return result;
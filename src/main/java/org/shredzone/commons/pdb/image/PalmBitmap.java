@@ -0,0 +1,211 @@
+/*
+ * Shredzone Commons - pdb
+ *
+ * Copyright (C) 2009 Richard "Shred" Körber
+ *   http://commons.shredzone.org
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Library General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Library General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.shredzone.commons.pdb.image;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.awt.image.IndexColorModel;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+import javax.imageio.ImageIO;
+
+/**
+ * Helpers for PalmOS bitmaps with one bit per pixel.
+ * <p>
+ * In a PalmOS bitmap, a set bit is a black pixel. Each row is padded to a multiple of 16
+ * bits.
+ */
+public final class PalmBitmap {
+
+    private static final byte[] PALETTE = { (byte) 0xFF, (byte) 0x00 };
+
+    private PalmBitmap() {
+        // utility class without constructor
+    }
+
+    /**
+     * Returns the number of bytes per row of a PalmOS bitmap.
+     *
+     * @param width
+     *            Image width
+     * @return Bytes per row, including padding
+     */
+    public static int getBytesPerRow(int width) {
+        return ((width + 15) / 16) * 2;
+    }
+
+    /**
+     * Converts a PalmOS bitmap to a {@link BufferedImage}. The image is of type
+     * {@link BufferedImage#TYPE_BYTE_BINARY}, with a palette where index 0 is white and
+     * index 1 is black, so the rows are copied without converting the single pixels.
+     *
+     * @param width
+     *            Image width
+     * @param height
+     *            Image height
+     * @param bitmap
+     *            PalmOS bitmap. If it is too short, the missing rows are white.
+     * @return {@link BufferedImage} of the bitmap
+     */
+    public static BufferedImage toImage(int width, int height, byte[] bitmap) {
+        IndexColorModel cm = new IndexColorModel(1, 2, PALETTE, PALETTE, PALETTE);
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_BINARY, cm);
+        byte[] data = ((DataBufferByte) image.getRaster().getDataBuffer()).getData();
+
+        int srcStride = getBytesPerRow(width);
+        int dstStride = (width + 7) / 8;
+        for (int row = 0; row < height; row++) {
+            int src = row * srcStride;
+            int length = Math.min(dstStride, bitmap.length - src);
+            if (length <= 0) {
+                break;
+            }
+            System.arraycopy(bitmap, src, data, row * dstStride, length);
+        }
+
+        return image;
+    }
+
+    /**
+     * Encodes a PalmOS bitmap as PNG file. The bitmap is encoded directly as indexed PNG
+     * with one bit per pixel, without the detour via {@link BufferedImage} and
+     * {@link javax.imageio.ImageIO}.
+     *
+     * @param width
+     *            Image width
+     * @param height
+     *            Image height
+     * @param bitmap
+     *            PalmOS bitmap. If it is too short, the missing rows are white.
+     * @return PNG file containing the bitmap
+     */
+    public static byte[] toPng(int width, int height, byte[] bitmap) {
+        return PngEncoder.encodeBilevel(width, height, bitmap, getBytesPerRow(width));
+    }
+
+    /**
+     * Encodes a PalmOS bitmap as PNG file by {@link ImageIO}. {@link ImageIO} is not
+     * available in Android environments, see {@link #toPng(int, int, byte[])} for an
+     * alternative.
+     *
+     * @param width
+     *            Image width
+     * @param height
+     *            Image height
+     * @param bitmap
+     *            PalmOS bitmap. If it is too short, the missing rows are white.
+     * @return PNG file containing the bitmap
+     * @throws IOException
+     *             if the image could not be encoded
+     */
+    public static byte[] encodePng(int width, int height, byte[] bitmap) throws IOException {
+        BufferedImage image = toImage(width, height, bitmap);
+        try (ByteArrayOutputStream baos = new ByteArrayOutputStream()) {
+            if (!ImageIO.write(image, "PNG", baos)) {
+                throw new IOException("no PNG encoder available");
+            }
+            return baos.toByteArray();
+        }
+    }
+
+    /**
+     * Scales a PalmOS bitmap to a greyscale thumbnail. Each thumbnail pixel is the
+     * average of the bitmap area it covers, so the thumbnail is anti-aliased without
+     * the need to convert the bitmap to an image first.
+     *
+     * @param width
+     *            Image width
+     * @param height
+     *            Image height
+     * @param bitmap
+     *            PalmOS bitmap. If it is too short, the missing rows are white.
+     * @param thumbWidth
+     *            Thumbnail width
+     * @param thumbHeight
+     *            Thumbnail height
+     * @return {@link Thumbnail} of the bitmap
+     */
+    public static Thumbnail toThumbnail(int width, int height, byte[] bitmap,
+                    int thumbWidth, int thumbHeight) {
+        if (thumbWidth <= 0 || thumbHeight <= 0) {
+            throw new IllegalArgumentException("invalid thumbnail size " + thumbWidth
+                            + "x" + thumbHeight);
+        }
+
+        byte[] pixels = new byte[thumbWidth * thumbHeight];
+        if (width <= 0 || height <= 0) {
+            Arrays.fill(pixels, (byte) 0xFF);
+            return new Thumbnail(thumbWidth, thumbHeight, pixels);
+        }
+
+        // Bitmap columns covered by each thumbnail column
+        int[] colStart = new int[thumbWidth];
+        int[] colEnd = new int[thumbWidth];
+        for (int tx = 0; tx < thumbWidth; tx++) {
+            colStart[tx] = (int) ((long) tx * width / thumbWidth);
+            colEnd[tx] = Math.max(colStart[tx] + 1, (int) ((long) (tx + 1) * width / thumbWidth));
+        }
+
+        int stride = getBytesPerRow(width);
+        int[] blackCount = new int[width + 1];
+        int[] sum = new int[thumbWidth];
+
+        for (int ty = 0; ty < thumbHeight; ty++) {
+            int rowStart = (int) ((long) ty * height / thumbHeight);
+            int rowEnd = Math.max(rowStart + 1, (int) ((long) (ty + 1) * height / thumbHeight));
+
+            Arrays.fill(sum, 0);
+            for (int row = rowStart; row < rowEnd; row++) {
+                countBlackPixels(bitmap, row * stride, width, blackCount);
+                for (int tx = 0; tx < thumbWidth; tx++) {
+                    sum[tx] += blackCount[colEnd[tx]] - blackCount[colStart[tx]];
+                }
+            }
+
+            int rows = rowEnd - rowStart;
+            int pos = ty * thumbWidth;
+            for (int tx = 0; tx < thumbWidth; tx++) {
+                int area = rows * (colEnd[tx] - colStart[tx]);
+                pixels[pos + tx] = (byte) (255 - (sum[tx] * 255 + area / 2) / area);
+            }
+        }
+
+        return new Thumbnail(thumbWidth, thumbHeight, pixels);
+    }
+
+    /**
+     * Counts the black pixels of a bitmap row. After invocation, {@code count[x]}
+     * contains the number of black pixels left of column {@code x}.
+     */
+    private static void countBlackPixels(byte[] bitmap, int offset, int width, int[] count) {
+        int black = 0;
+        count[0] = 0;
+        for (int x = 0; x < width; x++) {
+            int ix = offset + (x >> 3);
+            if (ix < bitmap.length && (bitmap[ix] & (0x80 >> (x & 7))) != 0) {
+                black++;
+            }
+            count[x + 1] = black;
+        }
+    }
+
+}
@@ -0,0 +1,169 @@
+/*
+ * Shredzone Commons - pdb
+ *
+ * Copyright (C) 2009 Richard "Shred" Körber
+ *   http://commons.shredzone.org
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Library General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Library General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.shredzone.commons.pdb.image;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+
+/**
+ * Run Length Encoding of PalmOS bitmaps.
+ * <p>
+ * The compression scheme is actually very simple. The first byte gives the number of
+ * times the second byte is written (i.e. "0x06 0xC0" gives 6 times 0xC0). If the first
+ * byte is 0x00, the end of data has been reached.
+ */
+public final class PalmRle {
+
+    private static final int MAX_RUN = 255;
+
+    private PalmRle() {
+        // utility class without constructor
+    }
+
+    /**
+     * Computes the size of the uncompressed data.
+     *
+     * @param rle
+     *            Run Length Encoded data
+     * @param offset
+     *            Start of the data in the array
+     * @param length
+     *            Length of the data
+     * @return Number of bytes after decoding
+     */
+    public static int getDecodedSize(byte[] rle, int offset, int length) {
+        int size = 0;
+        int end = offset + length - 1;
+        for (int ix = offset; ix < end; ix += 2) {
+            int cnt = rle[ix] & 0xFF;
+            if (cnt == 0x00) break;
+            size += cnt;
+        }
+        return size;
+    }
+
+    /**
+     * Uncompresses a Run Length Encoded bitmap.
+     *
+     * @param rle
+     *            Run Length Encoded data
+     * @return Uncompressed raw bitmap
+     */
+    public static byte[] decode(byte[] rle) {
+        byte[] result = new byte[getDecodedSize(rle, 0, rle.length)];
+        decode(rle, 0, rle.length, result, 0, result.length);
+        return result;
+    }
+
+    /**
+     * Uncompresses a Run Length Encoded bitmap of a known size. This is the preferred
+     * method if the image dimensions are known.
+     *
+     * @param rle
+     *            Run Length Encoded data
+     * @param size
+     *            Size of the uncompressed bitmap. Excess data is ignored, and missing
+     *            data is filled with zeros.
+     * @return Uncompressed raw bitmap, with exactly {@code size} bytes
+     */
+    public static byte[] decode(byte[] rle, int size) {
+        byte[] result = new byte[size];
+        decode(rle, 0, rle.length, result, 0, size);
+        return result;
+    }
+
+    /**
+     * Uncompresses Run Length Encoded data into the given array.
+     *
+     * @param rle
+     *            Run Length Encoded data
+     * @param offset
+     *            Start of the data in the array
+     * @param length
+     *            Length of the data
+     * @param dst
+     *            Array to write the uncompressed data to
+     * @param dstOffset
+     *            Start offset in the target array
+     * @param dstLength
+     *            Maximum number of bytes to be written. Excess data is ignored.
+     * @return Number of bytes that were written
+     * @throws IndexOutOfBoundsException
+     *             if the given ranges exceed the arrays
+     */
+    public static int decode(byte[] rle, int offset, int length, byte[] dst, int dstOffset, int dstLength) {
+        checkRange(rle, offset, length);
+        checkRange(dst, dstOffset, dstLength);
+
+        int pos = dstOffset;
+        int dstEnd = dstOffset + dstLength;
+        int end = offset + length - 1;
+        for (int ix = offset; ix < end && pos < dstEnd; ix += 2) {
+            int cnt = rle[ix] & 0xFF;
+            if (cnt == 0x00) break;
+
+            int runEnd = Math.min(pos + cnt, dstEnd);
+            Arrays.fill(dst, pos, runEnd, rle[ix + 1]);
+            pos = runEnd;
+        }
+        return pos - dstOffset;
+    }
+
+    /**
+     * Compresses data with Run Length Encoding.
+     *
+     * @param data
+     *            Data to be compressed
+     * @param offset
+     *            Start of the data in the array
+     * @param length
+     *            Length of the data
+     * @return Run Length Encoded data
+     */
+    public static byte[] encode(byte[] data, int offset, int length) {
+        checkRange(data, offset, length);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(length / 4 + 16);
+        int end = offset + length;
+        int ix = offset;
+        while (ix < end) {
+            byte value = data[ix];
+            int run = 1;
+            while (ix + run < end && run < MAX_RUN && data[ix + run] == value) {
+                run++;
+            }
+            out.write(run);
+            out.write(value);
+            ix += run;
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Checks that the range is within the array.
+     */
+    private static void checkRange(byte[] array, int offset, int length) {
+        if (offset < 0 || length < 0 || offset > array.length - length) {
+            throw new IndexOutOfBoundsException("offset " + offset + ", length " + length
+                            + ", array length " + array.length);
+        }
+    }
+
+}
@@ -0,0 +1,139 @@
+/*
+ * Shredzone Commons - pdb
+ *
+ * Copyright (C) 2009 Richard "Shred" Körber
+ *   http://commons.shredzone.org
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Library General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Library General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.shredzone.commons.pdb.image;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * A minimal PNG encoder for bilevel images.
+ *
+ * @see <a href="http://www.w3.org/TR/PNG/">Portable Network Graphics (PNG) Specification</a>
+ */
+final class PngEncoder {
+
+    private static final byte[] SIGNATURE = {
+        (byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n',
+    };
+
+    private static final int BIT_DEPTH = 1;
+    private static final int COLOR_TYPE_INDEXED = 3;
+    private static final int FILTER_NONE = 0;
+
+    // Index 0 is white, index 1 is black
+    private static final byte[] PALETTE = {
+        (byte) 0xFF, (byte) 0xFF, (byte) 0xFF,
+        (byte) 0x00, (byte) 0x00, (byte) 0x00,
+    };
+
+    private PngEncoder() {
+        // utility class without constructor
+    }
+
+    /**
+     * Encodes a bilevel image, where a set bit is a black pixel.
+     *
+     * @param width
+     *            Image width
+     * @param height
+     *            Image height
+     * @param bitmap
+     *            Bitmap data. Missing rows are white.
+     * @param stride
+     *            Number of bytes per row in the bitmap
+     * @return PNG file
+     */
+    static byte[] encodeBilevel(int width, int height, byte[] bitmap, int stride) {
+        try {
+            int rowBytes = (width + 7) / 8;
+
+            ByteArrayOutputStream idat = new ByteArrayOutputStream(rowBytes * height / 4 + 64);
+            Deflater deflater = new Deflater();
+            try (DeflaterOutputStream dos = new DeflaterOutputStream(idat, deflater)) {
+                byte[] row = new byte[rowBytes + 1];
+                for (int y = 0; y < height; y++) {
+                    row[0] = FILTER_NONE;
+                    int src = y * stride;
+                    int length = Math.max(Math.min(rowBytes, bitmap.length - src), 0);
+                    if (length > 0) {
+                        System.arraycopy(bitmap, src, row, 1, length);
+                    }
+                    for (int ix = length + 1; ix < row.length; ix++) {
+                        row[ix] = 0;
+                    }
+                    dos.write(row);
+                }
+            } finally {
+                deflater.end();
+            }
+
+            ByteArrayOutputStream ihdr = new ByteArrayOutputStream(13);
+            DataOutputStream hdr = new DataOutputStream(ihdr);
+            hdr.writeInt(width);
+            hdr.writeInt(height);
+            hdr.writeByte(BIT_DEPTH);
+            hdr.writeByte(COLOR_TYPE_INDEXED);
+            hdr.writeByte(0);       // compression method
+            hdr.writeByte(0);       // filter method
+            hdr.writeByte(0);       // no interlace
+
+            ByteArrayOutputStream png = new ByteArrayOutputStream(idat.size() + 128);
+            DataOutputStream out = new DataOutputStream(png);
+            out.write(SIGNATURE);
+            writeChunk(out, "IHDR", ihdr.toByteArray());
+            writeChunk(out, "PLTE", PALETTE);
+            writeChunk(out, "IDAT", idat.toByteArray());
+            writeChunk(out, "IEND", new byte[0]);
+            return png.toByteArray();
+        } catch (IOException ex) {
+            // Cannot happen when writing into memory
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    /**
+     * Writes a PNG chunk.
+     *
+     * @param out
+     *            {@link DataOutputStream} to write to
+     * @param type
+     *            Chunk type
+     * @param data
+     *            Chunk data
+     */
+    private static void writeChunk(DataOutputStream out, String type, byte[] data)
+    throws IOException {
+        byte[] typeBytes = type.getBytes("US-ASCII");
+
+        CRC32 crc = new CRC32();
+        crc.update(typeBytes);
+        crc.update(data);
+
+        out.writeInt(data.length);
+        out.write(typeBytes);
+        out.write(data);
+        out.writeInt((int) crc.getValue());
+    }
+
+}
@@ -0,0 +1,98 @@
+/*
+ * Shredzone Commons - pdb
+ *
+ * Copyright (C) 2009 Richard "Shred" Körber
+ *   http://commons.shredzone.org
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Library General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Library General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.shredzone.commons.pdb.image;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+
+/**
+ * A greyscale thumbnail image with 8 bits per pixel.
+ * <p>
+ * The pixels are stored row by row without padding. A value of 0 is black, 255 is
+ * white.
+ */
+public final class Thumbnail {
+
+    private final int width;
+    private final int height;
+    private final byte[] pixels;
+
+    /**
+     * Creates a new {@link Thumbnail}.
+     *
+     * @param width
+     *            Thumbnail width
+     * @param height
+     *            Thumbnail height
+     * @param pixels
+     *            Greyscale pixels, {@code width * height} bytes
+     */
+    public Thumbnail(int width, int height, byte[] pixels) {
+        if (pixels.length != width * height) {
+            throw new IllegalArgumentException("expected " + (width * height)
+                            + " pixels, but got " + pixels.length);
+        }
+        this.width = width;
+        this.height = height;
+        this.pixels = pixels;
+    }
+
+    /**
+     * Gets the thumbnail width.
+     */
+    public int getWidth()                       { return width; }
+
+    /**
+     * Gets the thumbnail height.
+     */
+    public int getHeight()                      { return height; }
+
+    /**
+     * Gets the greyscale pixels, row by row. The array is not copied.
+     */
+    public byte[] getPixels()                   { return pixels; }
+
+    /**
+     * Gets the greyscale value of a single pixel.
+     *
+     * @param x
+     *            X coordinate
+     * @param y
+     *            Y coordinate
+     * @return Greyscale value, 0 is black, 255 is white
+     */
+    public int getPixel(int x, int y) {
+        return pixels[y * width + x] & 0xFF;
+    }
+
+    /**
+     * Converts the thumbnail to a {@link BufferedImage} of type
+     * {@link BufferedImage#TYPE_BYTE_GRAY}.
+     *
+     * @return {@link BufferedImage} of the thumbnail
+     */
+    public BufferedImage toImage() {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_GRAY);
+        byte[] data = ((DataBufferByte) image.getRaster().getDataBuffer()).getData();
+        System.arraycopy(pixels, 0, data, 0, pixels.length);
+        return image;
+    }
+
+}
@@ -19,6 +19,10 @@
  */
 package org.shredzone.commons.pdb.record;
 
+import java.util.TimeZone;
+
+import org.shredzone.commons.pdb.CalendarFactory;
+
 /**
  * Abstract {@link Record} implementation that represents a single database
  * entry. Subclasses will give detailed methods for reading the entry's content.
@@ -31,6 +35,8 @@ public abstract class AbstractRecord implements Record {
     public static final int ATTR_DELETE = 0x80;
 
     private final int attribute;
+    private int uniqueId;
+    private TimeZone timeZone;
 
     /**
      * Create a new Entry.
@@ -41,6 +47,22 @@ public abstract class AbstractRecord implements Record {
         this.attribute = attribute;
     }
 
+    /**
+     * Gets the unique ID of the record in its database. 0 if the record was not read
+     * from a database, so a new unique ID is assigned when it is written.
+     */
+    public int getUniqueId()                    { return uniqueId; }
+    public void setUniqueId(int uniqueId)       { this.uniqueId = uniqueId; }
+
+    /**
+     * Gets the {@link TimeZone} the dates of the record are expressed in. When the
+     * record is read, it is the time zone of the reading
+     * {@link org.shredzone.commons.pdb.PdbFile}'s {@link CalendarFactory}. If
+     * {@code null}, the {@link CalendarFactory} of the invoking thread is used.
+     */
+    public TimeZone getTimeZone()               { return timeZone; }
+    public void setTimeZone(TimeZone timeZone)  { this.timeZone = timeZone; }
+
     @Override
     public boolean isSecret() {
         return (attribute & ATTR_SECRET) != 0;
@@ -66,4 +88,13 @@ public abstract class AbstractRecord implements Record {
         return attribute & 0x0F;
     }
 
+    /**
+     * Gets the {@link CalendarFactory} for the time zone of this record.
+     *
+     * @return {@link CalendarFactory} to be used for creating {@link java.util.Calendar}
+     */
+    protected CalendarFactory getCalendarFactory() {
+        return CalendarFactory.forTimeZone(timeZone);
+    }
+
 }
@@ -19,15 +19,19 @@
  */
 package org.shredzone.commons.pdb.record;
 
-import java.util.EnumMap;
+import org.shredzone.commons.pdb.EncodedStrings;
 
 /**
  * A {@link Record} implementation that contains an Address record.
  */
 public class AddressRecord extends AbstractRecord {
 
-    private EnumMap<Field, Label> labels = new EnumMap<>(Field.class);
-    private EnumMap<Field, String> fields = new EnumMap<>(Field.class);
+    private static final Field[] FIELDS = Field.values();
+
+    private final Label[] labels = new Label[FIELDS.length];
+    private final String[] fields = new String[FIELDS.length];
+    private EncodedStrings encodedFields;
+    private int pendingFields;
     private int displayPhone;
 
     public AddressRecord(int attribute) {
@@ -42,8 +46,39 @@ public class AddressRecord extends AbstractRecord {
      *            Field name
      * @return value
      */
-    public String getField(Field field)                { return fields.get(field); }
-    public void setField(Field field, String value)    { fields.put(field, value); }
+    public String getField(Field field) {
+        int ix = field.ordinal();
+        if ((pendingFields & (1 << ix)) != 0) {
+            fields[ix] = encodedFields.get(ix);
+            pendingFields &= ~(1 << ix);
+        }
+        return fields[ix];
+    }
+
+    public void setField(Field field, String value) {
+        int ix = field.ordinal();
+        fields[ix] = value;
+        pendingFields &= ~(1 << ix);
+    }
+
+    /**
+     * Sets the encoded values of all fields, indexed by the ordinal of the {@link Field}.
+     * The values replace all fields, and are decoded when they are read for the first
+     * time.
+     *
+     * @param encodedFields
+     *            {@link EncodedStrings} containing the field values
+     */
+    public void setEncodedFields(EncodedStrings encodedFields) {
+        this.encodedFields = encodedFields;
+        this.pendingFields = 0;
+        for (int ix = 0; ix < FIELDS.length; ix++) {
+            fields[ix] = null;
+            if (encodedFields.isSet(ix)) {
+                pendingFields |= 1 << ix;
+            }
+        }
+    }
 
     /**
      * Gets the label of a field. May be {@code null} when that field was not
@@ -53,8 +88,8 @@ public class AddressRecord extends AbstractRecord {
      *            Field name
      * @return Label of that field
      */
-    public Label getLabel(Field field)                { return labels.get(field); }
-    public void setLabel(Field field, Label label)    { labels.put(field, label); }
+    public Label getLabel(Field field)                { return labels[field.ordinal()]; }
+    public void setLabel(Field field, Label label)    { labels[field.ordinal()] = label; }
 
     /**
      * Gets the phone index to be displayed.
@@ -67,7 +102,7 @@ public class AddressRecord extends AbstractRecord {
         StringBuilder sb = new StringBuilder();
         sb.append("Address:[").append("display=").append(displayPhone);
 
-        for (Field field : Field.values()) {
+        for (Field field : FIELDS) {
             String value = getField(field);
             if (value != null) {
                 sb.append(' ').append(getLabel(field)).append("='").append(value).append('\'');
@@ -20,17 +20,55 @@
 package org.shredzone.commons.pdb.record;
 
 import java.util.Calendar;
+import java.util.TimeZone;
+
+import org.shredzone.commons.pdb.PalmDate;
+import org.shredzone.commons.pdb.image.PalmBitmap;
+import org.shredzone.commons.pdb.image.PalmRle;
+import org.shredzone.commons.pdb.image.Thumbnail;
 
 /**
  * An {@link Record} implementation that contains a Notepad entry.
  */
 public class NotepadRecord extends AbstractRecord implements DatedRecord {
 
+    /**
+     * Raw date value if no date is set.
+     */
+    public static final long NO_DATE = -1L;
+
+    /**
+     * Image type if there is no image.
+     */
+    public static final int IMAGE_NONE = -1;
+
+    /**
+     * Image type of an uncompressed PalmOS bitmap.
+     */
+    public static final int IMAGE_BITMAP = 0;
+
+    /**
+     * Image type of a Run Length Encoded PalmOS bitmap.
+     */
+    public static final int IMAGE_RLE = 1;
+
+    /**
+     * Image type of a PNG file.
+     */
+    public static final int IMAGE_PNG = 2;
+
     private String title;
-    private Calendar created;
-    private Calendar modified;
-    private Calendar alarm;
-    private byte[] imagePng;
+    private long created = NO_DATE;
+    private long modified = NO_DATE;
+    private long alarm = NO_DATE;
+    private volatile Calendar createdCalendar;
+    private volatile Calendar modifiedCalendar;
+    private volatile Calendar alarmCalendar;
+    private int imageType = IMAGE_NONE;
+    private int imageWidth;
+    private int imageHeight;
+    private byte[] imageData;
+    private Thumbnail thumbnail;
 
     /**
      * Creates a new {@link NotepadRecord}.
@@ -51,26 +89,204 @@ public class NotepadRecord extends AbstractRecord implements DatedRecord {
     /**
      * Get the date and time when the note was created.
      */
-    public Calendar getCreated()                { return created; }
-    public void setCreated(Calendar created)    { this.created = created; }
+    public Calendar getCreated() {
+        Calendar cal = createdCalendar;
+        if (cal == null) {
+            if (created == NO_DATE) {
+                return null;
+            }
+            cal = getCalendarFactory().createFromLocalTimestamp(created);
+            createdCalendar = cal;
+        }
+        return (Calendar) cal.clone();
+    }
+
+    public void setCreated(Calendar created) {
+        this.created = toLocalTimestamp(created);
+        this.createdCalendar = created != null ? (Calendar) created.clone() : null;
+    }
+
+    /**
+     * Get the date and time when the note was created, in seconds since the PalmOS
+     * epoch, in local time.
+     */
+    public long getRawCreated()                 { return created; }
+    public void setRawCreated(long created) {
+        this.created = created;
+        this.createdCalendar = null;
+    }
 
     /**
      * Get the date and time when the note was modified. May be {@code null}.
      */
-    public Calendar getModified()               { return modified; }
-    public void setModified(Calendar modified)  { this.modified = modified; }
+    public Calendar getModified() {
+        Calendar cal = modifiedCalendar;
+        if (cal == null) {
+            if (modified == NO_DATE) {
+                return null;
+            }
+            cal = getCalendarFactory().createFromLocalTimestamp(modified);
+            modifiedCalendar = cal;
+        }
+        return (Calendar) cal.clone();
+    }
+
+    public void setModified(Calendar modified) {
+        this.modified = toLocalTimestamp(modified);
+        this.modifiedCalendar = modified != null ? (Calendar) modified.clone() : null;
+    }
+
+    /**
+     * Get the date and time when the note was modified, in seconds since the PalmOS
+     * epoch, in local time. {@link #NO_DATE} if not set.
+     */
+    public long getRawModified()                { return modified; }
+    public void setRawModified(long modified) {
+        this.modified = modified;
+        this.modifiedCalendar = null;
+    }
 
     /**
      * Get the date and time of the notepad alarm. {@code null} when no alarm is set.
      */
-    public Calendar getAlarm()                  { return alarm; }
-    public void setAlarm(Calendar alarm)        { this.alarm = alarm; }
+    public Calendar getAlarm() {
+        Calendar cal = alarmCalendar;
+        if (cal == null) {
+            if (alarm == NO_DATE) {
+                return null;
+            }
+            cal = getCalendarFactory().createFromLocalTimestamp(alarm);
+            alarmCalendar = cal;
+        }
+        return (Calendar) cal.clone();
+    }
+
+    public void setAlarm(Calendar alarm) {
+        this.alarm = toLocalTimestamp(alarm);
+        this.alarmCalendar = alarm != null ? (Calendar) alarm.clone() : null;
+    }
 
     /**
-     * Gets the image data. This is a PNG file.
+     * Get the date and time of the notepad alarm, in seconds since the PalmOS epoch, in
+     * local time. {@link #NO_DATE} when no alarm is set.
      */
-    public byte[] getImagePng()                 { return imagePng; }
-    public void setImagePng(byte[] imagePng)    { this.imagePng = imagePng; }
+    public long getRawAlarm()                   { return alarm; }
+    public void setRawAlarm(long alarm) {
+        this.alarm = alarm;
+        this.alarmCalendar = null;
+    }
+
+    /**
+     * Gets the image data as PNG file. It is {@code null} if there is no image, or if
+     * the image is kept in a PalmOS bitmap format. In that case, use
+     * {@link #getBitmap()}.
+     *
+     * @see org.shredzone.commons.pdb.converter.NotepadConverter#setPngConversion(boolean)
+     */
+    public byte[] getImagePng() {
+        return imageType == IMAGE_PNG ? imageData : null;
+    }
+
+    public void setImagePng(byte[] imagePng) {
+        setImage(imagePng != null ? IMAGE_PNG : IMAGE_NONE, imageWidth, imageHeight, imagePng);
+    }
+
+    /**
+     * Sets the image in its native PalmOS format.
+     *
+     * @param type
+     *            Image type, see the IMAGE constants
+     * @param width
+     *            Image width
+     * @param height
+     *            Image height
+     * @param data
+     *            Image data
+     */
+    public void setImage(int type, int width, int height, byte[] data) {
+        this.imageType = type;
+        this.imageWidth = width;
+        this.imageHeight = height;
+        this.imageData = data;
+    }
+
+    /**
+     * Gets the type of the image in its native format. See the IMAGE constants.
+     * {@link #IMAGE_NONE} if there is no image.
+     */
+    public int getImageType()                   { return imageType; }
+
+    /**
+     * Gets the image width.
+     */
+    public int getImageWidth()                  { return imageWidth; }
+
+    /**
+     * Gets the image height.
+     */
+    public int getImageHeight()                 { return imageHeight; }
+
+    /**
+     * Gets the image data in its native format, without any conversion. {@code null}
+     * if there is no image.
+     */
+    public byte[] getImageData()                { return imageData; }
+
+    /**
+     * Gets the image as PalmOS bitmap with one bit per pixel. A set bit is a black
+     * pixel, and each row is padded to 16 bits.
+     *
+     * @return Bitmap, or {@code null} if there is no image or the image is a PNG file
+     * @see PalmBitmap
+     */
+    public byte[] getBitmap() {
+        if (imageData == null) {
+            return null;
+        }
+
+        switch (imageType) {
+            case IMAGE_BITMAP: return imageData;
+            case IMAGE_RLE: return PalmRle.decode(imageData,
+                            PalmBitmap.getBytesPerRow(imageWidth) * imageHeight);
+            default: return null;
+        }
+    }
+
+    /**
+     * Creates a greyscale thumbnail of the image. The thumbnail is computed directly
+     * from the PalmOS bitmap, without converting it to PNG first.
+     *
+     * @param width
+     *            Thumbnail width
+     * @param height
+     *            Thumbnail height
+     * @return {@link Thumbnail}, or {@code null} if there is no image or the image is a
+     *         PNG file
+     * @see PalmBitmap#toThumbnail(int, int, byte[], int, int)
+     */
+    public Thumbnail createThumbnail(int width, int height) {
+        byte[] bitmap = getBitmap();
+        if (bitmap == null) {
+            return null;
+        }
+        return PalmBitmap.toThumbnail(imageWidth, imageHeight, bitmap, width, height);
+    }
+
+    /**
+     * Gets the thumbnail that was created by the converter. May be {@code null}.
+     *
+     * @see org.shredzone.commons.pdb.converter.NotepadConverter#setThumbnailWidth(int)
+     */
+    public Thumbnail getThumbnail()             { return thumbnail; }
+    public void setThumbnail(Thumbnail thumbnail) { this.thumbnail = thumbnail; }
+
+    @Override
+    public void setTimeZone(TimeZone timeZone) {
+        super.setTimeZone(timeZone);
+        this.createdCalendar = null;
+        this.modifiedCalendar = null;
+        this.alarmCalendar = null;
+    }
 
     @Override
     public Calendar getRecordDate() {
@@ -81,18 +297,49 @@ public class NotepadRecord extends AbstractRecord implements DatedRecord {
     public String toString() {
         StringBuilder sb = new StringBuilder();
         sb.append("Notepad:[");
-        sb.append("created=").append(created);
-        if (modified != null) {
-            sb.append(" modified=").append(modified);
+        sb.append("created=").append(getCreated());
+        if (modified != NO_DATE) {
+            sb.append(" modified=").append(getModified());
         }
         if (title != null) {
             sb.append(" title='").append(title).append('\'');
         }
-        if (alarm != null) {
-            sb.append(" alarm=").append(alarm);
+        if (alarm != NO_DATE) {
+            sb.append(" alarm=").append(getAlarm());
         }
-        sb.append(" image-png=").append(imagePng.length).append(" bytes]");
+        if (imageData != null) {
+            sb.append(" image=").append(imageWidth).append('x').append(imageHeight);
+            sb.append(" type=").append(imageType);
+            sb.append(" data=").append(imageData.length).append(" bytes");
+        }
+        if (thumbnail != null) {
+            sb.append(" thumbnail=").append(thumbnail.getWidth()).append('x').append(thumbnail.getHeight());
+        }
+        sb.append(']');
         return sb.toString();
     }
 
+    /**
+     * Optional fields of a note. They can be used to select the fields to be read.
+     */
+    public enum Field {
+        TITLE, IMAGE,
+    }
+
+    /**
+     * Converts a {@link Calendar} to a PalmOS timestamp in local time.
+     */
+    private static long toLocalTimestamp(Calendar cal) {
+        if (cal == null) {
+            return NO_DATE;
+        }
+        return PalmDate.toTimestamp(
+                        cal.get(Calendar.YEAR),
+                        cal.get(Calendar.MONTH) + 1,
+                        cal.get(Calendar.DAY_OF_MONTH),
+                        cal.get(Calendar.HOUR_OF_DAY),
+                        cal.get(Calendar.MINUTE),
+                        cal.get(Calendar.SECOND));
+    }
+
 }
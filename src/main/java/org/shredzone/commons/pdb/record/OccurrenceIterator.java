@@ -0,0 +1,386 @@
+/*
+ * Shredzone Commons - pdb
+ *
+ * Copyright (C) 2009 Richard "Shred" Körber
+ *   http://commons.shredzone.org
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Library General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Library General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.shredzone.commons.pdb.record;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import org.shredzone.commons.pdb.PalmDate;
+import org.shredzone.commons.pdb.record.ScheduleRecord.Repeat;
+import org.shredzone.commons.pdb.record.ScheduleRecord.ShortDate;
+
+/**
+ * Iterates over the occurrences of a {@link ScheduleRecord} within a window of days.
+ * <p>
+ * Occurrences are returned as day numbers (see {@link PalmDate}) in ascending order. They
+ * can be converted with {@link PalmDate#toPacked(int)} or {@link PalmDate#toYmd(int)}.
+ * No {@link java.util.Calendar} is used. The iteration starts directly at the beginning
+ * of the window, so the number of repetitions before the window does not matter.
+ * Exceptions of the schedule are skipped.
+ * <p>
+ * Weeks start on Sunday. Monthly repetitions on a day that does not exist in a month
+ * (e.g. the 31st), and yearly repetitions on February 29th, skip that month or year.
+ *
+ * @see ScheduleRecord#getOccurrences(int, int)
+ */
+public class OccurrenceIterator {
+
+    private static final int NONE = Integer.MIN_VALUE;
+    private static final int LAST_WEEK = 4;
+
+    private final Repeat.Mode mode;
+    private final int frequency;
+    private final int start;
+    private final int from;
+    private final int end;
+    private final int startYear;
+    private final int startMonth;
+    private final int startDay;
+    private final boolean[] weeklyDays;
+    private final int monthlyWeek;
+    private final int monthlyDay;
+    private final int[] exceptions;
+    private int exceptionIx;
+    private int cursor;
+    private int next;
+
+    /**
+     * Creates a new {@link OccurrenceIterator}.
+     *
+     * @param record
+     *            {@link ScheduleRecord} to iterate over
+     * @param fromDayNumber
+     *            First day of the window, as day number
+     * @param toDayNumber
+     *            Last day of the window (inclusive), as day number
+     */
+    public OccurrenceIterator(ScheduleRecord record, int fromDayNumber, int toDayNumber) {
+        ShortDate schedule = record.getSchedule();
+        Repeat repeat = record.getRepeat();
+
+        this.start = schedule != null ? schedule.toDayNumber() : NONE;
+        this.mode = repeat != null ? repeat.getMode() : null;
+        this.frequency = repeat != null ? Math.max(repeat.getFrequency(), 1) : 1;
+        this.from = Math.max(fromDayNumber, start);
+
+        int last = toDayNumber;
+        if (repeat == null) {
+            last = Math.min(last, start);
+        } else if (repeat.getUntil() != null) {
+            last = Math.min(last, repeat.getUntil().toDayNumber());
+        }
+        this.end = last;
+
+        if (schedule != null) {
+            this.startYear = schedule.getYear();
+            this.startMonth = schedule.getMonth();
+            this.startDay = schedule.getDay();
+        } else {
+            this.startYear = 0;
+            this.startMonth = 0;
+            this.startDay = 0;
+        }
+
+        this.weeklyDays = repeat != null ? repeat.getWeeklyDays() : null;
+        this.monthlyWeek = repeat != null ? repeat.getMonthlyWeek() : 0;
+        this.monthlyDay = repeat != null ? repeat.getMonthlyDay() : 0;
+
+        this.exceptions = toSortedDayNumbers(record.getExceptions());
+        int ix = Arrays.binarySearch(exceptions, from);
+        this.exceptionIx = ix >= 0 ? ix : -ix - 1;
+
+        if (schedule == null || from > end) {
+            this.next = NONE;
+        } else {
+            this.cursor = initCursor();
+            this.next = findNext();
+        }
+    }
+
+    /**
+     * Checks if there is another occurrence.
+     */
+    public boolean hasNext() {
+        return next != NONE;
+    }
+
+    /**
+     * Returns the next occurrence.
+     *
+     * @return Day number of the next occurrence
+     * @throws NoSuchElementException
+     *             if there are no more occurrences
+     */
+    public int next() {
+        if (next == NONE) {
+            throw new NoSuchElementException();
+        }
+        int result = next;
+        next = findNext();
+        return result;
+    }
+
+    /**
+     * Counts the remaining occurrences. The iterator is exhausted afterwards.
+     *
+     * @return Number of occurrences
+     */
+    public int count() {
+        int count = 0;
+        while (next != NONE) {
+            count++;
+            next = findNext();
+        }
+        return count;
+    }
+
+    /**
+     * Sets the cursor to the first candidate at or after the window start. The cursor is
+     * a day number for daily and weekly repetitions, a month index (year * 12 + month - 1)
+     * for monthly repetitions, and a year for yearly repetitions.
+     */
+    private int initCursor() {
+        if (mode == null) {
+            return start;
+        }
+
+        switch (mode) {
+            case DAILY:
+                return start + ceilDiv(from - start, frequency) * frequency;
+
+            case WEEKLY:
+                return from;
+
+            case MONTHLY:
+            case MONTHLY_BY_DAY: {
+                int startIndex = startYear * 12 + startMonth - 1;
+                int ymd = PalmDate.toYmd(from);
+                int fromIndex = (ymd / 10000) * 12 + (ymd / 100) % 100 - 1;
+                return startIndex + ceilDiv(fromIndex - startIndex, frequency) * frequency;
+            }
+
+            case YEARLY: {
+                int fromYear = PalmDate.toYmd(from) / 10000;
+                return startYear + ceilDiv(fromYear - startYear, frequency) * frequency;
+            }
+
+            default:
+                throw new IllegalStateException("unknown mode " + mode);
+        }
+    }
+
+    /**
+     * Finds the next occurrence that is not an exception.
+     *
+     * @return Day number of the next occurrence, or {@link #NONE}
+     */
+    private int findNext() {
+        int candidate = nextCandidate();
+        while (candidate != NONE && isException(candidate)) {
+            candidate = nextCandidate();
+        }
+        return candidate;
+    }
+
+    /**
+     * Checks if the day is an exception. Must be invoked with ascending days.
+     */
+    private boolean isException(int day) {
+        while (exceptionIx < exceptions.length && exceptions[exceptionIx] < day) {
+            exceptionIx++;
+        }
+        return exceptionIx < exceptions.length && exceptions[exceptionIx] == day;
+    }
+
+    /**
+     * Finds the next candidate and advances the cursor.
+     *
+     * @return Day number of the next candidate, or {@link #NONE}
+     */
+    private int nextCandidate() {
+        if (mode == null) {
+            return nextSingle();
+        }
+
+        switch (mode) {
+            case DAILY: return nextDaily();
+            case WEEKLY: return nextWeekly();
+            case MONTHLY: return nextMonthly();
+            case MONTHLY_BY_DAY: return nextMonthlyByDay();
+            case YEARLY: return nextYearly();
+            default: throw new IllegalStateException("unknown mode " + mode);
+        }
+    }
+
+    private int nextSingle() {
+        int day = cursor;
+        cursor = NONE;
+        return day != NONE && day >= from && day <= end ? day : NONE;
+    }
+
+    private int nextDaily() {
+        int day = cursor;
+        if (day > end) {
+            return NONE;
+        }
+        cursor += frequency;
+        return day;
+    }
+
+    private int nextWeekly() {
+        if (weeklyDays == null) {
+            return NONE;
+        }
+
+        int startWeek = start - PalmDate.getDayOfWeek(start);
+        int day = cursor;
+        while (day <= end) {
+            int dow = PalmDate.getDayOfWeek(day);
+            int skip = ((day - dow - startWeek) / 7) % frequency;
+            if (skip != 0) {
+                // Jump to the beginning of the next week of the repetition
+                day = day - dow + (frequency - skip) * 7;
+                continue;
+            }
+
+            // Find the next weekday of the repetition in this week
+            for (int wd = dow; wd < 7; wd++, day++) {
+                if (wd < weeklyDays.length && weeklyDays[wd] && day <= end) {
+                    cursor = day + 1;
+                    return day;
+                }
+            }
+        }
+        return NONE;
+    }
+
+    private int nextMonthly() {
+        while (true) {
+            int year = cursor / 12;
+            int month = cursor % 12 + 1;
+            int first = PalmDate.toDayNumber(year, month, 1);
+            if (first > end) {
+                return NONE;
+            }
+            cursor += frequency;
+
+            if (startDay <= daysInMonth(year, month, first)) {
+                int day = first + startDay - 1;
+                if (day >= from && day <= end) {
+                    return day;
+                }
+            }
+        }
+    }
+
+    private int nextMonthlyByDay() {
+        while (true) {
+            int year = cursor / 12;
+            int month = cursor % 12 + 1;
+            int first = PalmDate.toDayNumber(year, month, 1);
+            if (first > end) {
+                return NONE;
+            }
+            cursor += frequency;
+
+            int days = daysInMonth(year, month, first);
+            int day;
+            if (monthlyWeek >= LAST_WEEK) {
+                int last = first + days - 1;
+                day = last - (PalmDate.getDayOfWeek(last) - monthlyDay + 7) % 7;
+            } else {
+                day = first + (monthlyDay - PalmDate.getDayOfWeek(first) + 7) % 7 + monthlyWeek * 7;
+                if (day >= first + days) {
+                    continue;
+                }
+            }
+
+            if (day >= from && day <= end) {
+                return day;
+            }
+        }
+    }
+
+    private int nextYearly() {
+        while (true) {
+            int year = cursor;
+            int first = PalmDate.toDayNumber(year, startMonth, 1);
+            if (first > end) {
+                return NONE;
+            }
+            cursor += frequency;
+
+            if (startDay <= daysInMonth(year, startMonth, first)) {
+                int day = first + startDay - 1;
+                if (day >= from && day <= end) {
+                    return day;
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the number of days of a month.
+     *
+     * @param year
+     *            Year
+     * @param month
+     *            Month (1 to 12)
+     * @param first
+     *            Day number of the first day of the month
+     * @return Number of days
+     */
+    private static int daysInMonth(int year, int month, int first) {
+        int next = month == 12
+                        ? PalmDate.toDayNumber(year + 1, 1, 1)
+                        : PalmDate.toDayNumber(year, month + 1, 1);
+        return next - first;
+    }
+
+    /**
+     * Divides and rounds up. Negative dividends give 0.
+     */
+    private static int ceilDiv(int dividend, int divisor) {
+        if (dividend <= 0) {
+            return 0;
+        }
+        return (dividend + divisor - 1) / divisor;
+    }
+
+    /**
+     * Converts the exceptions to a sorted array of day numbers.
+     */
+    private static int[] toSortedDayNumbers(List<ShortDate> dates) {
+        int[] result = new int[dates.size()];
+        int count = 0;
+        for (ShortDate date : dates) {
+            if (date != null) {
+                result[count++] = date.toDayNumber();
+            }
+        }
+        if (count < result.length) {
+            result = Arrays.copyOf(result, count);
+        }
+        Arrays.sort(result);
+        return result;
+    }
+
+}
@@ -23,20 +23,22 @@ import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.List;
 
-import org.shredzone.commons.pdb.CalendarFactory;
+import org.shredzone.commons.pdb.EncodedStrings;
+import org.shredzone.commons.pdb.PalmDate;
 
 /**
  * An {@link Record} implementation for the Calendar PDB.
  */
 public class ScheduleRecord extends AbstractRecord implements DatedRecord {
 
-    private CalendarFactory cf = CalendarFactory.getInstance();
     private ShortDate schedule;
     private ShortTime startTime;
     private ShortTime endTime;
     private Alarm alarm;
     private Repeat repeat;
     private List<ShortDate> exceptions = new ArrayList<>();
+    private EncodedStrings encodedTexts;
+    private int pendingTexts;
     private String description;
     private String note;
     private String location;
@@ -91,23 +93,85 @@ public class ScheduleRecord extends AbstractRecord implements DatedRecord {
      */
     public List<ShortDate> getExceptions()      { return exceptions; }
 
+    /**
+     * Returns an {@link OccurrenceIterator} over the occurrences of this schedule within
+     * the given window. The repetition and the exceptions are taken into account.
+     *
+     * @param fromDayNumber
+     *            First day of the window, as day number (see {@link PalmDate})
+     * @param toDayNumber
+     *            Last day of the window (inclusive), as day number
+     * @return {@link OccurrenceIterator} returning the day numbers of the occurrences
+     */
+    public OccurrenceIterator getOccurrences(int fromDayNumber, int toDayNumber) {
+        return new OccurrenceIterator(this, fromDayNumber, toDayNumber);
+    }
+
     /**
      * Gets the description for this schedule. May be {@code null}.
      */
-    public String getDescription()              { return description; }
-    public void setDescription(String description) { this.description = description; }
+    public String getDescription() {
+        if ((pendingTexts & 1) != 0) {
+            description = decodeText(0);
+        }
+        return description;
+    }
+
+    public void setDescription(String description) {
+        this.description = description;
+        pendingTexts &= ~1;
+    }
 
     /**
      * Gets an optional note. May be {@code null}.
      */
-    public String getNote()                     { return note; }
-    public void setNote(String note)            { this.note = note; }
+    public String getNote() {
+        if ((pendingTexts & 2) != 0) {
+            note = decodeText(1);
+        }
+        return note;
+    }
+
+    public void setNote(String note) {
+        this.note = note;
+        pendingTexts &= ~2;
+    }
 
     /**
      * Gets the location of the schedule. May be {@code null}.
      */
-    public String getLocation()                 { return location; }
-    public void setLocation(String location)    { this.location = location; }
+    public String getLocation() {
+        if ((pendingTexts & 4) != 0) {
+            location = decodeText(2);
+        }
+        return location;
+    }
+
+    public void setLocation(String location) {
+        this.location = location;
+        pendingTexts &= ~4;
+    }
+
+    /**
+     * Sets the encoded texts of this schedule. The texts replace the description (index
+     * 0), the note (index 1) and the location (index 2), and are decoded when they are
+     * read for the first time.
+     *
+     * @param encodedTexts
+     *            {@link EncodedStrings} containing the texts
+     */
+    public void setEncodedTexts(EncodedStrings encodedTexts) {
+        this.encodedTexts = encodedTexts;
+        this.description = null;
+        this.note = null;
+        this.location = null;
+        this.pendingTexts = 0;
+        for (int ix = 0; ix < encodedTexts.size(); ix++) {
+            if (encodedTexts.isSet(ix)) {
+                pendingTexts |= 1 << ix;
+            }
+        }
+    }
 
     /**
      * Gets the category of the schedule.
@@ -117,7 +181,7 @@ public class ScheduleRecord extends AbstractRecord implements DatedRecord {
 
     @Override
     public Calendar getRecordDate() {
-        Calendar result = cf.create();
+        Calendar result = getCalendarFactory().create();
         result.clear();
         result.set(schedule.getYear(), schedule.getMonth() - 1, schedule.getDay());
         if (startTime != null) {
@@ -155,16 +219,16 @@ public class ScheduleRecord extends AbstractRecord implements DatedRecord {
             sb.append('}');
         }
 
-        if (description != null) {
-            sb.append(" description='").append(description).append('\'');
+        if (getDescription() != null) {
+            sb.append(" description='").append(getDescription()).append('\'');
         }
 
-        if (note != null) {
-            sb.append(" note='").append(note).append('\'');
+        if (getNote() != null) {
+            sb.append(" note='").append(getNote()).append('\'');
         }
 
-        if (location != null) {
-            sb.append(" location='").append(location).append('\'');
+        if (getLocation() != null) {
+            sb.append(" location='").append(getLocation()).append('\'');
         }
 
         if (category != null) {
@@ -175,6 +239,13 @@ public class ScheduleRecord extends AbstractRecord implements DatedRecord {
         return sb.toString();
     }
 
+    /**
+     * Optional fields of a schedule. They can be used to select the fields to be read.
+     */
+    public enum Field {
+        ALARM, REPEAT, EXCEPTIONS, DESCRIPTION, NOTE, LOCATION,
+    }
+
     /**
      * Contains an immutable date.
      */
@@ -211,10 +282,37 @@ public class ScheduleRecord extends AbstractRecord implements DatedRecord {
             this.day = calendar.get(Calendar.DAY_OF_MONTH);
         }
 
+        /**
+         * Creates a new {@link ShortDate} from a packed PalmOS date.
+         *
+         * @param packed
+         *            Packed date
+         * @return {@link ShortDate}, or {@code null} if the packed date is
+         *         {@link PalmDate#NO_DATE}
+         */
+        public static ShortDate fromPackedDate(int packed) {
+            if (packed == PalmDate.NO_DATE) {
+                return null;
+            }
+
+            // Normalize invalid dates like Calendar would do it
+            int ymd = PalmDate.toYmd(PalmDate.toDayNumber(packed));
+            return new ShortDate(ymd / 10000, (ymd / 100) % 100, ymd % 100);
+        }
+
         public int getYear()                { return year; }
         public int getMonth()               { return month; }
         public int getDay()                 { return day; }
 
+        /**
+         * Converts this date to a day number (see {@link PalmDate}).
+         *
+         * @return Number of days since the PalmOS epoch
+         */
+        public int toDayNumber() {
+            return PalmDate.toDayNumber(year, month, day);
+        }
+
         @Override
         public String toString() {
             return String.format("%04d-%02d-%02d", year, month, day);
@@ -387,4 +485,16 @@ public class ScheduleRecord extends AbstractRecord implements DatedRecord {
         }
     }
 
+    /**
+     * Decodes a text from the encoded texts.
+     *
+     * @param index
+     *            Index of the text
+     * @return Decoded text
+     */
+    private String decodeText(int index) {
+        pendingTexts &= ~(1 << index);
+        return encodedTexts.get(index);
+    }
+
 }
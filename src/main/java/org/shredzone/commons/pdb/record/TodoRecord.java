@@ -20,15 +20,22 @@
 package org.shredzone.commons.pdb.record;
 
 import java.util.Calendar;
+import java.util.TimeZone;
+
+import org.shredzone.commons.pdb.EncodedStrings;
+import org.shredzone.commons.pdb.PalmDate;
 
 /**
  * A {@link Record} implementation that contains a To-do record.
  */
 public class TodoRecord extends AbstractRecord implements DatedRecord {
 
-    private Calendar date;
+    private int packedDate = PalmDate.NO_DATE;
+    private volatile Calendar date;
     private int priority;
     private boolean completed;
+    private EncodedStrings encodedTexts;
+    private int pendingTexts;
     private String description;
     private String note;
 
@@ -45,8 +52,35 @@ public class TodoRecord extends AbstractRecord implements DatedRecord {
     /**
      * Gets the due date. The time part is always set to midnight local time.
      */
-    public Calendar getDate()                   { return date; }
-    public void setDate(Calendar date)          { this.date = date; }
+    public Calendar getDate() {
+        Calendar cal = date;
+        if (cal == null) {
+            cal = getCalendarFactory().createFromPackedDate(packedDate);
+            date = cal;
+        }
+        return cal != null ? (Calendar) cal.clone() : null;
+    }
+
+    public void setDate(Calendar date) {
+        this.packedDate = date != null
+                        ? PalmDate.pack(date.get(Calendar.YEAR),
+                                        date.get(Calendar.MONTH) + 1,
+                                        date.get(Calendar.DAY_OF_MONTH))
+                        : PalmDate.NO_DATE;
+        this.date = date != null ? (Calendar) date.clone() : null;
+    }
+
+    /**
+     * Gets the due date as packed PalmOS date. {@link PalmDate#NO_DATE} if no due date
+     * is set.
+     *
+     * @see PalmDate
+     */
+    public int getPackedDate()                  { return packedDate; }
+    public void setPackedDate(int packedDate) {
+        this.packedDate = packedDate;
+        this.date = null;
+    }
 
     /**
      * Gets the priority.
@@ -63,14 +97,58 @@ public class TodoRecord extends AbstractRecord implements DatedRecord {
     /**
      * Gets the description.
      */
-    public String getDescription()              { return description; }
-    public void setDescription(String description) { this.description = description; }
+    public String getDescription() {
+        if ((pendingTexts & 1) != 0) {
+            description = decodeText(0);
+        }
+        return description;
+    }
+
+    public void setDescription(String description) {
+        this.description = description;
+        pendingTexts &= ~1;
+    }
 
     /**
      * Gets the note.
      */
-    public String getNote()                     { return note; }
-    public void setNote(String note)            { this.note = note; }
+    public String getNote() {
+        if ((pendingTexts & 2) != 0) {
+            String text = decodeText(1);
+            note = text != null && text.length() > 0 ? text : null;
+        }
+        return note;
+    }
+
+    public void setNote(String note) {
+        this.note = note;
+        pendingTexts &= ~2;
+    }
+
+    /**
+     * Sets the encoded texts of this to-do. The texts replace the description (index 0)
+     * and the note (index 1), and are decoded when they are read for the first time.
+     *
+     * @param encodedTexts
+     *            {@link EncodedStrings} containing the texts
+     */
+    public void setEncodedTexts(EncodedStrings encodedTexts) {
+        this.encodedTexts = encodedTexts;
+        this.description = null;
+        this.note = null;
+        this.pendingTexts = 0;
+        for (int ix = 0; ix < encodedTexts.size(); ix++) {
+            if (encodedTexts.isSet(ix)) {
+                pendingTexts |= 1 << ix;
+            }
+        }
+    }
+
+    @Override
+    public void setTimeZone(TimeZone timeZone) {
+        super.setTimeZone(timeZone);
+        this.date = null;
+    }
 
     @Override
     public Calendar getRecordDate() {
@@ -84,18 +162,18 @@ public class TodoRecord extends AbstractRecord implements DatedRecord {
 
         sb.append(completed ? "complete" : "open");
 
-        if (date != null) {
-            sb.append(" date=").append(date);
+        if (packedDate != PalmDate.NO_DATE) {
+            sb.append(" date=").append(getDate());
         }
 
         sb.append(" priority=").append(priority);
 
-        if (description != null) {
-            sb.append(" description='").append(description).append('\'');
+        if (getDescription() != null) {
+            sb.append(" description='").append(getDescription()).append('\'');
         }
 
-        if (note != null) {
-            sb.append(" note='").append(note).append('\'');
+        if (getNote() != null) {
+            sb.append(" note='").append(getNote()).append('\'');
         }
 
         sb.append(']');
@@ -103,4 +181,23 @@ public class TodoRecord extends AbstractRecord implements DatedRecord {
         return sb.toString();
     }
 
+    /**
+     * Optional fields of a to-do. They can be used to select the fields to be read.
+     */
+    public enum Field {
+        DESCRIPTION, NOTE,
+    }
+
+    /**
+     * Decodes a text from the encoded texts.
+     *
+     * @param index
+     *            Index of the text
+     * @return Decoded text
+     */
+    private String decodeText(int index) {
+        pendingTexts &= ~(1 << index);
+        return encodedTexts.get(index);
+    }
+
 }
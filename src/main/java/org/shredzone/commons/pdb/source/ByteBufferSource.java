@@ -0,0 +1,112 @@
+/*
+ * Shredzone Commons - pdb
+ *
+ * Copyright (C) 2009 Richard "Shred" Körber
+ *   http://commons.shredzone.org
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Library General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Library General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.shredzone.commons.pdb.source;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+
+/**
+ * A {@link PdbSource} that keeps the entire content in memory. The content can be given
+ * as byte array, or as heap or direct {@link ByteBuffer}. Read-only buffers are
+ * supported as well.
+ */
+public class ByteBufferSource implements PdbSource {
+
+    private final ByteBuffer buffer;
+
+    /**
+     * Creates a new {@link ByteBufferSource} for the given {@link ByteBuffer}. The
+     * remaining content of the buffer is used as PDB file content. The buffer's position
+     * and limit are not changed. The content must not be modified while the source is in
+     * use.
+     *
+     * @param buffer
+     *            {@link ByteBuffer} containing the PDB file
+     */
+    public ByteBufferSource(ByteBuffer buffer) {
+        this.buffer = buffer.slice();
+    }
+
+    /**
+     * Creates a new {@link ByteBufferSource} for the given byte array. The array is not
+     * copied, so its content must not be modified while the source is in use.
+     *
+     * @param data
+     *            byte array containing the PDB file
+     */
+    public ByteBufferSource(byte[] data) {
+        this(ByteBuffer.wrap(data));
+    }
+
+    /**
+     * Reads the entire {@link File} into memory.
+     *
+     * @param file
+     *            {@link File} to be read
+     * @return {@link ByteBufferSource} containing the file content
+     */
+    public static ByteBufferSource load(File file) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            long length = raf.length();
+            if (length > Integer.MAX_VALUE) {
+                throw new IOException("File is too large: " + file);
+            }
+
+            byte[] data = new byte[(int) length];
+            raf.readFully(data);
+            return new ByteBufferSource(data);
+        }
+    }
+
+    @Override
+    public long length() {
+        return buffer.capacity();
+    }
+
+    @Override
+    public int read(ByteBuffer dst, long position) {
+        if (position >= buffer.capacity()) {
+            return -1;
+        }
+
+        ByteBuffer src = buffer.duplicate();
+        src.position((int) position);
+        if (src.remaining() > dst.remaining()) {
+            src.limit(src.position() + dst.remaining());
+        }
+
+        int length = src.remaining();
+        dst.put(src);
+        return length;
+    }
+
+    @Override
+    public ByteBuffer getBuffer() {
+        return buffer.duplicate();
+    }
+
+    @Override
+    public void close() {
+        // Nothing to close
+    }
+
+}
@@ -0,0 +1,78 @@
+/*
+ * Shredzone Commons - pdb
+ *
+ * Copyright (C) 2009 Richard "Shred" Körber
+ *   http://commons.shredzone.org
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Library General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Library General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.shredzone.commons.pdb.source;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SeekableByteChannel;
+
+/**
+ * A {@link PdbSource} that reads from a {@link SeekableByteChannel}.
+ * <p>
+ * If the channel is a {@link FileChannel}, positional reads are used. Otherwise the
+ * channel's position is changed for each read, so the channel must not be used by
+ * anyone else while the source is in use.
+ * <p>
+ * <em>NOTE:</em> On Android, this source requires API level 24 or higher.
+ */
+public class ChannelSource implements PdbSource {
+
+    private final SeekableByteChannel channel;
+
+    /**
+     * Creates a new {@link ChannelSource}.
+     *
+     * @param channel
+     *            {@link SeekableByteChannel} to read from. It is closed when the source
+     *            is closed.
+     */
+    public ChannelSource(SeekableByteChannel channel) {
+        this.channel = channel;
+    }
+
+    @Override
+    public long length() throws IOException {
+        return channel.size();
+    }
+
+    @Override
+    public int read(ByteBuffer dst, long position) throws IOException {
+        if (channel instanceof FileChannel) {
+            return ((FileChannel) channel).read(dst, position);
+        }
+
+        synchronized (channel) {
+            channel.position(position);
+            return channel.read(dst);
+        }
+    }
+
+    @Override
+    public ByteBuffer getBuffer() {
+        return null;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+}
@@ -0,0 +1,107 @@
+/*
+ * Shredzone Commons - pdb
+ *
+ * Copyright (C) 2009 Richard "Shred" Körber
+ *   http://commons.shredzone.org
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Library General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Library General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.shredzone.commons.pdb.source;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * A {@link PdbSource} that reads from a file. The contents are read in blocks into a
+ * heap buffer of the {@link org.shredzone.commons.pdb.PdbFile}, so there are only a few
+ * system calls per record.
+ * <p>
+ * If opened for writing, the file can be updated in place.
+ */
+public class FileSource implements WritablePdbSource {
+
+    private final RandomAccessFile file;
+    private final FileChannel channel;
+    private final boolean writable;
+
+    /**
+     * Creates a new read-only {@link FileSource} for the given {@link File}.
+     *
+     * @param file
+     *            {@link File} to be opened
+     */
+    public FileSource(File file) throws FileNotFoundException {
+        this(file, false);
+    }
+
+    /**
+     * Creates a new {@link FileSource} for the given {@link File}.
+     *
+     * @param file
+     *            {@link File} to be opened
+     * @param writable
+     *            {@code true} to open the file for reading and writing
+     */
+    public FileSource(File file, boolean writable) throws FileNotFoundException {
+        this.file = new RandomAccessFile(file, writable ? "rw" : "r");
+        this.channel = this.file.getChannel();
+        this.writable = writable;
+    }
+
+    @Override
+    public long length() throws IOException {
+        return channel.size();
+    }
+
+    @Override
+    public int read(ByteBuffer dst, long position) throws IOException {
+        return channel.read(dst, position);
+    }
+
+    @Override
+    public boolean isWritable() {
+        return writable;
+    }
+
+    @Override
+    public int write(ByteBuffer src, long position) throws IOException {
+        if (!writable) {
+            throw new IOException("file was opened read-only");
+        }
+        return channel.write(src, position);
+    }
+
+    @Override
+    public void truncate(long size) throws IOException {
+        if (!writable) {
+            throw new IOException("file was opened read-only");
+        }
+        channel.truncate(size);
+    }
+
+    @Override
+    public ByteBuffer getBuffer() {
+        return null;
+    }
+
+    @Override
+    public void close() throws IOException {
+        file.close();
+    }
+
+}
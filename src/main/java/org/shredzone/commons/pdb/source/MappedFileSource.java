@@ -0,0 +1,71 @@
+/*
+ * Shredzone Commons - pdb
+ *
+ * Copyright (C) 2009 Richard "Shred" Körber
+ *   http://commons.shredzone.org
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Library General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Library General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.shredzone.commons.pdb.source;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * A {@link PdbSource} that maps a file into memory. All reads are served from the
+ * mapped buffer, without any system calls.
+ * <p>
+ * The file must not be changed while it is mapped.
+ */
+public class MappedFileSource implements PdbSource {
+
+    private final ByteBufferSource mapped;
+
+    /**
+     * Creates a new {@link MappedFileSource} for the given {@link File}.
+     *
+     * @param file
+     *            {@link File} to be mapped
+     */
+    public MappedFileSource(File file) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            FileChannel channel = raf.getChannel();
+            this.mapped = new ByteBufferSource(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    @Override
+    public long length() throws IOException {
+        return mapped.length();
+    }
+
+    @Override
+    public int read(ByteBuffer dst, long position) throws IOException {
+        return mapped.read(dst, position);
+    }
+
+    @Override
+    public ByteBuffer getBuffer() {
+        return mapped.getBuffer();
+    }
+
+    @Override
+    public void close() throws IOException {
+        mapped.close();
+    }
+
+}
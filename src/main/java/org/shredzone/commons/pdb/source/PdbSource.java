@@ -0,0 +1,67 @@
+/*
+ * Shredzone Commons - pdb
+ *
+ * Copyright (C) 2009 Richard "Shred" Körber
+ *   http://commons.shredzone.org
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Library General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Library General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.shredzone.commons.pdb.source;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * A source of PDB file contents. {@link org.shredzone.commons.pdb.PdbFile} reads all
+ * data through a {@link PdbSource}, so the way the contents are accessed can be chosen
+ * independently of the converters.
+ * <p>
+ * Implementations must be thread safe. Reads are positional and must not depend on a
+ * shared file pointer, so multiple {@link org.shredzone.commons.pdb.PdbFile} views can
+ * read from the same source concurrently.
+ */
+public interface PdbSource extends Closeable {
+
+    /**
+     * Returns the length of the source, in bytes.
+     *
+     * @return Length of the source
+     */
+    long length() throws IOException;
+
+    /**
+     * Reads a sequence of bytes from the given position into the buffer. Up to
+     * {@code dst.remaining()} bytes are read.
+     *
+     * @param dst
+     *            {@link ByteBuffer} to read the bytes into
+     * @param position
+     *            Position in the source to start reading from
+     * @return Number of bytes that were read, or -1 if the position is at or beyond the
+     *         end of the source
+     */
+    int read(ByteBuffer dst, long position) throws IOException;
+
+    /**
+     * Returns the entire content of the source as a {@link ByteBuffer}, if the content is
+     * resident in memory. The first byte of the source is at index 0 of the buffer. The
+     * buffer's content must not be modified.
+     *
+     * @return {@link ByteBuffer} with the content, or {@code null} if the source is not
+     *         memory resident
+     */
+    ByteBuffer getBuffer();
+
+}
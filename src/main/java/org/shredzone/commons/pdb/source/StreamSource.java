@@ -0,0 +1,187 @@
+/*
+ * Shredzone Commons - pdb
+ *
+ * Copyright (C) 2009 Richard "Shred" Körber
+ *   http://commons.shredzone.org
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Library General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Library General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.shredzone.commons.pdb.source;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * A {@link PdbSource} that reads from an {@link InputStream}.
+ * <p>
+ * The stream can only be read forward. Only the part of the stream that has not been
+ * consumed yet is kept in memory. {@link org.shredzone.commons.pdb.PdbFile#readDatabase}
+ * reads the header, the record list and the appinfo first, and then the records in
+ * the order of their offsets, so a database can be read from a stream without buffering
+ * the entire content. However, it is not possible to seek back to a position that has
+ * already been passed. For this reason, {@link org.shredzone.commons.pdb.PdbDatabaseReader}
+ * can only iterate over records of a stream if their offsets are ascending, which is
+ * the case in almost all PDB files.
+ */
+public class StreamSource implements PdbSource {
+
+    private static final int CHUNK_SIZE = 8192;
+
+    private final InputStream in;
+    private long length;
+    private byte[] buf = new byte[CHUNK_SIZE];
+    private long bufStart;
+    private int bufLen;
+    private boolean eof;
+
+    /**
+     * Creates a new {@link StreamSource} of unknown length.
+     * <p>
+     * If the length of the stream is required, the remainder of the stream is read into
+     * memory. When reading a database, this is only the case for the last record.
+     *
+     * @param in
+     *            {@link InputStream} to read from. It is closed when the source is
+     *            closed.
+     */
+    public StreamSource(InputStream in) {
+        this(in, -1L);
+    }
+
+    /**
+     * Creates a new {@link StreamSource} of a known length.
+     *
+     * @param in
+     *            {@link InputStream} to read from. It is closed when the source is
+     *            closed.
+     * @param length
+     *            Length of the stream content, in bytes. This is for example the length
+     *            of a ZIP entry, or the content length of a HTTP response.
+     */
+    public StreamSource(InputStream in, long length) {
+        this.in = in;
+        this.length = length;
+    }
+
+    @Override
+    public synchronized long length() throws IOException {
+        if (length < 0) {
+            while (!eof) {
+                fetch(bufLen + CHUNK_SIZE);
+            }
+            length = bufStart + bufLen;
+        }
+        return length;
+    }
+
+    @Override
+    public synchronized int read(ByteBuffer dst, long position) throws IOException {
+        if (position < bufStart) {
+            throw new IOException("Cannot read backwards in stream, position " + position
+                        + " was already passed");
+        }
+
+        if (!discard(position)) {
+            return -1;
+        }
+
+        if (bufLen < dst.remaining()) {
+            fetch(dst.remaining());
+        }
+
+        if (bufLen == 0) {
+            return -1;
+        }
+
+        int len = Math.min(bufLen, dst.remaining());
+        dst.put(buf, 0, len);
+        return len;
+    }
+
+    @Override
+    public ByteBuffer getBuffer() {
+        return null;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    /**
+     * Discards all buffered content before the given position. If the position is beyond
+     * the buffered content, the stream is skipped up to that position.
+     *
+     * @param position
+     *            New start position of the buffer
+     * @return {@code false} if the position is beyond the end of the stream
+     */
+    private boolean discard(long position) throws IOException {
+        long drop = position - bufStart;
+        if (drop == 0) {
+            return true;
+        }
+
+        if (drop < bufLen) {
+            System.arraycopy(buf, (int) drop, buf, 0, bufLen - (int) drop);
+            bufLen -= (int) drop;
+            bufStart = position;
+            return true;
+        }
+
+        long skip = drop - bufLen;
+        bufStart += bufLen;
+        bufLen = 0;
+        while (skip > 0 && !eof) {
+            long skipped = in.skip(skip);
+            if (skipped <= 0) {
+                // skip() gives no guarantee, so read to find out if the end was reached
+                if (in.read() < 0) {
+                    eof = true;
+                    break;
+                }
+                skipped = 1;
+            }
+            skip -= skipped;
+            bufStart += skipped;
+        }
+
+        return skip == 0;
+    }
+
+    /**
+     * Reads from the stream until the buffer contains at least the given number of bytes,
+     * or the end of the stream was reached.
+     *
+     * @param required
+     *            Number of bytes required in the buffer
+     */
+    private void fetch(int required) throws IOException {
+        if (buf.length < required) {
+            buf = Arrays.copyOf(buf, Math.max(required, buf.length * 2));
+        }
+
+        while (bufLen < required && !eof) {
+            int read = in.read(buf, bufLen, buf.length - bufLen);
+            if (read < 0) {
+                eof = true;
+            } else {
+                bufLen += read;
+            }
+        }
+    }
+
+}
@@ -0,0 +1,59 @@
+/*
+ * Shredzone Commons - pdb
+ *
+ * Copyright (C) 2009 Richard "Shred" Körber
+ *   http://commons.shredzone.org
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Library General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Library General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.shredzone.commons.pdb.source;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * A {@link PdbSource} that can also be written to. It is required for updating a PDB
+ * file in place, see {@link org.shredzone.commons.pdb.PdbUpdater}.
+ */
+public interface WritablePdbSource extends PdbSource {
+
+    /**
+     * Checks if the source was opened for writing.
+     *
+     * @return {@code true} if the source can be written to
+     */
+    boolean isWritable();
+
+    /**
+     * Writes a sequence of bytes from the buffer to the given position. Up to
+     * {@code src.remaining()} bytes are written.
+     *
+     * @param src
+     *            {@link ByteBuffer} to write the bytes from
+     * @param position
+     *            Position in the source to start writing at. If it is beyond the end of
+     *            the source, the source is extended.
+     * @return Number of bytes that were written
+     */
+    int write(ByteBuffer src, long position) throws IOException;
+
+    /**
+     * Truncates the source to the given size.
+     *
+     * @param size
+     *            New size, in bytes
+     */
+    void truncate(long size) throws IOException;
+
+}
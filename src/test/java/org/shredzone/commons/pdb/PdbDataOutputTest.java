@@ -0,0 +1,100 @@
+/*
+ * Shredzone Commons - pdb
+ *
+ * Copyright (C) 2009 Richard "Shred" Körber
+ *   http://commons.shredzone.org
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Library General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Library General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.shredzone.commons.pdb;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.shredzone.commons.pdb.appinfo.CategoryAppInfo;
+import org.shredzone.commons.pdb.appinfo.CategoryAppInfo.Category;
+import org.shredzone.commons.pdb.source.ByteBufferSource;
+
+/**
+ * Unit tests for {@link PdbDataOutput}.
+ */
+public class PdbDataOutputTest {
+
+    /**
+     * Strings are written in the layout that {@link PdbFile} reads.
+     */
+    @Test
+    public void testStrings() throws IOException {
+        PdbDataOutput out = new PdbDataOutput();
+        out.writeFixedString("DATA", 4);
+        out.writeFixedString("toolong", 4);
+        out.writeFixedString("ab", 4);
+        out.writeTerminatedFixedString("Grüße", 8);
+        out.writeTerminatedFixedString("truncated", 4);
+        out.writeTerminatedString("Köln");
+        out.writeTerminatedString(null);
+        out.writeRawPackedDate(PalmDate.pack(2009, 2, 28));
+        Assert.assertEquals(4 + 4 + 4 + 8 + 4 + 5 + 1 + 2, out.size());
+
+        try (PdbFile file = read(out)) {
+            Assert.assertEquals("DATA", file.readFixedString(4));
+            Assert.assertEquals("tool", file.readFixedString(4));
+            Assert.assertEquals("ab", file.readTerminatedFixedString(4));
+            Assert.assertEquals("Grüße", file.readTerminatedFixedString(8));
+            Assert.assertEquals("tru", file.readTerminatedFixedString(4));
+            Assert.assertEquals("Köln", file.readTerminatedString());
+            Assert.assertEquals("", file.readTerminatedString());
+            Assert.assertEquals(PalmDate.pack(2009, 2, 28), file.readRawPackedDate());
+        }
+    }
+
+    /**
+     * Categories are written in the layout that {@link PdbFile} reads.
+     */
+    @Test
+    public void testCategories() throws IOException {
+        CategoryAppInfo appInfo = new CategoryAppInfo();
+        appInfo.setCategory(0, new Category("Unfiled", 0, false));
+        appInfo.setCategory(1, new Category("Business", 1, true));
+        appInfo.setCategory(15, new Category("Last", 100, false));
+
+        PdbDataOutput out = new PdbDataOutput();
+        int size = out.writeCategories(appInfo);
+        Assert.assertEquals(out.size(), size);
+
+        CategoryAppInfo result = new CategoryAppInfo();
+        try (PdbFile file = read(out)) {
+            Assert.assertEquals(size, file.readCategories(result));
+        }
+
+        Assert.assertEquals("Unfiled", result.getCategoryName(0));
+        Assert.assertFalse(result.getCategoryByIndex(0).isRenamed());
+        Assert.assertEquals("Business", result.getCategoryName(1));
+        Assert.assertTrue(result.getCategoryByIndex(1).isRenamed());
+        Assert.assertNull(result.getCategoryByIndex(2));
+        Assert.assertEquals("Last", result.getCategoryName(15));
+        Assert.assertEquals(15, result.findCategoryByKey(100));
+    }
+
+    /**
+     * Opens a {@link PdbFile} on the data that was written.
+     */
+    private static PdbFile read(PdbDataOutput out) {
+        ByteBuffer buffer = out.toByteBuffer();
+        return new PdbFile(new ByteBufferSource(buffer));
+    }
+
+}
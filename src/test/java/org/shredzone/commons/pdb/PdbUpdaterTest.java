@@ -0,0 +1,301 @@
+/*
+ * Shredzone Commons - pdb
+ *
+ * Copyright (C) 2009 Richard "Shred" Körber
+ *   http://commons.shredzone.org
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Library General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Library General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.shredzone.commons.pdb;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.shredzone.commons.pdb.appinfo.RawAppInfo;
+import org.shredzone.commons.pdb.converter.RawConverter;
+import org.shredzone.commons.pdb.converter.RawEncoder;
+import org.shredzone.commons.pdb.record.AbstractRecord;
+import org.shredzone.commons.pdb.record.RawRecord;
+
+/**
+ * Unit tests for {@link PdbUpdater}.
+ */
+public class PdbUpdaterTest {
+
+    private static final byte[] APP_INFO = { 1, 2, 3 };
+    private static final byte[] SORT_INFO = { 4, 5, 6, 7 };
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * A record grows, and the following records are moved.
+     */
+    @Test
+    public void testGrowRecord() throws IOException {
+        File file = createFile();
+        byte[][] expected = createRecordData();
+
+        expected[0] = createData(100, 30);
+        update(file, 0, expected[0]);
+
+        PdbDatabase<RawRecord, RawAppInfo> result = read(file);
+        assertRecords(expected, result.getRecords());
+        Assert.assertArrayEquals(APP_INFO, result.getAppInfo().getRawAppInfo());
+        Assert.assertArrayEquals(SORT_INFO, result.getSortInfo());
+        Assert.assertEquals(8, result.getModificationNumber());
+    }
+
+    /**
+     * A record shrinks, and the file is truncated.
+     */
+    @Test
+    public void testShrinkRecord() throws IOException {
+        File file = createFile();
+        long length = file.length();
+        byte[][] expected = createRecordData();
+
+        expected[1] = createData(200, 2);
+        update(file, 1, expected[1]);
+
+        Assert.assertEquals(length - 8, file.length());
+        PdbDatabase<RawRecord, RawAppInfo> result = read(file);
+        assertRecords(expected, result.getRecords());
+        Assert.assertArrayEquals(APP_INFO, result.getAppInfo().getRawAppInfo());
+        Assert.assertArrayEquals(SORT_INFO, result.getSortInfo());
+    }
+
+    /**
+     * The last record grows and shrinks.
+     */
+    @Test
+    public void testResizeLastRecord() throws IOException {
+        File file = createFile();
+        byte[][] expected = createRecordData();
+
+        expected[2] = createData(50, 70000);
+        update(file, 2, expected[2]);
+        assertRecords(expected, read(file).getRecords());
+
+        expected[2] = createData(60, 1);
+        update(file, 2, expected[2]);
+        assertRecords(expected, read(file).getRecords());
+        Assert.assertEquals(9, read(file).getModificationNumber());
+    }
+
+    /**
+     * The appinfo and sortinfo areas are placed after the records, so their offsets are
+     * changed as well.
+     */
+    @Test
+    public void testAreasAfterRecords() throws IOException {
+        byte[][] records = createRecordData();
+
+        int listEnd = PdbHeader.SIZE + records.length * 8 + 2;
+        int[] offsets = new int[records.length];
+        int pos = listEnd;
+        for (int ix = 0; ix < records.length; ix++) {
+            offsets[ix] = pos;
+            pos += records[ix].length;
+        }
+        int appInfoOffset = pos;
+        int sortInfoOffset = appInfoOffset + APP_INFO.length;
+
+        PdbDataOutput out = new PdbDataOutput();
+        out.writeTerminatedFixedString("TestDB", 32);
+        out.writeShort(0);
+        out.writeShort(0);
+        out.writeInt(0);
+        out.writeInt(0);
+        out.writeInt(0);
+        out.writeInt(7);
+        out.writeInt(appInfoOffset);
+        out.writeInt(sortInfoOffset);
+        out.writeFixedString("DATA", 4);
+        out.writeFixedString("test", 4);
+        out.writeInt(records.length + 1);
+        out.writeInt(0);
+        out.writeShort(records.length);
+        for (int ix = 0; ix < records.length; ix++) {
+            out.writeInt(offsets[ix]);
+            out.writeByte(0);
+            out.writeByte(0);
+            out.writeShort(ix + 1);
+        }
+        out.writeShort(0);
+        for (byte[] record : records) {
+            out.write(record);
+        }
+        out.write(APP_INFO);
+        out.write(SORT_INFO);
+
+        File file = folder.newFile();
+        try (OutputStream fos = new FileOutputStream(file)) {
+            fos.write(out.toByteBuffer().array(), 0, out.size());
+        }
+
+        byte[] grown = createData(100, 30);
+        update(file, 0, grown);
+        byte[] last = createData(50, 3);
+        update(file, 2, last);
+
+        try (PdbFile pdb = new PdbFile(file)) {
+            PdbHeader header = pdb.readHeader();
+            int delta = grown.length - records[0].length + last.length - records[2].length;
+            Assert.assertEquals(appInfoOffset + delta, header.getAppInfoOffset());
+            Assert.assertEquals(sortInfoOffset + delta, header.getSortInfoOffset());
+
+            byte[] appInfo = new byte[APP_INFO.length];
+            pdb.readFully(header.getAppInfoOffset(), appInfo, 0, appInfo.length);
+            Assert.assertArrayEquals(APP_INFO, appInfo);
+
+            byte[] sortInfo = new byte[SORT_INFO.length];
+            pdb.readFully(header.getSortInfoOffset(), sortInfo, 0, sortInfo.length);
+            Assert.assertArrayEquals(SORT_INFO, sortInfo);
+
+            byte[] record = new byte[grown.length];
+            pdb.readFully(listEnd, record, 0, record.length);
+            Assert.assertArrayEquals(grown, record);
+
+            record = new byte[last.length];
+            pdb.readFully(header.getAppInfoOffset() - last.length, record, 0, record.length);
+            Assert.assertArrayEquals(last, record);
+        }
+    }
+
+    /**
+     * Attributes are patched in place, and must be unsigned bytes.
+     */
+    @Test
+    public void testAttributes() throws IOException {
+        File file = createFile();
+
+        try (PdbFile pdb = new PdbFile(file, true); PdbUpdater updater = pdb.openUpdater()) {
+            updater.setCategoryIndex(0, 5);
+            updater.setSecret(1, true);
+            try {
+                updater.setAttribute(2, 0x100);
+                Assert.fail("attribute out of range was accepted");
+            } catch (IllegalArgumentException ex) {
+                // expected
+            }
+            try {
+                updater.setAttribute(2, -1);
+                Assert.fail("negative attribute was accepted");
+            } catch (IllegalArgumentException ex) {
+                // expected
+            }
+        }
+
+        List<RawRecord> records = read(file).getRecords();
+        Assert.assertEquals(5, records.get(0).getCategoryIndex());
+        Assert.assertTrue(records.get(1).isSecret());
+        Assert.assertEquals(AbstractRecord.ATTR_DIRTY, getAttribute(records.get(2)));
+    }
+
+    /**
+     * Creates the data of the test records.
+     */
+    private static byte[][] createRecordData() {
+        return new byte[][] { createData(1, 10), createData(2, 10), createData(3, 10) };
+    }
+
+    /**
+     * Creates a record of the given size, filled with a pattern.
+     */
+    private static byte[] createData(int seed, int size) {
+        byte[] data = new byte[size];
+        for (int ix = 0; ix < size; ix++) {
+            data[ix] = (byte) (seed + ix);
+        }
+        return data;
+    }
+
+    /**
+     * Creates a PDB file with appinfo, sortinfo and the test records.
+     */
+    private File createFile() throws IOException {
+        PdbDatabase<RawRecord, RawAppInfo> database = new PdbDatabase<>();
+        database.setName("TestDB");
+        database.setType("DATA");
+        database.setCreator("test");
+        database.setModificationNumber(7);
+        database.setAppInfo(new RawAppInfo(APP_INFO));
+        database.setSortInfo(SORT_INFO);
+        byte[][] data = createRecordData();
+        database.getRecords().add(new RawRecord(data[0], 0));
+        database.getRecords().add(new RawRecord(data[1], 0));
+        database.getRecords().add(new RawRecord(data[2], AbstractRecord.ATTR_DIRTY));
+
+        File file = folder.newFile();
+        try (PdbWriter writer = new PdbWriter(file)) {
+            writer.writeDatabase(database, new RawEncoder());
+        }
+        return file;
+    }
+
+    /**
+     * Replaces a record of the file.
+     */
+    private static void update(File file, int index, byte[] data) throws IOException {
+        try (PdbFile pdb = new PdbFile(file, true); PdbUpdater updater = pdb.openUpdater()) {
+            updater.writeRecord(index, data);
+        }
+    }
+
+    /**
+     * Reads the database of the file.
+     */
+    private static PdbDatabase<RawRecord, RawAppInfo> read(File file) throws IOException {
+        try (PdbFile pdb = new PdbFile(file)) {
+            return pdb.readDatabase(new RawConverter());
+        }
+    }
+
+    /**
+     * Asserts that the records contain the expected data.
+     */
+    private static void assertRecords(byte[][] expected, List<RawRecord> records) {
+        Assert.assertEquals(expected.length, records.size());
+        for (int ix = 0; ix < expected.length; ix++) {
+            Assert.assertTrue("record " + ix, Arrays.equals(expected[ix], records.get(ix).getRaw()));
+        }
+    }
+
+    /**
+     * Gets the attribute byte of a record, without the category index.
+     */
+    private static int getAttribute(RawRecord record) {
+        int attribute = 0;
+        if (record.isSecret()) {
+            attribute |= AbstractRecord.ATTR_SECRET;
+        }
+        if (record.isBusy()) {
+            attribute |= AbstractRecord.ATTR_BUSY;
+        }
+        if (record.isDirty()) {
+            attribute |= AbstractRecord.ATTR_DIRTY;
+        }
+        return attribute;
+    }
+
+}
@@ -0,0 +1,160 @@
+/*
+ * Shredzone Commons - pdb
+ *
+ * Copyright (C) 2009 Richard "Shred" Körber
+ *   http://commons.shredzone.org
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Library General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Library General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.shredzone.commons.pdb;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.shredzone.commons.pdb.appinfo.RawAppInfo;
+import org.shredzone.commons.pdb.converter.RawConverter;
+import org.shredzone.commons.pdb.converter.RawEncoder;
+import org.shredzone.commons.pdb.record.RawRecord;
+import org.shredzone.commons.pdb.source.ByteBufferSource;
+
+/**
+ * Unit tests for {@link PdbWriter}.
+ */
+public class PdbWriterTest {
+
+    /**
+     * The header survives a round trip.
+     */
+    @Test
+    public void testHeader() throws IOException {
+        PdbDatabase<RawRecord, RawAppInfo> database = createDatabase();
+        database.setAttributes(PdbDatabase.ATTR_BACKUP);
+        database.setVersion(3);
+        database.setRawCreationTime(3300000000L);
+        database.setRawModificationTime(3300000100L);
+        database.setRawBackupTime(3300000200L);
+        database.setModificationNumber(42);
+
+        byte[] data = write(database);
+
+        try (PdbFile file = new PdbFile(new ByteBufferSource(data))) {
+            PdbHeader header = file.readHeader();
+            Assert.assertEquals("TestDB", header.getName());
+            Assert.assertEquals(PdbDatabase.ATTR_BACKUP, header.getAttributes());
+            Assert.assertEquals(3, header.getVersion());
+            Assert.assertEquals(3300000000L, header.getRawCreationTime());
+            Assert.assertEquals(3300000100L, header.getRawModificationTime());
+            Assert.assertEquals(3300000200L, header.getRawBackupTime());
+            Assert.assertEquals(42, header.getModificationNumber());
+            Assert.assertEquals("DATA", header.getType());
+            Assert.assertEquals("test", header.getCreator());
+            Assert.assertEquals(2, header.getRecordCount());
+        }
+    }
+
+    /**
+     * The raw sortinfo survives a round trip, with and without appinfo.
+     */
+    @Test
+    public void testSortInfo() throws IOException {
+        PdbDatabase<RawRecord, RawAppInfo> database = createDatabase();
+        database.setAppInfo(new RawAppInfo(new byte[] { 1, 2, 3 }));
+        database.setSortInfo(new byte[] { 9, 8, 7, 6 });
+
+        PdbDatabase<RawRecord, RawAppInfo> result = read(write(database));
+        Assert.assertArrayEquals(new byte[] { 1, 2, 3 }, result.getAppInfo().getRawAppInfo());
+        Assert.assertArrayEquals(new byte[] { 9, 8, 7, 6 }, result.getSortInfo());
+        assertRecords(result.getRecords());
+
+        database.setAppInfo(null);
+        result = read(write(database));
+        Assert.assertNull(result.getAppInfo());
+        Assert.assertArrayEquals(new byte[] { 9, 8, 7, 6 }, result.getSortInfo());
+        assertRecords(result.getRecords());
+
+        database.setSortInfo(null);
+        result = read(write(database));
+        Assert.assertNull(result.getSortInfo());
+        assertRecords(result.getRecords());
+    }
+
+    /**
+     * Unique IDs are kept if possible, otherwise fresh unique IDs are assigned.
+     */
+    @Test
+    public void testUniqueIds() throws IOException {
+        PdbDatabase<RawRecord, RawAppInfo> database = createDatabase();
+        database.getRecords().get(0).setUniqueId(100);
+        database.getRecords().get(1).setUniqueId(100);
+        database.getRecords().add(new RawRecord(new byte[] { 3 }, 0));
+
+        List<RawRecord> records = read(write(database)).getRecords();
+        Assert.assertEquals(100, records.get(0).getUniqueId());
+
+        Set<Integer> uniqueIds = new HashSet<>();
+        for (RawRecord record : records) {
+            Assert.assertTrue(record.getUniqueId() > 0);
+            Assert.assertTrue(uniqueIds.add(record.getUniqueId()));
+        }
+    }
+
+    /**
+     * Creates a database with two records.
+     */
+    private static PdbDatabase<RawRecord, RawAppInfo> createDatabase() {
+        PdbDatabase<RawRecord, RawAppInfo> database = new PdbDatabase<>();
+        database.setName("TestDB");
+        database.setType("DATA");
+        database.setCreator("test");
+        database.getRecords().add(new RawRecord(new byte[] { 1, 2 }, 0));
+        database.getRecords().add(new RawRecord(new byte[] { 3, 4, 5 }, 1));
+        return database;
+    }
+
+    /**
+     * Asserts that the records of {@link #createDatabase()} were read.
+     */
+    private static void assertRecords(List<RawRecord> records) {
+        Assert.assertEquals(2, records.size());
+        Assert.assertArrayEquals(new byte[] { 1, 2 }, records.get(0).getRaw());
+        Assert.assertArrayEquals(new byte[] { 3, 4, 5 }, records.get(1).getRaw());
+        Assert.assertEquals(1, records.get(1).getCategoryIndex());
+    }
+
+    /**
+     * Writes a database and returns the file content.
+     */
+    private static byte[] write(PdbDatabase<RawRecord, RawAppInfo> database) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (PdbWriter writer = new PdbWriter(out)) {
+            writer.writeDatabase(database, new RawEncoder());
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Reads a database from the file content.
+     */
+    private static PdbDatabase<RawRecord, RawAppInfo> read(byte[] data) throws IOException {
+        try (PdbFile file = new PdbFile(new ByteBufferSource(data))) {
+            return file.readDatabase(new RawConverter());
+        }
+    }
+
+}
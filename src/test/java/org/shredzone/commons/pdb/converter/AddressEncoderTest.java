@@ -0,0 +1,103 @@
+/*
+ * Shredzone Commons - pdb
+ *
+ * Copyright (C) 2009 Richard "Shred" Körber
+ *   http://commons.shredzone.org
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Library General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Library General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.shredzone.commons.pdb.converter;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.shredzone.commons.pdb.PdbDatabase;
+import org.shredzone.commons.pdb.appinfo.AddressAppInfo;
+import org.shredzone.commons.pdb.appinfo.CategoryAppInfo.Category;
+import org.shredzone.commons.pdb.record.AddressRecord;
+import org.shredzone.commons.pdb.record.AddressRecord.Field;
+import org.shredzone.commons.pdb.record.AddressRecord.Label;
+
+/**
+ * Unit tests for {@link AddressEncoder}.
+ */
+public class AddressEncoderTest {
+
+    /**
+     * Fields, phone labels and the appinfo survive a round trip.
+     */
+    @Test
+    public void testRoundTrip() throws IOException {
+        PdbDatabase<AddressRecord, AddressAppInfo> database =
+                        RoundTrip.createDatabase("AddressDB", "DATA", "addr");
+
+        AddressAppInfo appInfo = new AddressAppInfo();
+        appInfo.setCategory(0, new Category("Unfiled", 0, false));
+        appInfo.setCategory(1, new Category("Friends", 1, false));
+        appInfo.setCountry("DE");
+        for (Label label : Label.values()) {
+            appInfo.setLabel(label, label.name().toLowerCase());
+        }
+        database.setAppInfo(appInfo);
+
+        AddressRecord full = new AddressRecord(1);
+        for (Field field : Field.values()) {
+            full.setField(field, "Value of " + field);
+        }
+        full.setLabel(Field.PHONE1, Label.PHONE6);
+        full.setLabel(Field.PHONE2, Label.PHONE1);
+        full.setLabel(Field.PHONE3, Label.PHONE8);
+        full.setLabel(Field.PHONE4, Label.PHONE2);
+        full.setLabel(Field.PHONE5, Label.PHONE3);
+        full.setDisplayPhone(2);
+        database.getRecords().add(full);
+
+        AddressRecord sparse = new AddressRecord(0);
+        sparse.setField(Field.COMPANY, "ACME");
+        sparse.setField(Field.NOTE, "Call back");
+        database.getRecords().add(sparse);
+
+        PdbDatabase<AddressRecord, AddressAppInfo> result =
+                        RoundTrip.write(database, new AddressEncoder(), new AddressConverter());
+
+        List<AddressRecord> records = result.getRecords();
+        Assert.assertEquals(2, records.size());
+
+        for (Field field : Field.values()) {
+            Assert.assertEquals("Value of " + field, records.get(0).getField(field));
+        }
+        Assert.assertEquals(Label.PHONE6, records.get(0).getLabel(Field.PHONE1));
+        Assert.assertEquals(Label.PHONE1, records.get(0).getLabel(Field.PHONE2));
+        Assert.assertEquals(Label.PHONE8, records.get(0).getLabel(Field.PHONE3));
+        Assert.assertEquals(Label.PHONE2, records.get(0).getLabel(Field.PHONE4));
+        Assert.assertEquals(Label.PHONE3, records.get(0).getLabel(Field.PHONE5));
+        Assert.assertEquals(2, records.get(0).getDisplayPhone());
+        Assert.assertEquals(1, records.get(0).getCategoryIndex());
+
+        for (Field field : Field.values()) {
+            String expected = sparse.getField(field);
+            Assert.assertEquals(expected, records.get(1).getField(field));
+        }
+
+        AddressAppInfo resultInfo = result.getAppInfo();
+        Assert.assertEquals("DE", resultInfo.getCountry());
+        Assert.assertEquals("Friends", resultInfo.getCategoryName(1));
+        for (Label label : Label.values()) {
+            Assert.assertEquals(label.name().toLowerCase(), resultInfo.getLabel(label));
+        }
+    }
+
+}
@@ -0,0 +1,91 @@
+/*
+ * Shredzone Commons - pdb
+ *
+ * Copyright (C) 2009 Richard "Shred" Körber
+ *   http://commons.shredzone.org
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Library General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Library General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.shredzone.commons.pdb.converter;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.shredzone.commons.pdb.PdbDatabase;
+import org.shredzone.commons.pdb.appinfo.CategoryAppInfo;
+import org.shredzone.commons.pdb.appinfo.CategoryAppInfo.Category;
+import org.shredzone.commons.pdb.record.AbstractRecord;
+import org.shredzone.commons.pdb.record.MemoRecord;
+
+/**
+ * Unit tests for {@link MemoEncoder}.
+ */
+public class MemoEncoderTest {
+
+    /**
+     * Memos and categories survive a round trip.
+     */
+    @Test
+    public void testRoundTrip() throws IOException {
+        PdbDatabase<MemoRecord, CategoryAppInfo> database =
+                        RoundTrip.createDatabase("MemoDB", "DATA", "memo");
+
+        CategoryAppInfo appInfo = new CategoryAppInfo();
+        appInfo.setCategory(0, new Category("Unfiled", 0, false));
+        appInfo.setCategory(1, new Category("Business", 1, true));
+        appInfo.setCategory(3, new Category("Grüße", 17, false));
+        database.setAppInfo(appInfo);
+
+        MemoRecord first = new MemoRecord(1);
+        first.setMemo("Shopping list\nMilk\nEggs");
+        database.getRecords().add(first);
+
+        MemoRecord second = new MemoRecord(3 | AbstractRecord.ATTR_SECRET);
+        second.setMemo("Grüße aus Köln");
+        second.setUniqueId(0x123456);
+        database.getRecords().add(second);
+
+        MemoRecord third = new MemoRecord(0);
+        third.setMemo("");
+        database.getRecords().add(third);
+
+        PdbDatabase<MemoRecord, CategoryAppInfo> result =
+                        RoundTrip.write(database, new MemoEncoder(), new MemoConverter());
+
+        List<MemoRecord> records = result.getRecords();
+        Assert.assertEquals(3, records.size());
+
+        Assert.assertEquals("Shopping list\nMilk\nEggs", records.get(0).getMemo());
+        Assert.assertEquals(1, records.get(0).getCategoryIndex());
+        Assert.assertFalse(records.get(0).isSecret());
+
+        Assert.assertEquals("Grüße aus Köln", records.get(1).getMemo());
+        Assert.assertEquals(3, records.get(1).getCategoryIndex());
+        Assert.assertTrue(records.get(1).isSecret());
+        Assert.assertEquals(0x123456, records.get(1).getUniqueId());
+
+        Assert.assertEquals("", records.get(2).getMemo());
+
+        CategoryAppInfo resultInfo = result.getAppInfo();
+        Assert.assertEquals("Unfiled", resultInfo.getCategoryName(0));
+        Assert.assertEquals("Business", resultInfo.getCategoryName(1));
+        Assert.assertTrue(resultInfo.getCategoryByIndex(1).isRenamed());
+        Assert.assertNull(resultInfo.getCategoryName(2));
+        Assert.assertEquals("Grüße", resultInfo.getCategoryName(3));
+        Assert.assertEquals(3, resultInfo.findCategoryByKey(17));
+    }
+
+}
@@ -0,0 +1,69 @@
+/*
+ * Shredzone Commons - pdb
+ *
+ * Copyright (C) 2009 Richard "Shred" Körber
+ *   http://commons.shredzone.org
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Library General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Library General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.shredzone.commons.pdb.converter;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.shredzone.commons.pdb.PdbDatabase;
+import org.shredzone.commons.pdb.appinfo.RawAppInfo;
+import org.shredzone.commons.pdb.record.AbstractRecord;
+import org.shredzone.commons.pdb.record.RawRecord;
+
+/**
+ * Unit tests for {@link RawEncoder}.
+ */
+public class RawEncoderTest {
+
+    /**
+     * Record data, attributes and the appinfo are written unchanged.
+     */
+    @Test
+    public void testRoundTrip() throws IOException {
+        PdbDatabase<RawRecord, RawAppInfo> database =
+                        RoundTrip.createDatabase("RawDB", "DATA", "test");
+        database.setAppInfo(new RawAppInfo(new byte[] { 1, 2, 3, 4, 5 }));
+
+        database.getRecords().add(new RawRecord(new byte[] { 0, (byte) 0xFF, 0x7F }, 2));
+        database.getRecords().add(new RawRecord(new byte[0], AbstractRecord.ATTR_BUSY));
+        database.getRecords().add(new RawRecord(new byte[] { 42 }, AbstractRecord.ATTR_DIRTY | 15));
+
+        PdbDatabase<RawRecord, RawAppInfo> result =
+                        RoundTrip.write(database, new RawEncoder(), new RawConverter());
+
+        Assert.assertArrayEquals(new byte[] { 1, 2, 3, 4, 5 }, result.getAppInfo().getRawAppInfo());
+
+        List<RawRecord> records = result.getRecords();
+        Assert.assertEquals(3, records.size());
+
+        Assert.assertArrayEquals(new byte[] { 0, (byte) 0xFF, 0x7F }, records.get(0).getRaw());
+        Assert.assertEquals(2, records.get(0).getCategoryIndex());
+
+        Assert.assertArrayEquals(new byte[0], records.get(1).getRaw());
+        Assert.assertTrue(records.get(1).isBusy());
+
+        Assert.assertArrayEquals(new byte[] { 42 }, records.get(2).getRaw());
+        Assert.assertTrue(records.get(2).isDirty());
+        Assert.assertEquals(15, records.get(2).getCategoryIndex());
+    }
+
+}
@@ -0,0 +1,89 @@
+/*
+ * Shredzone Commons - pdb
+ *
+ * Copyright (C) 2009 Richard "Shred" Körber
+ *   http://commons.shredzone.org
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Library General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Library General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.shredzone.commons.pdb.converter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import org.shredzone.commons.pdb.PdbDatabase;
+import org.shredzone.commons.pdb.PdbFile;
+import org.shredzone.commons.pdb.PdbWriter;
+import org.shredzone.commons.pdb.appinfo.AppInfo;
+import org.shredzone.commons.pdb.record.Record;
+import org.shredzone.commons.pdb.source.ByteBufferSource;
+
+/**
+ * Helper for writing a {@link PdbDatabase} and reading it back.
+ */
+final class RoundTrip {
+
+    private RoundTrip() {
+        // utility class without constructor
+    }
+
+    /**
+     * Creates an empty {@link PdbDatabase}.
+     *
+     * @param name
+     *            Database name
+     * @param type
+     *            Database type
+     * @param creator
+     *            Database creator
+     * @return {@link PdbDatabase} without records
+     */
+    static <T extends Record, U extends AppInfo> PdbDatabase<T, U> createDatabase(
+                String name, String type, String creator) {
+        PdbDatabase<T, U> database = new PdbDatabase<>();
+        database.setName(name);
+        database.setType(type);
+        database.setCreator(creator);
+        database.setRawCreationTime(3300000000L);
+        database.setRawModificationTime(3300000100L);
+        database.setModificationNumber(7);
+        return database;
+    }
+
+    /**
+     * Writes the database with the given {@link Encoder}, and reads it back with the
+     * given {@link Converter}.
+     *
+     * @param database
+     *            {@link PdbDatabase} to write
+     * @param encoder
+     *            {@link Encoder} to write the database with
+     * @param converter
+     *            {@link Converter} to read the database with
+     * @return {@link PdbDatabase} that was read back
+     */
+    static <T extends Record, U extends AppInfo> PdbDatabase<T, U> write(
+                PdbDatabase<T, U> database, Encoder<T, U> encoder, Converter<T, U> converter)
+    throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (PdbWriter writer = new PdbWriter(out)) {
+            writer.writeDatabase(database, encoder);
+        }
+
+        try (PdbFile file = new PdbFile(new ByteBufferSource(out.toByteArray()))) {
+            return file.readDatabase(converter);
+        }
+    }
+
+}
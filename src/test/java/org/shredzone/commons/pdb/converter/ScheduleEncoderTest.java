@@ -0,0 +1,196 @@
+/*
+ * Shredzone Commons - pdb
+ *
+ * Copyright (C) 2009 Richard "Shred" Körber
+ *   http://commons.shredzone.org
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Library General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Library General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.shredzone.commons.pdb.converter;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.shredzone.commons.pdb.PdbDatabase;
+import org.shredzone.commons.pdb.appinfo.CategoryAppInfo;
+import org.shredzone.commons.pdb.appinfo.CategoryAppInfo.Category;
+import org.shredzone.commons.pdb.record.ScheduleRecord;
+import org.shredzone.commons.pdb.record.ScheduleRecord.Alarm;
+import org.shredzone.commons.pdb.record.ScheduleRecord.Repeat;
+import org.shredzone.commons.pdb.record.ScheduleRecord.Repeat.Mode;
+import org.shredzone.commons.pdb.record.ScheduleRecord.ShortDate;
+import org.shredzone.commons.pdb.record.ScheduleRecord.ShortTime;
+
+/**
+ * Unit tests for {@link ScheduleEncoder}.
+ */
+public class ScheduleEncoderTest {
+
+    /**
+     * Times, texts and exceptions survive a round trip.
+     */
+    @Test
+    public void testRoundTrip() throws IOException {
+        PdbDatabase<ScheduleRecord, CategoryAppInfo> database = createDatabase();
+
+        ScheduleRecord meeting = new ScheduleRecord(1);
+        meeting.setSchedule(new ShortDate(2009, 3, 14));
+        meeting.setStartTime(new ShortTime(9, 30));
+        meeting.setEndTime(new ShortTime(11, 0));
+        meeting.setDescription("Meeting");
+        meeting.setNote("Bring the slides");
+        meeting.setLocation("Room 42");
+        meeting.getExceptions().add(new ShortDate(2009, 3, 21));
+        meeting.getExceptions().add(new ShortDate(2009, 4, 4));
+        database.getRecords().add(meeting);
+
+        ScheduleRecord allDay = new ScheduleRecord(0);
+        allDay.setSchedule(new ShortDate(2010, 1, 1));
+        allDay.setLocation("Home");
+        database.getRecords().add(allDay);
+
+        List<ScheduleRecord> records = write(database);
+        Assert.assertEquals(2, records.size());
+
+        ScheduleRecord result = records.get(0);
+        Assert.assertEquals("2009-03-14", result.getSchedule().toString());
+        Assert.assertEquals(9, result.getStartTime().getHour());
+        Assert.assertEquals(30, result.getStartTime().getMinute());
+        Assert.assertEquals(11, result.getEndTime().getHour());
+        Assert.assertEquals(0, result.getEndTime().getMinute());
+        Assert.assertEquals("Meeting", result.getDescription());
+        Assert.assertEquals("Bring the slides", result.getNote());
+        Assert.assertEquals("Room 42", result.getLocation());
+        Assert.assertEquals("Business", result.getCategory());
+        Assert.assertEquals(2, result.getExceptions().size());
+        Assert.assertEquals("2009-03-21", result.getExceptions().get(0).toString());
+        Assert.assertEquals("2009-04-04", result.getExceptions().get(1).toString());
+        Assert.assertNull(result.getAlarm());
+        Assert.assertNull(result.getRepeat());
+
+        result = records.get(1);
+        Assert.assertEquals("2010-01-01", result.getSchedule().toString());
+        Assert.assertNull(result.getStartTime());
+        Assert.assertNull(result.getEndTime());
+        Assert.assertNull(result.getDescription());
+        Assert.assertNull(result.getNote());
+        Assert.assertEquals("Home", result.getLocation());
+        Assert.assertTrue(result.getExceptions().isEmpty());
+    }
+
+    /**
+     * All alarm units survive a round trip.
+     */
+    @Test
+    public void testAlarmUnits() throws IOException {
+        PdbDatabase<ScheduleRecord, CategoryAppInfo> database = createDatabase();
+        for (Alarm.Unit unit : Alarm.Unit.values()) {
+            ScheduleRecord record = createRecord("Alarm " + unit);
+            record.setAlarm(new Alarm(unit.ordinal() + 5, unit));
+            database.getRecords().add(record);
+        }
+
+        List<ScheduleRecord> records = write(database);
+        Assert.assertEquals(Alarm.Unit.values().length, records.size());
+        for (Alarm.Unit unit : Alarm.Unit.values()) {
+            ScheduleRecord result = records.get(unit.ordinal());
+            Assert.assertEquals(unit, result.getAlarm().getUnit());
+            Assert.assertEquals(unit.ordinal() + 5, result.getAlarm().getValue());
+            Assert.assertEquals("Alarm " + unit, result.getDescription());
+        }
+    }
+
+    /**
+     * All repeat modes survive a round trip.
+     */
+    @Test
+    public void testRepeatModes() throws IOException {
+        boolean[] weeklyDays = { false, true, false, true, false, false, true };
+
+        PdbDatabase<ScheduleRecord, CategoryAppInfo> database = createDatabase();
+        for (Mode mode : Mode.values()) {
+            ScheduleRecord record = createRecord("Repeat " + mode);
+            boolean[] days = mode == Mode.WEEKLY ? weeklyDays : new boolean[7];
+            int week = mode == Mode.MONTHLY_BY_DAY ? 4 : 0;
+            int day = mode == Mode.MONTHLY_BY_DAY ? 5 : 0;
+            record.setRepeat(new Repeat(mode, mode.ordinal() + 1, new ShortDate(2012, 6, 30),
+                            days, week, day));
+            database.getRecords().add(record);
+        }
+
+        ScheduleRecord endless = createRecord("Endless");
+        endless.setRepeat(new Repeat(Mode.DAILY, 1, null, new boolean[7], 0, 0));
+        database.getRecords().add(endless);
+
+        List<ScheduleRecord> records = write(database);
+        Assert.assertEquals(Mode.values().length + 1, records.size());
+        for (Mode mode : Mode.values()) {
+            ScheduleRecord result = records.get(mode.ordinal());
+            Repeat repeat = result.getRepeat();
+            Assert.assertEquals(mode, repeat.getMode());
+            Assert.assertEquals(mode.ordinal() + 1, repeat.getFrequency());
+            Assert.assertEquals("2012-06-30", repeat.getUntil().toString());
+            if (mode == Mode.WEEKLY) {
+                Assert.assertArrayEquals(weeklyDays, repeat.getWeeklyDays());
+            }
+            if (mode == Mode.MONTHLY_BY_DAY) {
+                Assert.assertEquals(4, repeat.getMonthlyWeek());
+                Assert.assertEquals(5, repeat.getMonthlyDay());
+            }
+            Assert.assertEquals("Repeat " + mode, result.getDescription());
+        }
+
+        Repeat repeat = records.get(Mode.values().length).getRepeat();
+        Assert.assertEquals(Mode.DAILY, repeat.getMode());
+        Assert.assertNull(repeat.getUntil());
+    }
+
+    /**
+     * Creates a calendar database with categories.
+     */
+    private static PdbDatabase<ScheduleRecord, CategoryAppInfo> createDatabase() {
+        PdbDatabase<ScheduleRecord, CategoryAppInfo> database =
+                        RoundTrip.createDatabase("DatebookDB", "DATA", "PDat");
+
+        CategoryAppInfo appInfo = new CategoryAppInfo();
+        appInfo.setCategory(0, new Category("Unfiled", 0, false));
+        appInfo.setCategory(1, new Category("Business", 1, false));
+        database.setAppInfo(appInfo);
+
+        return database;
+    }
+
+    /**
+     * Creates a simple schedule record with the given description.
+     */
+    private static ScheduleRecord createRecord(String description) {
+        ScheduleRecord record = new ScheduleRecord(0);
+        record.setSchedule(new ShortDate(2011, 11, 11));
+        record.setStartTime(new ShortTime(11, 11));
+        record.setEndTime(new ShortTime(12, 0));
+        record.setDescription(description);
+        return record;
+    }
+
+    /**
+     * Writes the database and returns the records that were read back.
+     */
+    private static List<ScheduleRecord> write(PdbDatabase<ScheduleRecord, CategoryAppInfo> database)
+    throws IOException {
+        return RoundTrip.write(database, new ScheduleEncoder(), new ScheduleConverter()).getRecords();
+    }
+
+}
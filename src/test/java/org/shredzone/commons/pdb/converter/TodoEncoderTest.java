@@ -0,0 +1,83 @@
+/*
+ * Shredzone Commons - pdb
+ *
+ * Copyright (C) 2009 Richard "Shred" Körber
+ *   http://commons.shredzone.org
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Library General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Library General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.shredzone.commons.pdb.converter;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.shredzone.commons.pdb.PalmDate;
+import org.shredzone.commons.pdb.PdbDatabase;
+import org.shredzone.commons.pdb.appinfo.CategoryAppInfo;
+import org.shredzone.commons.pdb.appinfo.CategoryAppInfo.Category;
+import org.shredzone.commons.pdb.record.TodoRecord;
+
+/**
+ * Unit tests for {@link TodoEncoder}.
+ */
+public class TodoEncoderTest {
+
+    /**
+     * Due date, priority, completion and texts survive a round trip.
+     */
+    @Test
+    public void testRoundTrip() throws IOException {
+        PdbDatabase<TodoRecord, CategoryAppInfo> database =
+                        RoundTrip.createDatabase("ToDoDB", "DATA", "todo");
+
+        CategoryAppInfo appInfo = new CategoryAppInfo();
+        appInfo.setCategory(0, new Category("Unfiled", 0, false));
+        database.setAppInfo(appInfo);
+
+        TodoRecord dated = new TodoRecord(0);
+        dated.setPackedDate(PalmDate.pack(2009, 12, 31));
+        dated.setPriority(1);
+        dated.setCompleted(true);
+        dated.setDescription("Buy champagne");
+        dated.setNote("Two bottles");
+        database.getRecords().add(dated);
+
+        TodoRecord undated = new TodoRecord(0);
+        undated.setPriority(5);
+        undated.setDescription("Clean up");
+        database.getRecords().add(undated);
+
+        PdbDatabase<TodoRecord, CategoryAppInfo> result =
+                        RoundTrip.write(database, new TodoEncoder(), new TodoConverter());
+
+        List<TodoRecord> records = result.getRecords();
+        Assert.assertEquals(2, records.size());
+
+        Assert.assertEquals(PalmDate.pack(2009, 12, 31), records.get(0).getPackedDate());
+        Assert.assertEquals(1, records.get(0).getPriority());
+        Assert.assertTrue(records.get(0).isCompleted());
+        Assert.assertEquals("Buy champagne", records.get(0).getDescription());
+        Assert.assertEquals("Two bottles", records.get(0).getNote());
+
+        Assert.assertEquals(PalmDate.NO_DATE, records.get(1).getPackedDate());
+        Assert.assertNull(records.get(1).getDate());
+        Assert.assertEquals(5, records.get(1).getPriority());
+        Assert.assertFalse(records.get(1).isCompleted());
+        Assert.assertEquals("Clean up", records.get(1).getDescription());
+        Assert.assertNull(records.get(1).getNote());
+    }
+
+}